@@ -85,6 +85,13 @@ public class GatewayConfig {
                         .filters(f -> f.rewritePath("/api/users/(?<segment>.*)", "/${segment}"))
                         .uri(userServiceUrl))
                 
+                // Disponibilité d'un username : publique (appelée avant l'inscription), pas d'email pour éviter l'énumération
+                .route("user-availability", r -> r
+                        .order(2)
+                        .path("/api/users/availability")
+                        .and().method("GET")
+                        .uri(userServiceUrl))
+
                 .route("user-profile", r -> r
                         .order(2)
                         .path("/api/users/profile")
@@ -198,6 +205,36 @@ public class GatewayConfig {
                                 .rewritePath("/api/transactions", "/transaction"))
                         .uri(transactionServiceUrl))
                 
+                .route("transaction-create-batch", r -> r
+                        .order(1)
+                        .path("/api/transactions/batch")
+                        .and().method("POST")
+                        .filters(f -> f
+                                .filter(jwtAuthFilter.apply(new JwtAuthenticationGatewayFilterFactory.Config()))
+                                .rewritePath("/api/transactions/batch", "/transaction/batch"))
+                        .uri(transactionServiceUrl))
+                
+                // Compteurs d'un utilisateur : réservés à l'utilisateur lui-même et aux admins (JWT vérifié)
+                .route("transaction-stats", r -> r
+                        .order(1)
+                        .path("/api/transactions/stats/{userId}")
+                        .and().method("GET")
+                        .filters(f -> f
+                                .filter(jwtAuthFilter.apply(JwtAuthenticationGatewayFilterFactory.Config.verified()))
+                                .rewritePath("/api/transactions/(?<segment>.*)", "/transaction/${segment}"))
+                        .uri(transactionServiceUrl))
+                
+                // Recalcul de la projection des compteurs : le service exige le rôle realm admin (X-User-Roles),
+                // donc la signature du JWT est toujours vérifiée sur cette route
+                .route("transaction-stats-rebuild", r -> r
+                        .order(1)
+                        .path("/api/transactions/stats/rebuild")
+                        .and().method("POST")
+                        .filters(f -> f
+                                .filter(jwtAuthFilter.apply(JwtAuthenticationGatewayFilterFactory.Config.verified()))
+                                .rewritePath("/api/transactions/stats/rebuild", "/transaction/stats/rebuild"))
+                        .uri(transactionServiceUrl))
+                
                 .route("transaction-get", r -> r
                         .order(2)
                         .path("/api/transactions/{id}")
@@ -216,6 +253,15 @@ public class GatewayConfig {
                                 .rewritePath("/api/transactions/(?<segment>.*)", "/transaction/${segment}"))
                         .uri(transactionServiceUrl))
                 
+                .route("transaction-messages", r -> r
+                        .order(3)
+                        .path("/api/transactions/{id}/messages", "/api/transactions/{id}/messages/read")
+                        .and().method("GET", "POST")
+                        .filters(f -> f
+                                .filter(jwtAuthFilter.apply(new JwtAuthenticationGatewayFilterFactory.Config()))
+                                .rewritePath("/api/transactions/(?<segment>.*)", "/transaction/${segment}"))
+                        .uri(transactionServiceUrl))
+                
                 // SSE endpoint pour les transactions
                 .route("transaction-sse-single", r -> r
                         .order(4)
@@ -1,9 +1,13 @@
 package com.iwaproject.gateway.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
 /**
@@ -35,4 +39,22 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    /**
+     * Décodeur JWT (vérification de signature via le JWKS de Keycloak, mis en cache)
+     * Utilisé par le filtre JWT quand l'identité interne signée est activée
+     */
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(@Value("${keycloak.auth-server-url}") String keycloakUrl,
+                                         @Value("${keycloak.realm}") String realm,
+                                         @Value("${gateway.identity.issuer-uri:}") String issuerUri) {
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder
+                .withJwkSetUri(keycloakUrl + "/realms/" + realm + "/protocol/openid-connect/certs")
+                .build();
+        // L'issuer (URL publique) diffère de l'URL interne de Keycloak : vérifié seulement s'il est configuré
+        decoder.setJwtValidator(issuerUri.isEmpty()
+                ? JwtValidators.createDefault()
+                : JwtValidators.createDefaultWithIssuer(issuerUri));
+        return decoder;
+    }
 }
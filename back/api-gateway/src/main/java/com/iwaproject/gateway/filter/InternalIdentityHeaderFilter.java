@@ -0,0 +1,34 @@
+package com.iwaproject.gateway.filter;
+
+import com.iwaproject.gateway.security.InternalIdentitySigner;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Supprime le header d'identité interne des requêtes entrantes : seul le filtre JWT de la Gateway
+ * peut le positionner, un client ne peut pas en rejouer un.
+ */
+@Component
+public class InternalIdentityHeaderFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!exchange.getRequest().getHeaders().containsKey(InternalIdentitySigner.HEADER)) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate()
+                .request(exchange.getRequest().mutate()
+                        .headers(headers -> headers.remove(InternalIdentitySigner.HEADER))
+                        .build())
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -1,7 +1,9 @@
 package com.iwaproject.gateway.filter;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iwaproject.gateway.security.InternalIdentitySigner;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
@@ -10,27 +12,44 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Gateway filter pour valider les JWT tokens
  * Décode le JWT localement sans appeler Keycloak (évite les problèmes de réseau Docker)
+ * Si gateway.identity.secret est configuré, la signature du JWT est vérifiée (JWKS en cache)
+ * et l'identité est transmise signée (HMAC) dans le header X-Internal-Identity : les microservices
+ * n'ont alors plus à re-vérifier le JWT.
+ * Les routes configurées avec requireVerifiedToken vérifient toujours la signature, que l'identité
+ * signée soit activée ou non (ex. routes d'administration autorisées sur X-User-Roles).
  */
 @Component
 @Slf4j
 public class JwtAuthenticationGatewayFilterFactory 
         extends AbstractGatewayFilterFactory<JwtAuthenticationGatewayFilterFactory.Config> {
 
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {
+    };
+
     private final ObjectMapper objectMapper;
+    private final InternalIdentitySigner identitySigner;
+    private final ReactiveJwtDecoder jwtDecoder;
 
-    public JwtAuthenticationGatewayFilterFactory() {
+    public JwtAuthenticationGatewayFilterFactory(InternalIdentitySigner identitySigner, ReactiveJwtDecoder jwtDecoder) {
         super(Config.class);
         this.objectMapper = new ObjectMapper();
+        this.identitySigner = identitySigner;
+        this.jwtDecoder = jwtDecoder;
     }
 
     @Override
@@ -46,7 +65,18 @@ public class JwtAuthenticationGatewayFilterFactory
             }
             
             String token = authHeader.substring(7);
-            
+
+            if (identitySigner.isEnabled() || config.isRequireVerifiedToken()) {
+                // Vérification complète (signature, expiration) puis identité signée pour les microservices
+                return jwtDecoder.decode(token)
+                        .map(jwt -> withIdentityHeaders(exchange, toJsonClaims(jwt.getClaims()), true))
+                        .onErrorResume(JwtException.class, e -> {
+                            log.warn("Token validation failed: {}", e.getMessage());
+                            return onError(exchange, "Invalid token", HttpStatus.UNAUTHORIZED).then(Mono.empty());
+                        })
+                        .flatMap(chain::filter);
+            }
+
             try {
                 // Décoder le JWT pour extraire les claims
                 JsonNode jwtClaims = decodeJwtPayload(token);
@@ -58,26 +88,8 @@ public class JwtAuthenticationGatewayFilterFactory
                     log.warn("Token expired: exp={}, now={}", exp, now);
                     return onError(exchange, "Token expired", HttpStatus.UNAUTHORIZED);
                 }
-                
-                // Extraire les informations utilisateur
-                String userId = jwtClaims.path("sub").asText();
-                String username = jwtClaims.path("preferred_username").asText();
-                String email = jwtClaims.path("email").asText();
-                String roles = getRolesAsString(jwtClaims);
-                
-                log.info("JWT validated - sub: {}, username: {}, exp: {}", userId, username, exp);
-                
-                // Ajouter les claims en tant que headers pour les microservices
-                ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
-                        .header("X-User-Id", userId)
-                        .header("X-User-Username", username)
-                        .header("X-User-Email", email)
-                        .header("X-User-Roles", roles)
-                        .build();
-                
-                log.info("Added headers - X-User-Id: {}, X-User-Username: {}", userId, username);
-                
-                return chain.filter(exchange.mutate().request(modifiedRequest).build());
+
+                return chain.filter(withIdentityHeaders(exchange, objectMapper.convertValue(jwtClaims, CLAIMS_TYPE), false));
                 
             } catch (Exception e) {
                 log.error("Token validation failed: {}", e.getMessage());
@@ -86,6 +98,38 @@ public class JwtAuthenticationGatewayFilterFactory
         };
     }
 
+    /**
+     * Ajoute les claims en tant que headers pour les microservices
+     */
+    private ServerWebExchange withIdentityHeaders(ServerWebExchange exchange, Map<String, Object> claims, boolean verified) {
+        JsonNode jwtClaims = objectMapper.valueToTree(claims);
+        String userId = jwtClaims.path("sub").asText();
+        String username = jwtClaims.path("preferred_username").asText();
+        String email = jwtClaims.path("email").asText();
+        String roles = getRolesAsString(jwtClaims);
+
+        log.debug("JWT validated - sub: {}, username: {}, verified: {}", userId, username, verified);
+
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .header("X-User-Id", userId)
+                .header("X-User-Username", username)
+                .header("X-User-Email", email)
+                .header("X-User-Roles", roles);
+        if (verified && identitySigner.isEnabled()) {
+            request.header(InternalIdentitySigner.HEADER, identitySigner.sign(claims));
+        }
+        return exchange.mutate().request(request.build()).build();
+    }
+
+    /**
+     * Claims du JWT vérifié en types JSON (les dates en secondes epoch)
+     */
+    private static Map<String, Object> toJsonClaims(Map<String, Object> claims) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        claims.forEach((name, value) -> json.put(name, value instanceof Instant instant ? instant.getEpochSecond() : value));
+        return json;
+    }
+
     /**
      * Décode le payload du JWT (partie centrale en base64)
      */
@@ -135,6 +179,13 @@ public class JwtAuthenticationGatewayFilterFactory
 
     @Data
     public static class Config {
-        // Configuration optionnelle si besoin
+        // Vérifier la signature du JWT même si l'identité signée est désactivée
+        private boolean requireVerifiedToken;
+
+        public static Config verified() {
+            Config config = new Config();
+            config.setRequireVerifiedToken(true);
+            return config;
+        }
     }
 }
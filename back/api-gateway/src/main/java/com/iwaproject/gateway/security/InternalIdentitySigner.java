@@ -0,0 +1,66 @@
+package com.iwaproject.gateway.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signe l'identité de l'utilisateur (après vérification du JWT par la Gateway) dans un header interne
+ * compact : base64url(claims JSON) + "." + base64url(HMAC-SHA256(claims)).
+ * Les microservices qui partagent le secret acceptent ce header sans re-vérifier la signature RSA du JWT.
+ * Désactivé si gateway.identity.secret est vide.
+ */
+@Component
+public class InternalIdentitySigner {
+
+    public static final String HEADER = "X-Internal-Identity";
+
+    // Claims transmis aux microservices (ceux lus par les contrôleurs)
+    private static final List<String> FORWARDED_CLAIMS = List.of(
+            "sub", "preferred_username", "email", "given_name", "family_name", "realm_access", "exp");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecretKeySpec key;
+
+    public InternalIdentitySigner(@Value("${gateway.identity.secret:}") String secret) {
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    /**
+     * @param claims claims du JWT vérifié (dates en secondes epoch)
+     */
+    public String sign(Map<String, Object> claims) {
+        Map<String, Object> identity = new LinkedHashMap<>();
+        for (String name : FORWARDED_CLAIMS) {
+            Object value = claims.get(name);
+            if (value != null) {
+                identity.put(name, value);
+            }
+        }
+        try {
+            String payload = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(identity));
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            String signature = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+            return payload + "." + signature;
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            throw new IllegalStateException("Impossible de signer l'identité interne", e);
+        }
+    }
+}
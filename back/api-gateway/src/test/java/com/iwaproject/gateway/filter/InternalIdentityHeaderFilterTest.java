@@ -0,0 +1,50 @@
+package com.iwaproject.gateway.filter;
+
+import com.iwaproject.gateway.security.InternalIdentitySigner;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternalIdentityHeaderFilterTest {
+
+    private final InternalIdentityHeaderFilter filter = new InternalIdentityHeaderFilter();
+
+    // Exchange transmis au filtre suivant
+    private ServerWebExchange forward(ServerWebExchange exchange) {
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        filter.filter(exchange, next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        }).block();
+        return forwarded.get();
+    }
+
+    @Test
+    void clientSuppliedIdentity_ShouldBeStripped() {
+        ServerWebExchange forwarded = forward(MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/me")
+                .header(InternalIdentitySigner.HEADER, "forged.identity")
+                .header("Authorization", "Bearer token")));
+
+        assertThat(forwarded.getRequest().getHeaders().containsKey(InternalIdentitySigner.HEADER)).isFalse();
+        assertThat(forwarded.getRequest().getHeaders().getFirst("Authorization")).isEqualTo("Bearer token");
+    }
+
+    @Test
+    void requestWithoutIdentity_ShouldBeForwardedUnchanged() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/me"));
+
+        assertThat(forward(exchange)).isSameAs(exchange);
+    }
+
+    @Test
+    void filter_ShouldRunBeforeRouteFilters() {
+        assertThat(filter.getOrder()).isEqualTo(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,90 @@
+package com.iwaproject.gateway.filter;
+
+import com.iwaproject.gateway.security.InternalIdentitySigner;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationGatewayFilterFactoryTest {
+
+    private final ReactiveJwtDecoder jwtDecoder = mock(ReactiveJwtDecoder.class);
+
+    // Identité signée désactivée (configuration par défaut de docker-compose)
+    private final JwtAuthenticationGatewayFilterFactory factory =
+            new JwtAuthenticationGatewayFilterFactory(new InternalIdentitySigner(""), jwtDecoder);
+
+    // JWT non signé revendiquant le rôle admin
+    private static final String FORGED_ADMIN_TOKEN = "eyJhbGciOiJub25lIn0."
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    "{\"sub\":\"user-1\",\"exp\":4102444800,\"realm_access\":{\"roles\":[\"admin\"]}}"
+                            .getBytes(StandardCharsets.UTF_8))
+            + ".signature";
+
+    // Exchange transmis au filtre suivant (null si la requête a été rejetée)
+    private ServerWebExchange forward(GatewayFilter filter, MockServerWebExchange exchange) {
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        filter.filter(exchange, next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        }).block();
+        return forwarded.get();
+    }
+
+    private static MockServerWebExchange request() {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/api/transactions/stats/rebuild")
+                .header("Authorization", "Bearer " + FORGED_ADMIN_TOKEN));
+    }
+
+    @Test
+    void verifiedRoute_WithInvalidSignature_ShouldBeRejected() {
+        when(jwtDecoder.decode(FORGED_ADMIN_TOKEN)).thenReturn(Mono.error(new BadJwtException("Invalid signature")));
+        MockServerWebExchange exchange = request();
+
+        ServerWebExchange forwarded = forward(factory.apply(JwtAuthenticationGatewayFilterFactory.Config.verified()), exchange);
+
+        assertThat(forwarded).isNull();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void verifiedRoute_WithValidToken_ShouldForwardRolesWithoutSignedIdentity() {
+        Jwt jwt = Jwt.withTokenValue(FORGED_ADMIN_TOKEN)
+                .header("alg", "RS256")
+                .claim("sub", "user-1")
+                .claim("realm_access", Map.of("roles", List.of("admin")))
+                .expiresAt(Instant.parse("2100-01-01T00:00:00Z"))
+                .build();
+        when(jwtDecoder.decode(FORGED_ADMIN_TOKEN)).thenReturn(Mono.just(jwt));
+
+        ServerWebExchange forwarded = forward(factory.apply(JwtAuthenticationGatewayFilterFactory.Config.verified()), request());
+
+        assertThat(forwarded.getRequest().getHeaders().getFirst("X-User-Id")).isEqualTo("user-1");
+        assertThat(forwarded.getRequest().getHeaders().getFirst("X-User-Roles")).isEqualTo("admin");
+        assertThat(forwarded.getRequest().getHeaders().containsKey(InternalIdentitySigner.HEADER)).isFalse();
+    }
+
+    @Test
+    void defaultRoute_WithIdentitySigningDisabled_ShouldOnlyDecodeThePayload() {
+        ServerWebExchange forwarded = forward(factory.apply(new JwtAuthenticationGatewayFilterFactory.Config()), request());
+
+        assertThat(forwarded.getRequest().getHeaders().getFirst("X-User-Id")).isEqualTo("user-1");
+        verifyNoInteractions(jwtDecoder);
+    }
+}
@@ -0,0 +1,65 @@
+package com.iwaproject.gateway.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternalIdentitySignerTest {
+
+    private static final String SECRET = "test-gateway-secret";
+
+    /**
+     * Identité signée attendue pour {@link #claims()} : la même valeur est acceptée par
+     * GatewayIdentityAuthenticationFilterTest côté user-microservice, ce qui vérifie le format de bout en bout.
+     */
+    private static final String EXPECTED_IDENTITY = "eyJzdWIiOiJ1c2VyLTEiLCJwcmVmZXJyZWRfdXNlcm5hbWUiOiJhbGljZSIsInJlYWxtX2FjY2VzcyI6eyJyb2xlcyI6WyJ1c2VyIl19LCJleHAiOjQxMDI0NDQ4MDB9"
+            + ".J36F4HwOuZbL-naED7yVecgm6bxhiqoHbQzAxWdxqiQ";
+
+    private final InternalIdentitySigner signer = new InternalIdentitySigner(SECRET);
+
+    private static Map<String, Object> claims() {
+        return Map.of(
+                "sub", "user-1",
+                "preferred_username", "alice",
+                "realm_access", Map.of("roles", List.of("user")),
+                "exp", 4102444800L,
+                "iss", "http://keycloak/realms/iwa");
+    }
+
+    @Test
+    void sign_ShouldProduceTheIdentityExpectedByMicroservices() {
+        assertThat(signer.sign(claims())).isEqualTo(EXPECTED_IDENTITY);
+    }
+
+    @Test
+    void sign_ShouldForwardOnlyKnownClaimsUnderAValidHmac() throws Exception {
+        String identity = signer.sign(claims());
+        String payload = identity.substring(0, identity.indexOf('.'));
+        String signature = identity.substring(identity.indexOf('.') + 1);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        assertThat(Base64.getUrlDecoder().decode(signature))
+                .isEqualTo(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+
+        Map<String, Object> forwarded = new ObjectMapper().readValue(Base64.getUrlDecoder().decode(payload), new TypeReference<>() {
+        });
+        assertThat(forwarded).containsOnlyKeys("sub", "preferred_username", "realm_access", "exp");
+        assertThat(forwarded.get("sub")).isEqualTo("user-1");
+    }
+
+    @Test
+    void emptySecret_ShouldDisableSigning() {
+        assertThat(new InternalIdentitySigner("").isEnabled()).isFalse();
+        assertThat(signer.isEnabled()).isTrue();
+    }
+}
@@ -3,18 +3,30 @@ package com.iwaproject.logging.config;
 import com.iwaproject.logging.model.LogMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.util.backoff.FixedBackOff;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -33,6 +45,24 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${logging-ingestion.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${logging-ingestion.max-wait-ms:500}")
+    private int maxWaitMs;
+
+    @Value("${logging-ingestion.min-fetch-bytes:65536}")
+    private int minFetchBytes;
+
+    @Value("${logging-ingestion.retry-initial-interval-ms:2000}")
+    private long retryInitialIntervalMs;
+
+    @Value("${logging-ingestion.retry-max-interval-ms:60000}")
+    private long retryMaxIntervalMs;
+
+    @Value("${logging-ingestion.dead-letter-suffix:.DLT}")
+    private String deadLetterSuffix;
+
     /**
      * Consumer factory for LogMessage
      */
@@ -43,8 +73,13 @@ public class KafkaConsumerConfig {
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
-        config.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
+        // Offsets are committed by the container once the batch is written
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        // Batches of up to batch-size records; the broker waits up to max-wait-ms for min-fetch-bytes
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, minFetchBytes);
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, maxWaitMs);
         
         // Use ErrorHandlingDeserializer to handle deserialization errors gracefully
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
@@ -61,28 +96,53 @@ public class KafkaConsumerConfig {
     }
 
     /**
-     * Kafka listener container factory
+     * Kafka template for the dead-letter topics: logs are re-sent as JSON, undeserializable records as their original bytes
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, LogMessage> kafkaListenerContainerFactory() {
+    public KafkaTemplate<String, Object> logDeadLetterTemplate() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        Map<Class<?>, Serializer<?>> serializers = new HashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(LogMessage.class, new JsonSerializer<>());
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config,
+                new StringSerializer(), new DelegatingByTypeSerializer(serializers)));
+    }
+
+    /**
+     * Batch listener container factory: offsets are committed after each batch is processed
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, LogMessage> kafkaListenerContainerFactory(
+            KafkaTemplate<String, Object> logDeadLetterTemplate) {
         ConcurrentKafkaListenerContainerFactory<String, LogMessage> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3); // Number of consumer threads
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
         
-        // Configure error handler to skip deserialization errors and continue processing
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(
+        // Records that fail to deserialize are skipped by the listener. A batch that cannot be
+        // written (database unavailable) is retried with an exponential backoff until it goes
+        // through, its offsets being committed only then; only data errors (deserialization,
+        // constraint violation) are published to <topic>.DLT
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(logDeadLetterTemplate,
             (record, exception) -> {
-                log.error("Error processing Kafka message at offset {}: {}. Skipping message.", 
-                    record.offset(), exception.getMessage());
-            },
-            new FixedBackOff(0L, 0L) // Don't retry, just skip
-        );
+                log.error("Dead-lettering Kafka message from {} at offset {}: {}",
+                    record.topic(), record.offset(), exception.getMessage());
+                return new TopicPartition(record.topic() + deadLetterSuffix, -1);
+            });
+        // No max elapsed time: transient failures are retried until they go through
+        ExponentialBackOff backOff = new ExponentialBackOff(retryInitialIntervalMs, ExponentialBackOff.DEFAULT_MULTIPLIER);
+        backOff.setMaxInterval(retryMaxIntervalMs);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
         
-        // Add deserialization exceptions to the list of exceptions to skip
+        // Data errors are not retryable: dead-lettered right away
         errorHandler.addNotRetryableExceptions(
             org.springframework.kafka.support.serializer.DeserializationException.class,
-            org.apache.kafka.common.errors.SerializationException.class
+            org.apache.kafka.common.errors.SerializationException.class,
+            DataIntegrityViolationException.class
         );
         
         factory.setCommonErrorHandler(errorHandler);
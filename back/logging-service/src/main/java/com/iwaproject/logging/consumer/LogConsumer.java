@@ -2,13 +2,16 @@ package com.iwaproject.logging.consumer;
 
 import com.iwaproject.logging.model.LogMessage;
 import com.iwaproject.logging.service.LogService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Kafka consumer for log messages
  */
@@ -17,13 +20,18 @@ import org.springframework.stereotype.Component;
 public class LogConsumer {
 
     private final LogService logService;
+    private final DistributionSummary batchSizes;
 
-    public LogConsumer(LogService logService) {
+    public LogConsumer(LogService logService, MeterRegistry meterRegistry) {
         this.logService = logService;
+        this.batchSizes = DistributionSummary.builder("logs.ingest.batch.size")
+            .description("Log messages written per batch")
+            .register(meterRegistry);
     }
 
     /**
-     * Consume log messages from Kafka topics
+     * Consume batches of log messages from Kafka topics and store each batch with one insert.
+     * Offsets are committed once this method returns; if it throws, the batch is redelivered.
      */
     @KafkaListener(
         topics = {
@@ -36,26 +44,28 @@ public class LogConsumer {
         groupId = "${spring.kafka.consumer.group-id}",
         containerFactory = "kafkaListenerContainerFactory"
     )
-    public void consumeLogMessage(
-        @Payload LogMessage logMessage,
-        @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-        @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-        @Header(KafkaHeaders.OFFSET) long offset
-    ) {
-        try {
-            log.debug("Received log message from topic: {}, partition: {}, offset: {}", 
-                topic, partition, offset);
-            
-            // Store the log message
-            logService.saveLog(logMessage);
-            
+    public void consumeLogMessages(List<ConsumerRecord<String, LogMessage>> records) {
+        List<LogMessage> logMessages = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, LogMessage> record : records) {
+            LogMessage logMessage = record.value();
+            if (logMessage == null) {
+                // Deserialization failure (ErrorHandlingDeserializer): skip the message
+                log.error("Skipping undeserializable log message from topic {}, partition {}, offset {}",
+                    record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            logMessages.add(logMessage);
+
             // Log error level messages to console for immediate visibility
             if ("ERROR".equals(logMessage.getLogLevel()) || "FATAL".equals(logMessage.getLogLevel())) {
                 log.error("Error log from {}: {}", logMessage.getServiceName(), logMessage.getMessage());
             }
-            
-        } catch (Exception e) {
-            log.error("Error processing log message from topic {}: {}", topic, e.getMessage(), e);
+        }
+
+        if (!logMessages.isEmpty()) {
+            int saved = logService.saveLogs(logMessages);
+            batchSizes.record(saved);
+            log.debug("Stored {} log messages from a batch of {} records", saved, records.size());
         }
     }
 }
@@ -1,6 +1,8 @@
 package com.iwaproject.logging.controller;
 
 import com.iwaproject.logging.model.LogEntry;
+import com.iwaproject.logging.model.LogStats;
+import com.iwaproject.logging.service.LogRollupService;
 import com.iwaproject.logging.service.LogService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -33,9 +35,11 @@ import java.util.Map;
 public class LogController {
 
     private final LogService logService;
+    private final LogRollupService logRollupService;
 
-    public LogController(LogService logService) {
+    public LogController(LogService logService, LogRollupService logRollupService) {
         this.logService = logService;
+        this.logRollupService = logRollupService;
     }
 
     /**
@@ -164,7 +168,8 @@ public class LogController {
      */
     @Operation(
         summary = "Get log statistics for a service",
-        description = "Get count of logs grouped by level (ERROR, WARN, INFO, DEBUG) for a specific service"
+        description = "Get count of logs grouped by level (ERROR, WARN, INFO, DEBUG) for a specific service, " +
+            "read from the per-minute rollups over the log retention period (log-partitions.retention-days)"
     )
     @ApiResponse(responseCode = "200", description = "Successfully retrieved statistics")
     @GetMapping("/stats/{serviceName}")
@@ -172,16 +177,47 @@ public class LogController {
         @Parameter(description = "Name of the service", example = "user-microservice")
         @PathVariable String serviceName
     ) {
+        Map<String, Long> counts = logRollupService.countByLevel(serviceName);
         Map<String, Long> stats = new HashMap<>();
         
-        stats.put("ERROR", logService.countLogsByServiceAndLevel(serviceName, "ERROR"));
-        stats.put("WARN", logService.countLogsByServiceAndLevel(serviceName, "WARN"));
-        stats.put("INFO", logService.countLogsByServiceAndLevel(serviceName, "INFO"));
-        stats.put("DEBUG", logService.countLogsByServiceAndLevel(serviceName, "DEBUG"));
+        stats.put("ERROR", counts.getOrDefault("ERROR", 0L));
+        stats.put("WARN", counts.getOrDefault("WARN", 0L));
+        stats.put("INFO", counts.getOrDefault("INFO", 0L));
+        stats.put("DEBUG", counts.getOrDefault("DEBUG", 0L));
         
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Get statistics over a time window
+     */
+    @Operation(
+        summary = "Get log statistics over a time window",
+        description = "Count logs by service, level and HTTP status class between two timestamps (minute precision), " +
+            "optionally by intervals of a given number of minutes. Read from the per-minute rollups only"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved statistics"),
+        @ApiResponse(responseCode = "400", description = "Invalid time window or interval", content = @Content)
+    })
+    @GetMapping("/stats")
+    public ResponseEntity<List<LogStats>> getStats(
+        @Parameter(description = "Start timestamp (ISO 8601, inclusive)", example = "2025-11-28T10:00:00")
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+        @Parameter(description = "End timestamp (ISO 8601, exclusive)", example = "2025-11-28T23:59:59")
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+        @Parameter(description = "Interval length in minutes (whole window when omitted)", example = "60")
+        @RequestParam(required = false) Integer intervalMinutes,
+        @Parameter(description = "Name of the service (all services when omitted)", example = "user-microservice")
+        @RequestParam(required = false) String serviceName
+    ) {
+        try {
+            return ResponseEntity.ok(logRollupService.getStats(start, end, intervalMinutes, serviceName));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Health check endpoint
      */
@@ -11,12 +11,14 @@ import java.time.LocalDateTime;
 
 /**
  * Entity representing a log entry
+ * The table is range-partitioned by day on timestamp (db/migration); its primary key is (id, timestamp).
  */
 @Entity
 @Table(name = "log_entries", indexes = {
-    @Index(name = "idx_service_name", columnList = "service_name"),
-    @Index(name = "idx_log_level", columnList = "log_level"),
-    @Index(name = "idx_timestamp", columnList = "timestamp")
+    @Index(name = "idx_log_entries_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_log_entries_service_name_timestamp", columnList = "service_name, timestamp"),
+    @Index(name = "idx_log_entries_log_level_timestamp", columnList = "log_level, timestamp"),
+    @Index(name = "idx_log_entries_correlation_id", columnList = "correlation_id")
 })
 @Data
 @Builder
@@ -0,0 +1,46 @@
+package com.iwaproject.logging.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Log count for one time interval, service, level and HTTP status class
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Number of logs for a time interval, service, log level and HTTP status class")
+public class LogStats {
+
+    @Schema(description = "Start of the interval", example = "2025-11-28T13:00:00")
+    private LocalDateTime intervalStart;
+
+    @Schema(description = "Name of the service", example = "user-microservice")
+    private String serviceName;
+
+    @Schema(description = "Log level", example = "ERROR")
+    private String logLevel;
+
+    @Schema(description = "HTTP status class of the logged request (1xx to 5xx), or none", example = "5xx")
+    private String statusClass;
+
+    @Schema(description = "Number of logs", example = "42")
+    private long count;
+
+    /**
+     * @return the status class of an HTTP status (1 to 5), 0 when there is none
+     */
+    public static int statusClass(Integer responseStatus) {
+        return responseStatus != null && responseStatus >= 100 && responseStatus <= 599 ? responseStatus / 100 : 0;
+    }
+
+    public static String statusClassLabel(int statusClass) {
+        return statusClass == 0 ? "none" : statusClass + "xx";
+    }
+}
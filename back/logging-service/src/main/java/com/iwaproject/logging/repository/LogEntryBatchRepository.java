@@ -0,0 +1,96 @@
+package com.iwaproject.logging.repository;
+
+import com.iwaproject.logging.model.LogEntry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Multi-row inserts of log entries: one statement per batch with one array parameter per column
+ * ({@code unnest(?)}). Ids come from the column's sequence within the statement, whereas JPA with
+ * IDENTITY generation needs one INSERT round trip per entry.
+ */
+@Repository
+public class LogEntryBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO log_entries (service_name, log_level, message, timestamp, thread_name, logger_name,
+                exception_message, stack_trace, correlation_id, user_id, request_uri, request_method,
+                response_status, created_at)
+            SELECT e.service_name, e.log_level, e.message, e.timestamp, e.thread_name, e.logger_name,
+                e.exception_message, e.stack_trace, e.correlation_id, e.user_id, e.request_uri, e.request_method,
+                e.response_status, now()
+            FROM unnest(?::varchar[], ?::varchar[], ?::text[], ?::timestamp[], ?::varchar[], ?::varchar[],
+                ?::text[], ?::text[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::int[])
+                AS e(service_name, log_level, message, timestamp, thread_name, logger_name,
+                    exception_message, stack_trace, correlation_id, user_id, request_uri, request_method,
+                    response_status)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LogEntryBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the given entries in one statement
+     *
+     * @return the number of inserted entries
+     */
+    public int insertAll(List<LogEntry> entries) {
+        return jdbcTemplate.update(INSERT_SQL, ps -> {
+            var connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("varchar", column(entries, LogEntry::getServiceName)));
+            ps.setArray(2, connection.createArrayOf("varchar", column(entries, LogEntry::getLogLevel)));
+            ps.setArray(3, connection.createArrayOf("text", column(entries, LogEntry::getMessage)));
+            ps.setArray(4, connection.createArrayOf("timestamp", column(entries, e -> Timestamp.valueOf(e.getTimestamp()))));
+            ps.setArray(5, connection.createArrayOf("varchar", column(entries, LogEntry::getThreadName)));
+            ps.setArray(6, connection.createArrayOf("varchar", column(entries, LogEntry::getLoggerName)));
+            ps.setArray(7, connection.createArrayOf("text", column(entries, LogEntry::getExceptionMessage)));
+            ps.setArray(8, connection.createArrayOf("text", column(entries, LogEntry::getStackTrace)));
+            ps.setArray(9, connection.createArrayOf("varchar", column(entries, LogEntry::getCorrelationId)));
+            ps.setArray(10, connection.createArrayOf("varchar", column(entries, LogEntry::getUserId)));
+            ps.setArray(11, connection.createArrayOf("varchar", column(entries, LogEntry::getRequestUri)));
+            ps.setArray(12, connection.createArrayOf("varchar", column(entries, LogEntry::getRequestMethod)));
+            ps.setArray(13, connection.createArrayOf("int4", column(entries, LogEntry::getResponseStatus)));
+        });
+    }
+
+    /**
+     * Inserts the given entries one by one, each under a savepoint of the current transaction:
+     * an entry rejected because of its data is rolled back to its savepoint and passed to
+     * {@code onRejected}; any other error is thrown. Must be called within a transaction.
+     *
+     * @return the inserted entries
+     */
+    public List<LogEntry> insertEach(List<LogEntry> entries, BiConsumer<LogEntry, DataIntegrityViolationException> onRejected) {
+        return jdbcTemplate.execute((ConnectionCallback<List<LogEntry>>) connection -> {
+            List<LogEntry> inserted = new ArrayList<>(entries.size());
+            for (LogEntry entry : entries) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    insertAll(List.of(entry));
+                    connection.releaseSavepoint(savepoint);
+                    inserted.add(entry);
+                } catch (DataIntegrityViolationException e) {
+                    connection.rollback(savepoint);
+                    onRejected.accept(entry, e);
+                }
+            }
+            return inserted;
+        });
+    }
+
+    private static Object[] column(List<LogEntry> entries, Function<LogEntry, ?> getter) {
+        return entries.stream().map(getter).toArray();
+    }
+}
@@ -63,9 +63,4 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long> {
      */
     @Query("SELECT COUNT(l) FROM LogEntry l WHERE l.serviceName = :serviceName AND l.logLevel = :logLevel")
     long countByServiceNameAndLogLevel(@Param("serviceName") String serviceName, @Param("logLevel") String logLevel);
-
-    /**
-     * Delete old logs (older than specified date)
-     */
-    void deleteByTimestampBefore(LocalDateTime cutoffDate);
 }
@@ -0,0 +1,93 @@
+package com.iwaproject.logging.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * DDL on the daily partitions of log_entries (log_entries_pYYYYMMDD, range on "timestamp")
+ */
+@Repository
+public class LogPartitionRepository {
+
+    private static final String PARTITION_PREFIX = "log_entries_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String FIND_PARTITIONS_SQL = """
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'log_entries'::regclass
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LogPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * @return the days that have a partition
+     */
+    public List<LocalDate> findPartitionDays() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class).stream()
+                .filter(name -> name.startsWith(PARTITION_PREFIX))
+                .map(name -> LocalDate.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX))
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Creates the partition of the given day. Rows of that day already in the default partition
+     * are moved into it first, otherwise the attach would fail; the default partition only holds
+     * late or out-of-range logs, so the scan stays short.
+     * Writes to log_entries are blocked until the partition is attached, so that no row of that
+     * day reaches the default partition after the move; this also serializes instances creating
+     * the same partition, the later one finding it already there.
+     *
+     * @return false if the partition already existed
+     */
+    @Transactional
+    public boolean createPartition(LocalDate day) {
+        String partition = partitionName(day);
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+
+        jdbcTemplate.execute("LOCK TABLE log_entries IN SHARE ROW EXCLUSIVE MODE");
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition))) {
+            return false;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE log_entries INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("""
+                WITH moved AS (DELETE FROM log_entries_default WHERE "timestamp" >= ? AND "timestamp" < ? RETURNING *)
+                INSERT INTO %s SELECT * FROM moved
+                """.formatted(partition), from, to);
+        jdbcTemplate.execute("ALTER TABLE log_entries ATTACH PARTITION " + partition
+                + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+        return true;
+    }
+
+    /**
+     * Drops the partition of the given day with all its rows (no row-by-row delete, no bloat)
+     */
+    public void dropPartition(LocalDate day) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    /**
+     * Deletes the rows of the default partition older than the given date
+     *
+     * @return the number of deleted rows
+     */
+    public int deleteFromDefaultPartitionBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM log_entries_default WHERE \"timestamp\" < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,135 @@
+package com.iwaproject.logging.repository;
+
+import com.iwaproject.logging.model.LogStats;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per-minute log counts (log_rollups), written as additive upserts, each flush at most once
+ */
+@Repository
+public class LogRollupRepository {
+
+    /**
+     * One row of log_rollups: minute bucket, service, level and HTTP status class (0 = none)
+     */
+    public record RollupKey(LocalDateTime bucket, String serviceName, String logLevel, int statusClass) {
+    }
+
+    // Counts are added to the stored ones: several instances can flush the same bucket
+    private static final String UPSERT_SQL = """
+            INSERT INTO log_rollups (bucket, service_name, log_level, status_class, log_count)
+            SELECT * FROM unnest(?::timestamp[], ?::varchar[], ?::varchar[], ?::smallint[], ?::bigint[])
+            ON CONFLICT (bucket, service_name, log_level, status_class)
+            DO UPDATE SET log_count = log_rollups.log_count + EXCLUDED.log_count
+            """;
+
+    // The flush is recorded once per (instance, sequence number): a retry finds it already there
+    private static final String RECORD_FLUSH_SQL = """
+            INSERT INTO log_rollup_flushes (instance_id, flush_seq) VALUES (?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    // Buckets regrouped into intervals of the requested length, aligned on the window start
+    private static final String FIND_STATS_SQL = """
+            SELECT date_bin(make_interval(mins => ?::int), bucket, ?::timestamp) AS interval_start,
+                service_name, log_level, status_class, sum(log_count) AS log_count
+            FROM log_rollups
+            WHERE bucket >= ? AND bucket < ? AND (?::varchar IS NULL OR service_name = ?::varchar)
+            GROUP BY 1, 2, 3, 4
+            ORDER BY 1, 2, 3, 4
+            """;
+
+    private static final String COUNT_BY_LEVEL_SQL = """
+            SELECT log_level, sum(log_count) FROM log_rollups WHERE service_name = ? AND bucket >= ? GROUP BY log_level
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LogRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the given counts to the stored rollups, in one statement, unless the flush identified
+     * by {@code instanceId} and {@code flushSeq} was already applied
+     *
+     * @return false if the flush was already applied
+     */
+    @Transactional
+    public boolean addAll(String instanceId, long flushSeq, Map<RollupKey, Long> counts) {
+        if (jdbcTemplate.update(RECORD_FLUSH_SQL, instanceId, flushSeq) == 0) {
+            return false;
+        }
+        List<Map.Entry<RollupKey, Long>> rows = List.copyOf(counts.entrySet());
+        jdbcTemplate.update(UPSERT_SQL, ps -> {
+            var connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("timestamp", column(rows, e -> Timestamp.valueOf(e.getKey().bucket()))));
+            ps.setArray(2, connection.createArrayOf("varchar", column(rows, e -> e.getKey().serviceName())));
+            ps.setArray(3, connection.createArrayOf("varchar", column(rows, e -> e.getKey().logLevel())));
+            ps.setArray(4, connection.createArrayOf("int2", column(rows, e -> (short) e.getKey().statusClass())));
+            ps.setArray(5, connection.createArrayOf("int8", column(rows, Map.Entry::getValue)));
+        });
+        return true;
+    }
+
+    /**
+     * Log counts between {@code start} (inclusive) and {@code end} (exclusive), by intervals of
+     * {@code intervalMinutes}, service, level and status class
+     *
+     * @param serviceName the service to restrict to, or null for all services
+     */
+    public List<LogStats> findStats(LocalDateTime start, LocalDateTime end, int intervalMinutes, String serviceName) {
+        Timestamp from = Timestamp.valueOf(start);
+        return jdbcTemplate.query(FIND_STATS_SQL,
+                (rs, rowNum) -> LogStats.builder()
+                        .intervalStart(rs.getTimestamp("interval_start").toLocalDateTime())
+                        .serviceName(rs.getString("service_name"))
+                        .logLevel(rs.getString("log_level"))
+                        .statusClass(LogStats.statusClassLabel(rs.getInt("status_class")))
+                        .count(rs.getLong("log_count"))
+                        .build(),
+                intervalMinutes, from, from, Timestamp.valueOf(end), serviceName, serviceName);
+    }
+
+    /**
+     * @return the log counts of a service by level, from the given date
+     */
+    public Map<String, Long> countByLevel(String serviceName, LocalDateTime since) {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query(COUNT_BY_LEVEL_SQL, (RowCallbackHandler) rs -> counts.put(rs.getString(1), rs.getLong(2)),
+                serviceName, Timestamp.valueOf(since));
+        return counts;
+    }
+
+    /**
+     * Deletes the rollups of buckets before the given date
+     *
+     * @return the number of deleted rows
+     */
+    public int deleteBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM log_rollups WHERE bucket < ?", Timestamp.valueOf(cutoff));
+    }
+
+    /**
+     * Forgets the flushes applied before the given date (only needed to detect retries)
+     *
+     * @return the number of deleted rows
+     */
+    public int deleteFlushesBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM log_rollup_flushes WHERE flushed_at < ?", Timestamp.valueOf(cutoff));
+    }
+
+    private static Object[] column(List<Map.Entry<RollupKey, Long>> rows, Function<Map.Entry<RollupKey, Long>, ?> getter) {
+        return rows.stream().map(getter).toArray();
+    }
+}
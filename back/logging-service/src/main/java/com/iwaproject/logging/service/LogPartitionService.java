@@ -0,0 +1,102 @@
+package com.iwaproject.logging.service;
+
+import com.iwaproject.logging.repository.LogPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains the daily partitions of log_entries: partitions are created days-ahead days in
+ * advance, and retention drops whole partitions once all their logs are older than
+ * retention-days, instead of deleting logs row by row.
+ */
+@Service
+@Slf4j
+public class LogPartitionService {
+
+    private final LogPartitionRepository logPartitionRepository;
+    private final int daysAhead;
+    private final int retentionDays;
+
+    public LogPartitionService(LogPartitionRepository logPartitionRepository,
+                               @Value("${log-partitions.days-ahead:7}") int daysAhead,
+                               @Value("${log-partitions.retention-days:30}") int retentionDays) {
+        this.logPartitionRepository = logPartitionRepository;
+        this.daysAhead = daysAhead;
+        this.retentionDays = retentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    /**
+     * Create the upcoming partitions and drop the expired ones (scheduled task)
+     * Runs every day at 2 AM
+     */
+    @Scheduled(cron = "${log-partitions.cron:0 0 2 * * *}")
+    public void maintainPartitions() {
+        List<LocalDate> partitionDays;
+        try {
+            partitionDays = logPartitionRepository.findPartitionDays();
+        } catch (DataAccessException e) {
+            log.error("Error listing log partitions: {}", e.getMessage(), e);
+            return;
+        }
+        createPartitions(partitionDays);
+        dropExpiredPartitions(partitionDays);
+    }
+
+    private void createPartitions(List<LocalDate> partitionDays) {
+        Set<LocalDate> existing = new HashSet<>(partitionDays);
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today; !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            if (existing.contains(day)) {
+                continue;
+            }
+            try {
+                if (logPartitionRepository.createPartition(day)) {
+                    log.info("Created log partition for {}", day);
+                }
+            } catch (DataAccessException e) {
+                log.error("Error creating log partition for {}: {}", day, e.getMessage());
+            }
+        }
+    }
+
+    private void dropExpiredPartitions(List<LocalDate> partitionDays) {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        for (LocalDate day : partitionDays) {
+            // Only partitions whose whole day is past the cutoff
+            if (day.plusDays(1).atStartOfDay().isAfter(cutoff)) {
+                continue;
+            }
+            try {
+                logPartitionRepository.dropPartition(day);
+                log.info("Dropped log partition for {}", day);
+            } catch (DataAccessException e) {
+                log.error("Error dropping log partition for {}: {}", day, e.getMessage());
+            }
+        }
+
+        try {
+            int deleted = logPartitionRepository.deleteFromDefaultPartitionBefore(cutoff);
+            if (deleted > 0) {
+                log.info("Deleted {} logs older than {} from the default partition", deleted, cutoff);
+            }
+        } catch (DataAccessException e) {
+            log.error("Error cleaning up the default log partition: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.iwaproject.logging.service;
+
+import com.iwaproject.logging.model.LogEntry;
+import com.iwaproject.logging.model.LogStats;
+import com.iwaproject.logging.repository.LogRollupRepository;
+import com.iwaproject.logging.repository.LogRollupRepository.RollupKey;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-minute log counts by service, level and HTTP status class. Stored logs are counted in
+ * memory and the counts are added to log_rollups periodically, so that statistics read a few
+ * rollup rows instead of counting raw logs. Counts not yet flushed are lost if the service
+ * stops abruptly (at most flush-interval-ms of logs).
+ * Each flush is keyed by this instance's id and a sequence number, and a failed flush is retried
+ * with the same key and counts: a flush that was committed although it reported an error is not
+ * added twice.
+ */
+@Service
+@Slf4j
+public class LogRollupService {
+
+    private final LogRollupRepository logRollupRepository;
+    private final int retentionDays;
+    private final int logRetentionDays;
+    private final int maxIntervals;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<RollupKey, Long> pending = new ConcurrentHashMap<>();
+
+    // Flush not yet known to be applied, retried as is; guarded by this
+    private long flushSeq;
+    private Map<RollupKey, Long> unflushed;
+
+    public LogRollupService(LogRollupRepository logRollupRepository,
+                            @Value("${log-rollups.retention-days:400}") int retentionDays,
+                            @Value("${log-partitions.retention-days:30}") int logRetentionDays,
+                            @Value("${log-rollups.max-intervals:10000}") int maxIntervals) {
+        this.logRollupRepository = logRollupRepository;
+        this.retentionDays = retentionDays;
+        this.logRetentionDays = logRetentionDays;
+        this.maxIntervals = maxIntervals;
+    }
+
+    /**
+     * Count stored log entries
+     */
+    public void record(Collection<LogEntry> entries) {
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (LogEntry entry : entries) {
+            RollupKey key = new RollupKey(entry.getTimestamp().truncatedTo(ChronoUnit.MINUTES),
+                entry.getServiceName(), entry.getLogLevel(), LogStats.statusClass(entry.getResponseStatus()));
+            counts.merge(key, 1L, Long::sum);
+        }
+        counts.forEach((key, count) -> pending.merge(key, count, Long::sum));
+    }
+
+    /**
+     * Add the pending counts to log_rollups (scheduled task). A failed flush is retried first, with
+     * the same sequence number, before the counts recorded since are flushed.
+     */
+    @Scheduled(fixedDelayString = "${log-rollups.flush-interval-ms:10000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (unflushed != null && !apply()) {
+            return;
+        }
+
+        // remove() is atomic per key: counts recorded meanwhile start a new entry
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (RollupKey key : pending.keySet()) {
+            Long count = pending.remove(key);
+            if (count != null) {
+                counts.put(key, count);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        flushSeq++;
+        unflushed = counts;
+        apply();
+    }
+
+    /**
+     * @return true once the unflushed counts are applied
+     */
+    private boolean apply() {
+        try {
+            if (!logRollupRepository.addAll(instanceId, flushSeq, unflushed)) {
+                log.info("Log rollup flush {} was already applied", flushSeq);
+            }
+            unflushed = null;
+            return true;
+        } catch (DataAccessException e) {
+            log.error("Error flushing {} log rollups, retrying on next flush: {}", unflushed.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Get log counts between start (inclusive, truncated to the minute) and end (exclusive),
+     * by intervals of intervalMinutes (the whole window when null)
+     *
+     * @throws IllegalArgumentException if the window is empty or has too many intervals
+     */
+    public List<LogStats> getStats(LocalDateTime start, LocalDateTime end, Integer intervalMinutes, String serviceName) {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.MINUTES);
+        if (!end.isAfter(from)) {
+            throw new IllegalArgumentException("end must be after start");
+        }
+        long windowMinutes = Duration.between(from, end).toMinutes();
+        int interval;
+        if (intervalMinutes == null) {
+            interval = (int) Math.min(Integer.MAX_VALUE, Math.max(windowMinutes, 1));
+        } else if (intervalMinutes < 1) {
+            throw new IllegalArgumentException("intervalMinutes must be positive");
+        } else if (windowMinutes / intervalMinutes > maxIntervals) {
+            throw new IllegalArgumentException("Too many intervals, at most " + maxIntervals);
+        } else {
+            interval = intervalMinutes;
+        }
+        return logRollupRepository.findStats(from, end, interval, serviceName);
+    }
+
+    /**
+     * Get the log counts of a service by level, over the raw log retention period
+     * (log-partitions.retention-days), like the former counts over log_entries
+     */
+    public Map<String, Long> countByLevel(String serviceName) {
+        return logRollupRepository.countByLevel(serviceName,
+            LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusDays(logRetentionDays));
+    }
+
+    /**
+     * Delete expired rollups (scheduled task)
+     * Runs every day at 2:30 AM
+     */
+    @Scheduled(cron = "${log-rollups.cleanup-cron:0 30 2 * * *}")
+    public void cleanupOldRollups() {
+        try {
+            int deleted = logRollupRepository.deleteBefore(LocalDateTime.now().minusDays(retentionDays));
+            log.info("Deleted {} expired log rollups", deleted);
+            logRollupRepository.deleteFlushesBefore(LocalDateTime.now().minusDays(1));
+        } catch (DataAccessException e) {
+            log.error("Error cleaning up old log rollups: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -2,13 +2,15 @@ package com.iwaproject.logging.service;
 
 import com.iwaproject.logging.model.LogEntry;
 import com.iwaproject.logging.model.LogMessage;
+import com.iwaproject.logging.repository.LogEntryBatchRepository;
 import com.iwaproject.logging.repository.LogEntryRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,9 +23,16 @@ import java.util.List;
 public class LogService {
 
     private final LogEntryRepository logEntryRepository;
+    private final LogEntryBatchRepository logEntryBatchRepository;
+    private final LogRollupService logRollupService;
+    private final TransactionTemplate transactionTemplate;
 
-    public LogService(LogEntryRepository logEntryRepository) {
+    public LogService(LogEntryRepository logEntryRepository, LogEntryBatchRepository logEntryBatchRepository,
+                      LogRollupService logRollupService, TransactionTemplate transactionTemplate) {
         this.logEntryRepository = logEntryRepository;
+        this.logEntryBatchRepository = logEntryBatchRepository;
+        this.logRollupService = logRollupService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -31,7 +40,38 @@ public class LogService {
      */
     @Transactional
     public LogEntry saveLog(LogMessage logMessage) {
-        LogEntry logEntry = LogEntry.builder()
+        LogEntry logEntry = logEntryRepository.save(toLogEntry(logMessage));
+        logRollupService.record(List.of(logEntry));
+        return logEntry;
+    }
+
+    /**
+     * Save log messages with one multi-row insert.
+     * If the batch is rejected because of its data (e.g. a value too long for its column), the
+     * entries are inserted one by one and the invalid ones are skipped; other errors (database
+     * unavailable) are thrown so that the batch is retried. The one-by-one inserts share a single
+     * transaction, so an error partway through leaves nothing behind to be duplicated by the retry.
+     *
+     * @return the number of saved log messages
+     */
+    public int saveLogs(List<LogMessage> logMessages) {
+        List<LogEntry> entries = logMessages.stream().map(this::toLogEntry).toList();
+        try {
+            int saved = logEntryBatchRepository.insertAll(entries);
+            logRollupService.record(entries);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of {} logs rejected, saving them one by one: {}", entries.size(), e.getMessage());
+        }
+
+        List<LogEntry> saved = transactionTemplate.execute(status -> logEntryBatchRepository.insertEach(entries,
+            (entry, e) -> log.error("Skipping invalid log from {}: {}", entry.getServiceName(), e.getMessage())));
+        logRollupService.record(saved);
+        return saved.size();
+    }
+
+    private LogEntry toLogEntry(LogMessage logMessage) {
+        return LogEntry.builder()
             .serviceName(logMessage.getServiceName())
             .logLevel(logMessage.getLogLevel())
             .message(logMessage.getMessage())
@@ -46,13 +86,12 @@ public class LogService {
             .requestMethod(logMessage.getRequestMethod())
             .responseStatus(logMessage.getResponseStatus())
             .build();
-
-        return logEntryRepository.save(logEntry);
     }
 
     /**
      * Get logs by service name
      */
+    @Transactional(readOnly = true)
     public Page<LogEntry> getLogsByService(String serviceName, Pageable pageable) {
         return logEntryRepository.findByServiceName(serviceName, pageable);
     }
@@ -60,6 +99,7 @@ public class LogService {
     /**
      * Get logs by log level
      */
+    @Transactional(readOnly = true)
     public Page<LogEntry> getLogsByLevel(String logLevel, Pageable pageable) {
         return logEntryRepository.findByLogLevel(logLevel, pageable);
     }
@@ -67,6 +107,7 @@ public class LogService {
     /**
      * Get logs within a time range
      */
+    @Transactional(readOnly = true)
     public Page<LogEntry> getLogsByTimeRange(LocalDateTime start, LocalDateTime end, Pageable pageable) {
         return logEntryRepository.findByTimestampBetween(start, end, pageable);
     }
@@ -74,6 +115,7 @@ public class LogService {
     /**
      * Get logs by correlation ID
      */
+    @Transactional(readOnly = true)
     public List<LogEntry> getLogsByCorrelationId(String correlationId) {
         return logEntryRepository.findByCorrelationIdOrderByTimestampAsc(correlationId);
     }
@@ -81,6 +123,7 @@ public class LogService {
     /**
      * Get error logs
      */
+    @Transactional(readOnly = true)
     public Page<LogEntry> getErrorLogs(Pageable pageable) {
         return logEntryRepository.findErrorLogs(pageable);
     }
@@ -88,27 +131,8 @@ public class LogService {
     /**
      * Get log statistics for a service
      */
+    @Transactional(readOnly = true)
     public long countLogsByServiceAndLevel(String serviceName, String logLevel) {
         return logEntryRepository.countByServiceNameAndLogLevel(serviceName, logLevel);
     }
-
-    /**
-     * Clean up old logs (scheduled task)
-     * Runs every day at 2 AM
-     */
-    @Scheduled(cron = "0 0 2 * * *")
-    @Transactional
-    public void cleanupOldLogs() {
-        // Keep logs for 30 days
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-        
-        log.info("Starting cleanup of logs older than {}", cutoffDate);
-        
-        try {
-            logEntryRepository.deleteByTimestampBefore(cutoffDate);
-            log.info("Successfully cleaned up old logs");
-        } catch (Exception e) {
-            log.error("Error cleaning up old logs: {}", e.getMessage(), e);
-        }
-    }
 }
@@ -0,0 +1,76 @@
+-- log_entries range-partitioned by day on "timestamp" (partitions log_entries_pYYYYMMDD).
+-- Daily partitions are created ahead and dropped after the retention period by
+-- LogPartitionService; rows outside every daily partition land in log_entries_default.
+-- The primary key must include the partition key. Identity columns are not supported on
+-- partitioned tables before Postgres 17: ids come from a plain sequence.
+
+-- Table created by Hibernate (ddl-auto=update) before this migration: kept aside and copied below
+DO $$
+BEGIN
+    IF to_regclass('log_entries') IS NOT NULL
+       AND NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'log_entries'::regclass) THEN
+        ALTER TABLE log_entries RENAME TO log_entries_unpartitioned;
+        ALTER INDEX IF EXISTS idx_service_name RENAME TO idx_unpartitioned_service_name;
+        ALTER INDEX IF EXISTS idx_log_level RENAME TO idx_unpartitioned_log_level;
+        ALTER INDEX IF EXISTS idx_timestamp RENAME TO idx_unpartitioned_timestamp;
+    END IF;
+END $$;
+
+CREATE SEQUENCE IF NOT EXISTS log_entries_seq;
+
+CREATE TABLE IF NOT EXISTS log_entries (
+    id BIGINT NOT NULL DEFAULT nextval('log_entries_seq'),
+    service_name VARCHAR(100) NOT NULL,
+    log_level VARCHAR(20) NOT NULL,
+    message TEXT,
+    "timestamp" TIMESTAMP NOT NULL,
+    thread_name VARCHAR(100),
+    logger_name VARCHAR(255),
+    exception_message TEXT,
+    stack_trace TEXT,
+    correlation_id VARCHAR(100),
+    user_id VARCHAR(100),
+    request_uri VARCHAR(500),
+    request_method VARCHAR(10),
+    response_status INTEGER,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, "timestamp")
+) PARTITION BY RANGE ("timestamp");
+
+ALTER SEQUENCE log_entries_seq OWNED BY log_entries.id;
+
+CREATE TABLE IF NOT EXISTS log_entries_default PARTITION OF log_entries DEFAULT;
+
+-- Created on every partition
+CREATE INDEX IF NOT EXISTS idx_log_entries_timestamp ON log_entries ("timestamp");
+CREATE INDEX IF NOT EXISTS idx_log_entries_service_name_timestamp ON log_entries (service_name, "timestamp");
+CREATE INDEX IF NOT EXISTS idx_log_entries_log_level_timestamp ON log_entries (log_level, "timestamp");
+CREATE INDEX IF NOT EXISTS idx_log_entries_correlation_id ON log_entries (correlation_id);
+
+-- Every existing log moves to the partitioned table: the days within the retention period
+-- (${retention_days} days, log-partitions.retention-days) get their daily partition, older logs
+-- land in the default partition. Nothing is lost here; the first partition maintenance run then
+-- deletes the logs older than the retention period from the default partition, as the former
+-- row-by-row cleanup did.
+DO $$
+DECLARE
+    partition_day DATE;
+BEGIN
+    IF to_regclass('log_entries_unpartitioned') IS NOT NULL THEN
+        FOR partition_day IN SELECT generate_series(current_date - ${retention_days}, current_date, INTERVAL '1 day')::date LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF log_entries FOR VALUES FROM (%L) TO (%L)',
+                'log_entries_p' || to_char(partition_day, 'YYYYMMDD'), partition_day, partition_day + 1);
+        END LOOP;
+
+        INSERT INTO log_entries (id, service_name, log_level, message, "timestamp", thread_name, logger_name,
+            exception_message, stack_trace, correlation_id, user_id, request_uri, request_method,
+            response_status, created_at)
+        SELECT id, service_name, log_level, message, "timestamp", thread_name, logger_name,
+            exception_message, stack_trace, correlation_id, user_id, request_uri, request_method,
+            response_status, created_at
+        FROM log_entries_unpartitioned;
+
+        PERFORM setval('log_entries_seq', (SELECT COALESCE(max(id), 0) + 1 FROM log_entries_unpartitioned), false);
+        DROP TABLE log_entries_unpartitioned;
+    END IF;
+END $$;
@@ -0,0 +1,20 @@
+-- Per-minute log counts by service, level and HTTP status class (0 = no status, 1..5 = 1xx..5xx),
+-- maintained by LogRollupService from the ingestion path; statistics endpoints read only this table
+CREATE TABLE IF NOT EXISTS log_rollups (
+    bucket TIMESTAMP NOT NULL,
+    service_name VARCHAR(100) NOT NULL,
+    log_level VARCHAR(20) NOT NULL,
+    status_class SMALLINT NOT NULL,
+    log_count BIGINT NOT NULL,
+    PRIMARY KEY (bucket, service_name, log_level, status_class)
+);
+
+CREATE INDEX IF NOT EXISTS idx_log_rollups_service_name_bucket ON log_rollups (service_name, bucket);
+
+-- Backfill from the logs already stored
+INSERT INTO log_rollups (bucket, service_name, log_level, status_class, log_count)
+SELECT date_trunc('minute', "timestamp"), service_name, log_level,
+    CASE WHEN response_status BETWEEN 100 AND 599 THEN response_status / 100 ELSE 0 END, count(*)
+FROM log_entries
+GROUP BY 1, 2, 3, 4
+ON CONFLICT DO NOTHING;
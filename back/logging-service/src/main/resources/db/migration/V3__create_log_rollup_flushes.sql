@@ -0,0 +1,9 @@
+-- Flushes of log rollups already applied, keyed by instance and per-instance sequence number:
+-- written in the same transaction as the counts, so that a flush retried after an unknown
+-- outcome (e.g. connection lost during the commit) is not added twice
+CREATE TABLE IF NOT EXISTS log_rollup_flushes (
+    instance_id VARCHAR(36) NOT NULL,
+    flush_seq BIGINT NOT NULL,
+    flushed_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (instance_id, flush_seq)
+);
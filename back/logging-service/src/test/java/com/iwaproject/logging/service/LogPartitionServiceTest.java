@@ -0,0 +1,78 @@
+package com.iwaproject.logging.service;
+
+import com.iwaproject.logging.repository.LogPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogPartitionServiceTest {
+
+    @Mock
+    private LogPartitionRepository logPartitionRepository;
+
+    private LogPartitionService logPartitionService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        logPartitionService = new LogPartitionService(logPartitionRepository, 2, 30);
+    }
+
+    @Test
+    void testMaintainPartitionsCreatesMissingUpcomingDays() {
+        // Arrange
+        when(logPartitionRepository.findPartitionDays()).thenReturn(List.of(today));
+
+        // Act
+        logPartitionService.maintainPartitions();
+
+        // Assert
+        verify(logPartitionRepository, never()).createPartition(today);
+        verify(logPartitionRepository).createPartition(today.plusDays(1));
+        verify(logPartitionRepository).createPartition(today.plusDays(2));
+        verify(logPartitionRepository, never()).dropPartition(any());
+    }
+
+    @Test
+    void testMaintainPartitionsDropsOnlyFullyExpiredDays() {
+        // Arrange
+        LocalDate expired = today.minusDays(31);
+        LocalDate partiallyRetained = today.minusDays(30);
+        when(logPartitionRepository.findPartitionDays()).thenReturn(
+            List.of(expired, partiallyRetained, today, today.plusDays(1), today.plusDays(2)));
+
+        // Act
+        logPartitionService.maintainPartitions();
+
+        // Assert
+        verify(logPartitionRepository).dropPartition(expired);
+        verify(logPartitionRepository, never()).dropPartition(partiallyRetained);
+        verify(logPartitionRepository).deleteFromDefaultPartitionBefore(any());
+        verify(logPartitionRepository, never()).createPartition(any());
+    }
+
+    @Test
+    void testMaintainPartitionsContinuesAfterAFailedCreation() {
+        // Arrange
+        when(logPartitionRepository.findPartitionDays()).thenReturn(List.of());
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+            .when(logPartitionRepository).createPartition(today);
+
+        // Act
+        logPartitionService.maintainPartitions();
+
+        // Assert
+        verify(logPartitionRepository).createPartition(today.plusDays(2));
+    }
+}
@@ -0,0 +1,155 @@
+package com.iwaproject.logging.service;
+
+import com.iwaproject.logging.model.LogEntry;
+import com.iwaproject.logging.repository.LogRollupRepository;
+import com.iwaproject.logging.repository.LogRollupRepository.RollupKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogRollupServiceTest {
+
+    @Mock
+    private LogRollupRepository logRollupRepository;
+
+    private LogRollupService logRollupService;
+
+    private final LocalDateTime minute = LocalDateTime.of(2025, 11, 28, 13, 30);
+
+    @BeforeEach
+    void setUp() {
+        logRollupService = new LogRollupService(logRollupRepository, 400, 30, 100);
+        lenient().when(logRollupRepository.addAll(anyString(), anyLong(), anyMap())).thenReturn(true);
+    }
+
+    private LogEntry entry(int secondOffset, String level, Integer status) {
+        return LogEntry.builder()
+            .serviceName("user-microservice")
+            .logLevel(level)
+            .timestamp(minute.plusSeconds(secondOffset))
+            .responseStatus(status)
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<RollupKey, Long> flushed() {
+        ArgumentCaptor<Map<RollupKey, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(logRollupRepository).addAll(anyString(), eq(1L), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void testFlushWritesMergedCountsPerMinuteLevelAndStatusClass() {
+        // Arrange
+        logRollupService.record(List.of(entry(1, "INFO", 200), entry(20, "INFO", 204), entry(30, "ERROR", 503)));
+        logRollupService.record(List.of(entry(59, "INFO", null), entry(61, "INFO", 201)));
+
+        // Act
+        logRollupService.flush();
+
+        // Assert
+        Map<RollupKey, Long> counts = flushed();
+        assertEquals(4, counts.size());
+        assertEquals(2L, counts.get(new RollupKey(minute, "user-microservice", "INFO", 2)));
+        assertEquals(1L, counts.get(new RollupKey(minute, "user-microservice", "ERROR", 5)));
+        assertEquals(1L, counts.get(new RollupKey(minute, "user-microservice", "INFO", 0)));
+        assertEquals(1L, counts.get(new RollupKey(minute.plusMinutes(1), "user-microservice", "INFO", 2)));
+    }
+
+    @Test
+    void testFlushRetriesAFailedFlushWithTheSameKeyBeforeNewCounts() {
+        // Arrange
+        RollupKey key = new RollupKey(minute, "user-microservice", "INFO", 2);
+        logRollupService.record(List.of(entry(1, "INFO", 200)));
+        when(logRollupRepository.addAll(anyString(), anyLong(), anyMap()))
+            .thenThrow(new DataAccessResourceFailureException("connection lost"))
+            .thenReturn(true);
+
+        // Act
+        logRollupService.flush();
+        logRollupService.record(List.of(entry(2, "INFO", 200)));
+        logRollupService.flush();
+
+        // Assert: the failed flush is replayed as is (the database deduplicates it if it was
+        // committed), then the new counts go in a flush of their own
+        ArgumentCaptor<String> instance = ArgumentCaptor.forClass(String.class);
+        verify(logRollupRepository, times(2)).addAll(instance.capture(), eq(1L), eq(Map.of(key, 1L)));
+        verify(logRollupRepository).addAll(instance.capture(), eq(2L), eq(Map.of(key, 1L)));
+        assertEquals(1, instance.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void testFlushKeepsNewCountsPendingWhileTheRetryFails() {
+        // Arrange
+        logRollupService.record(List.of(entry(1, "INFO", 200)));
+        when(logRollupRepository.addAll(anyString(), anyLong(), anyMap()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        // Act
+        logRollupService.flush();
+        logRollupService.record(List.of(entry(2, "INFO", 200)));
+        logRollupService.flush();
+
+        // Assert
+        verify(logRollupRepository, times(2)).addAll(anyString(), eq(1L), anyMap());
+        verify(logRollupRepository, never()).addAll(anyString(), eq(2L), anyMap());
+    }
+
+    @Test
+    void testCountByLevelIsLimitedToTheLogRetention() {
+        // Act
+        logRollupService.countByLevel("user-microservice");
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(logRollupRepository).countByLevel(eq("user-microservice"), since.capture());
+        LocalDateTime expected = LocalDateTime.now().minusDays(30);
+        assertTrue(Math.abs(Duration.between(expected, since.getValue()).toMinutes()) <= 1);
+    }
+
+    @Test
+    void testFlushWithoutCountsDoesNothing() {
+        // Act
+        logRollupService.flush();
+
+        // Assert
+        verifyNoInteractions(logRollupRepository);
+    }
+
+    @Test
+    void testGetStatsWithoutIntervalUsesTheWholeWindow() {
+        // Act
+        logRollupService.getStats(minute.plusSeconds(15), minute.plusHours(2), null, null);
+
+        // Assert
+        verify(logRollupRepository).findStats(eq(minute), eq(minute.plusHours(2)), eq(120), isNull());
+    }
+
+    @Test
+    void testGetStatsRejectsInvalidWindows() {
+        assertThrows(IllegalArgumentException.class, () -> logRollupService.getStats(minute, minute, null, null));
+        assertThrows(IllegalArgumentException.class, () -> logRollupService.getStats(minute, minute.plusHours(1), 0, null));
+        // 1440 one-minute intervals, over the limit of 100
+        assertThrows(IllegalArgumentException.class, () -> logRollupService.getStats(minute, minute.plusDays(1), 1, null));
+        verify(logRollupRepository, never()).findStats(any(), any(), anyInt(), any());
+    }
+}
@@ -2,6 +2,7 @@ package com.iwaproject.logging.service;
 
 import com.iwaproject.logging.model.LogEntry;
 import com.iwaproject.logging.model.LogMessage;
+import com.iwaproject.logging.repository.LogEntryBatchRepository;
 import com.iwaproject.logging.repository.LogEntryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,11 +10,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +30,15 @@ class LogServiceTest {
     @Mock
     private LogEntryRepository logEntryRepository;
 
+    @Mock
+    private LogEntryBatchRepository logEntryBatchRepository;
+
+    @Mock
+    private LogRollupService logRollupService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private LogService logService;
 
@@ -42,6 +59,8 @@ class LogServiceTest {
             .requestMethod("GET")
             .responseStatus(200)
             .build();
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -99,4 +118,67 @@ class LogServiceTest {
         verify(logEntryRepository, times(1))
             .countByServiceNameAndLogLevel(serviceName, logLevel);
     }
+
+    @Test
+    void testSaveLogsWithOneInsert() {
+        // Arrange
+        when(logEntryBatchRepository.insertAll(anyList())).thenReturn(2);
+
+        // Act
+        int saved = logService.saveLogs(List.of(testLogMessage, testLogMessage));
+
+        // Assert
+        assertEquals(2, saved);
+        verify(logEntryBatchRepository, times(1)).insertAll(argThat(entries -> entries.size() == 2));
+        verify(logRollupService).record(argThat(entries -> entries.size() == 2));
+        verifyNoInteractions(logEntryRepository);
+    }
+
+    @Test
+    void testSaveLogsSkipsInvalidEntries() {
+        // Arrange
+        LogMessage invalid = LogMessage.builder().serviceName(null).logLevel("INFO").message("no service").build();
+        when(logEntryBatchRepository.insertAll(anyList()))
+            .thenThrow(new DataIntegrityViolationException("null value in column \"service_name\""));
+        when(logEntryBatchRepository.insertEach(anyList(), any())).thenAnswer(invocation -> {
+            List<LogEntry> entries = invocation.getArgument(0);
+            BiConsumer<LogEntry, DataIntegrityViolationException> onRejected = invocation.getArgument(1);
+            entries.stream().filter(e -> e.getServiceName() == null)
+                .forEach(e -> onRejected.accept(e, new DataIntegrityViolationException("null value")));
+            return entries.stream().filter(e -> e.getServiceName() != null).toList();
+        });
+
+        // Act
+        int saved = logService.saveLogs(List.of(testLogMessage, invalid, testLogMessage));
+
+        // Assert
+        assertEquals(2, saved);
+        verify(transactionTemplate).execute(any());
+        verify(logEntryBatchRepository).insertEach(argThat(entries -> entries.size() == 3), any());
+        verify(logRollupService).record(argThat(entries -> entries.size() == 2));
+    }
+
+    @Test
+    void testSaveLogsFallbackPropagatesDatabaseFailure() {
+        // Arrange
+        when(logEntryBatchRepository.insertAll(anyList()))
+            .thenThrow(new DataIntegrityViolationException("value too long"));
+        when(logEntryBatchRepository.insertEach(anyList(), any()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        // Act & Assert: the whole fallback transaction is rolled back and the batch retried
+        assertThrows(DataAccessResourceFailureException.class,
+            () -> logService.saveLogs(List.of(testLogMessage, testLogMessage)));
+        verifyNoInteractions(logRollupService);
+    }
+
+    @Test
+    void testSaveLogsPropagatesDatabaseFailure() {
+        // Arrange
+        when(logEntryBatchRepository.insertAll(anyList())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        // Act & Assert
+        assertThrows(DataAccessResourceFailureException.class, () -> logService.saveLogs(List.of(testLogMessage)));
+        verify(logEntryBatchRepository, times(1)).insertAll(anyList());
+    }
 }
@@ -2,8 +2,10 @@ package iwaproject.transaction;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TransactionApplication {
 	public static void main(String[] args) {
         SpringApplication.run(TransactionApplication.class, args);
@@ -0,0 +1,75 @@
+package iwaproject.transaction.controller;
+
+import iwaproject.transaction.dto.MarkReadRequest;
+import iwaproject.transaction.dto.MessageResponse;
+import iwaproject.transaction.dto.SendMessageRequest;
+import iwaproject.transaction.service.ConversationService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/transaction/{transactionId}/messages")
+@CrossOrigin(origins = "*")
+public class ConversationController {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationController.class);
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final ConversationService conversationService;
+
+    public ConversationController(ConversationService conversationService) {
+        this.conversationService = conversationService;
+    }
+
+    /**
+     * Send a message in the transaction's conversation
+     */
+    @PostMapping
+    public ResponseEntity<MessageResponse> sendMessage(
+            @PathVariable Integer transactionId,
+            @Valid @RequestBody SendMessageRequest request,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+
+        log.debug("POST /transaction/{}/messages - userId: {}", transactionId, userId);
+        return ResponseEntity.ok(conversationService.sendMessage(transactionId, userId, request.content()));
+    }
+
+    /**
+     * Get a page of messages: older than "before" (newest first), or newer than "after" (oldest first)
+     */
+    @GetMapping
+    public ResponseEntity<List<MessageResponse>> getMessages(
+            @PathVariable Integer transactionId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+
+        log.debug("GET /transaction/{}/messages - userId: {}, before: {}, after: {}", transactionId, userId, before, after);
+
+        if (before != null && after != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(conversationService.getMessages(
+                transactionId, userId, before, after, Math.clamp(limit, 1, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Mark messages as read up to the given message id
+     */
+    @PostMapping("/read")
+    public ResponseEntity<Void> markRead(
+            @PathVariable Integer transactionId,
+            @Valid @RequestBody MarkReadRequest request,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+
+        log.debug("POST /transaction/{}/messages/read - userId: {}, lastRead: {}", transactionId, userId, request.lastReadMessageId());
+        conversationService.markRead(transactionId, userId, request.lastReadMessageId());
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -1,17 +1,31 @@
 package iwaproject.transaction.controller;
 
+import iwaproject.transaction.dto.CreateTransactionBatchRequest;
 import iwaproject.transaction.dto.CreateTransactionRequest;
+import iwaproject.transaction.dto.TransactionChangesResponse;
+import iwaproject.transaction.dto.TransactionCursor;
 import iwaproject.transaction.dto.TransactionResponse;
 import iwaproject.transaction.dto.UpdateStateRequest;
+import iwaproject.transaction.dto.UserTransactionStatsResponse;
+import iwaproject.transaction.enums.Expansion;
+import iwaproject.transaction.enums.StateFilter;
 import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.model.TransactionChanges;
+import iwaproject.transaction.service.TransactionEnrichmentService;
 import iwaproject.transaction.service.TransactionService;
+import iwaproject.transaction.service.UserTransactionStatsService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/transaction")
@@ -19,11 +33,23 @@ import java.util.List;
 public class TransactionController {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionController.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    private static final String ADMIN_ROLE = "admin";
 
     private final TransactionService transactionService;
+    private final UserTransactionStatsService statsService;
+    private final TransactionEnrichmentService enrichmentService;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 UserTransactionStatsService statsService,
+                                 TransactionEnrichmentService enrichmentService) {
         this.transactionService = transactionService;
+        this.statsService = statsService;
+        this.enrichmentService = enrichmentService;
     }
 
     /**
@@ -32,14 +58,41 @@ public class TransactionController {
     @PostMapping
     public ResponseEntity<TransactionResponse> createTransaction(
             @Valid @RequestBody CreateTransactionRequest request,
-            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         log.info("POST /transaction - userId: {}, serviceId: {}", userId, request.serviceId());
 
-        Transaction transaction = transactionService.createTransaction(request, userId);
+        if (!isValidIdempotencyKey(idempotencyKey)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Transaction transaction = transactionService.createTransaction(request, userId, idempotencyKey);
         return ResponseEntity.ok(TransactionResponse.fromEntity(transaction));
     }
 
+    /**
+     * Create several transactions at once (multi-service checkout), all or nothing
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<TransactionResponse>> createTransactions(
+            @Valid @RequestBody CreateTransactionBatchRequest request,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
+        log.info("POST /transaction/batch - userId: {}, serviceIds: {}", userId, request.serviceIds());
+
+        // La clé est suffixée par service (":<serviceId>") pour chaque transaction créée
+        if (!isValidIdempotencyKey(idempotencyKey)
+                || (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH - 11)
+                || request.serviceIds().stream().distinct().count() != request.serviceIds().size()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Transaction> transactions = transactionService.createTransactions(request, userId, idempotencyKey);
+        return ResponseEntity.ok(transactions.stream().map(TransactionResponse::fromEntity).toList());
+    }
+
     /**
      * Get a specific transaction by ID
      */
@@ -55,24 +108,110 @@ public class TransactionController {
     }
 
     /**
-     * Get all transactions for the current user
+     * Get the transactions of the current user, newest first.
+     * Without cursor nor limit, the full list is returned (original behavior of the endpoint);
+     * with either, a page of at most limit (default 50) transactions is returned and the cursor for
+     * the next page is in the X-Next-Cursor header (absent on the last page).
+     * expand=product,counterpart embeds the product and the other party's public profile.
      */
     @GetMapping("/my")
     public ResponseEntity<List<TransactionResponse>> getMyTransactions(
-            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "all") String state,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String expand,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
 
-        log.info("GET /transaction/my - userId: {}", userId);
+        log.info("GET /transaction/my - userId: {}, state: {}, cursor: {}, limit: {}, expand: {}",
+                userId, state, cursor, limit, expand);
 
         if (userId == null || userId.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
 
-        List<Transaction> transactions = transactionService.getTransactionsByUser(userId);
-        List<TransactionResponse> responses = transactions.stream()
-                .map(TransactionResponse::fromEntity)
-                .toList();
+        StateFilter filter;
+        TransactionCursor position;
+        Set<Expansion> expansions;
+        try {
+            filter = StateFilter.fromParam(state);
+            position = TransactionCursor.decode(cursor);
+            expansions = Expansion.fromParam(expand);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean paginated = cursor != null || limit != null;
+        int pageSize = paginated ? Math.clamp(limit != null ? limit : DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE) : Integer.MAX_VALUE;
+
+        List<Transaction> transactions = transactionService.getTransactionsByUser(userId, filter, position, pageSize);
+        List<TransactionResponse> responses = enrichmentService.expand(transactions, userId, expansions, authorization);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (paginated && transactions.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, TransactionCursor.after(transactions.get(pageSize - 1)).encode());
+        }
+        return response.body(responses);
+    }
+
+    /**
+     * Get the current user's transactions changed since the given sync position (delta sync).
+     * Changes are upserts keyed by id; clients store highWaterMark and pass it as the next since
+     * (start from 0). A page may repeat rows already delivered, never skip one.
+     * Only writes committed below the oldest database transaction still open are delivered: a single
+     * long-running or idle-in-transaction session on the Postgres instance delays every user's changes
+     * until it ends (see the transaction.changes.horizon.age metric). highWaterMark is the only sync cursor.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<TransactionChangesResponse> getMyTransactionChanges(
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false, defaultValue = "" + MAX_PAGE_SIZE) int limit) {
+
+        log.info("GET /transaction/changes - userId: {}, since: {}, limit: {}", userId, since, limit);
+
+        if (userId == null || userId.isBlank() || since < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+
+        TransactionChanges changes = transactionService.getChangesByUser(userId, since, pageSize);
 
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(new TransactionChangesResponse(
+                changes.changes().stream().map(TransactionResponse::fromEntity).toList(),
+                changes.highWaterMark(),
+                changes.hasMore()));
+    }
+
+    /**
+     * Get transaction counters (active / completed / canceled, as client and as provider) for a user.
+     * Only the user themself and admins may read them (the Gateway verifies the JWT on this route).
+     */
+    @GetMapping("/stats/{userId}")
+    public ResponseEntity<UserTransactionStatsResponse> getUserStats(
+            @PathVariable String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String currentUserId,
+            @RequestHeader(value = "X-User-Roles", required = false) String roles) {
+        log.info("GET /transaction/stats/{} - userId: {}", userId, currentUserId);
+        if (!userId.equals(currentUserId) && !hasRole(roles, ADMIN_ROLE)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(statsService.getStats(userId));
+    }
+
+    /**
+     * Recompute the stats projection from the transaction table (admin realm role only).
+     * The Gateway always verifies the JWT signature on this route, so X-User-Roles can be trusted.
+     */
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildStats(
+            @RequestHeader(value = "X-User-Roles", required = false) String roles,
+            @RequestParam(defaultValue = "500") int batchSize) {
+        log.info("POST /transaction/stats/rebuild - batchSize: {}, roles: {}", batchSize, roles);
+        if (!hasRole(roles, ADMIN_ROLE)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        int users = statsService.rebuild(Math.clamp(batchSize, 1, 10_000));
+        return ResponseEntity.ok(Map.of("users", users));
     }
 
     /**
@@ -82,11 +221,16 @@ public class TransactionController {
     public ResponseEntity<TransactionResponse> updateTransactionStatePut(
             @PathVariable Integer id,
             @Valid @RequestBody UpdateStateRequest request,
-            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         log.info("PUT /transaction/{}/state - userId: {}, newState: {}", id, userId, request.newState());
 
-        Transaction transaction = transactionService.updateState(id, request, userId);
+        if (!isValidIdempotencyKey(idempotencyKey)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Transaction transaction = transactionService.updateState(id, request, userId, idempotencyKey);
         return ResponseEntity.ok(TransactionResponse.fromEntity(transaction));
     }
 
@@ -97,11 +241,25 @@ public class TransactionController {
     public ResponseEntity<TransactionResponse> updateTransactionStatePatch(
             @PathVariable Integer id,
             @Valid @RequestBody UpdateStateRequest request,
-            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         log.info("PATCH /transaction/{}/state - userId: {}, newState: {}", id, userId, request.newState());
 
-        Transaction transaction = transactionService.updateState(id, request, userId);
+        if (!isValidIdempotencyKey(idempotencyKey)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Transaction transaction = transactionService.updateState(id, request, userId, idempotencyKey);
         return ResponseEntity.ok(TransactionResponse.fromEntity(transaction));
     }
-}
\ No newline at end of file
+
+    private static boolean isValidIdempotencyKey(String key) {
+        return key == null || (!key.isBlank() && key.length() <= MAX_IDEMPOTENCY_KEY_LENGTH);
+    }
+
+    // X-User-Roles : rôles realm du JWT, séparés par des virgules (positionné par la Gateway)
+    private static boolean hasRole(String roles, String role) {
+        return roles != null && Arrays.stream(roles.split(",")).map(String::trim).anyMatch(role::equals);
+    }
+}
@@ -0,0 +1,17 @@
+package iwaproject.transaction.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CreateTransactionBatchRequest(
+    @NotEmpty(message = "serviceIds is required")
+    @Size(max = 20, message = "At most 20 services per checkout")
+    List<@NotNull @Positive Integer> serviceIds,
+    
+    @NotNull(message = "directRequest is required")
+    Boolean directRequest
+) {}
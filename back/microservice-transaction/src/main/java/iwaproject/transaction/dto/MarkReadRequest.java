@@ -0,0 +1,10 @@
+package iwaproject.transaction.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record MarkReadRequest(
+    @NotNull(message = "lastReadMessageId is required")
+    @Positive(message = "lastReadMessageId must be positive")
+    Long lastReadMessageId
+) {}
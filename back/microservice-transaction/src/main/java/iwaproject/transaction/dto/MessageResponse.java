@@ -0,0 +1,23 @@
+package iwaproject.transaction.dto;
+
+import iwaproject.transaction.model.TransactionMessage;
+
+import java.time.LocalDateTime;
+
+public record MessageResponse(
+    Long id,
+    Integer transactionId,
+    String senderId,
+    String content,
+    LocalDateTime sentAt
+) {
+    public static MessageResponse fromEntity(TransactionMessage message) {
+        return new MessageResponse(
+            message.getId(),
+            message.getTransactionId(),
+            message.getSenderId(),
+            message.getContent(),
+            message.getSentAt()
+        );
+    }
+}
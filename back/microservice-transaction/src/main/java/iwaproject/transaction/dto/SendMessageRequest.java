@@ -0,0 +1,10 @@
+package iwaproject.transaction.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record SendMessageRequest(
+    @NotBlank(message = "content is required")
+    @Size(max = 2000, message = "content must be at most 2000 characters")
+    String content
+) {}
@@ -0,0 +1,12 @@
+package iwaproject.transaction.dto;
+
+import java.util.List;
+
+/**
+ * Transactions modifiées depuis une position de synchronisation, et prochaine position à transmettre
+ */
+public record TransactionChangesResponse(
+    List<TransactionResponse> changes,
+    long highWaterMark,
+    boolean hasMore
+) {}
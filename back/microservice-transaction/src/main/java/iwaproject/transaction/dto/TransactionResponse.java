@@ -1,5 +1,6 @@
 package iwaproject.transaction.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import iwaproject.transaction.enums.TransitionState;
 import iwaproject.transaction.model.Transaction;
 
@@ -13,9 +14,16 @@ public record TransactionResponse(
     String idProvider,
     LocalDateTime creationDate,
     LocalDateTime requestValidationDate,
-    LocalDateTime finishDate
+    LocalDateTime finishDate,
+    // Inclus uniquement avec expand=product / expand=counterpart
+    @JsonInclude(JsonInclude.Include.NON_NULL) ProductDTO product,
+    @JsonInclude(JsonInclude.Include.NON_NULL) UserPublicDTO counterpart
 ) {
     public static TransactionResponse fromEntity(Transaction transaction) {
+        return fromEntity(transaction, null, null);
+    }
+
+    public static TransactionResponse fromEntity(Transaction transaction, ProductDTO product, UserPublicDTO counterpart) {
         return new TransactionResponse(
             transaction.getId(),
             transaction.getTransactionState(),
@@ -24,7 +32,9 @@ public record TransactionResponse(
             transaction.getIdProvider(),
             transaction.getCreationDate(),
             transaction.getRequestValidationDate(),
-            transaction.getFinishDate()
+            transaction.getFinishDate(),
+            product,
+            counterpart
         );
     }
-}
\ No newline at end of file
+}
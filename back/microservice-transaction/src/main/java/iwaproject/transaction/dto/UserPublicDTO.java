@@ -0,0 +1,11 @@
+package iwaproject.transaction.dto;
+
+/**
+ * Profil public d'un utilisateur, tel que renvoyé par le user-microservice
+ */
+public record UserPublicDTO(
+    String id,
+    String username,
+    String firstName,
+    String lastName
+) {}
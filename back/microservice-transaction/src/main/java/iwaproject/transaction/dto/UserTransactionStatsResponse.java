@@ -0,0 +1,24 @@
+package iwaproject.transaction.dto;
+
+/**
+ * Compteurs de transactions d'un utilisateur, en tant que client et en tant que provider
+ */
+public record UserTransactionStatsResponse(
+    String userId,
+    RoleStats asClient,
+    RoleStats asProvider
+) {
+    public record RoleStats(
+        long active,
+        long completed,
+        long canceled,
+        Double completionRate
+    ) {
+        public static final RoleStats EMPTY = of(0, 0, 0);
+
+        public static RoleStats of(long active, long completed, long canceled) {
+            long closed = completed + canceled;
+            return new RoleStats(active, completed, canceled, closed == 0 ? null : (double) completed / closed);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package iwaproject.transaction.enums;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Données associées pouvant être incluses dans les réponses transaction (paramètre "expand")
+ */
+public enum Expansion {
+    PRODUCT,
+    COUNTERPART;
+
+    /**
+     * Lit une liste séparée par des virgules ("product,counterpart")
+     *
+     * @throws IllegalArgumentException si une valeur est inconnue
+     */
+    public static Set<Expansion> fromParam(String value) {
+        Set<Expansion> expansions = EnumSet.noneOf(Expansion.class);
+        if (value == null || value.isBlank()) {
+            return expansions;
+        }
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                expansions.add(valueOf(part.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return expansions;
+    }
+}
@@ -0,0 +1,33 @@
+package iwaproject.transaction.enums;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Filtre d'état pour la liste "mes transactions"
+ */
+public enum StateFilter {
+    ACTIVE(TransitionState.ACTIVE_STATES),
+    FINISHED(TransitionState.FINISHED_STATES),
+    ALL(Arrays.asList(TransitionState.values()));
+
+    private final List<String> stateNames;
+
+    StateFilter(List<TransitionState> states) {
+        this.stateNames = states.stream().map(Enum::name).toList();
+    }
+
+    /**
+     * Noms des états correspondants (pour les requêtes natives)
+     */
+    public List<String> stateNames() {
+        return stateNames;
+    }
+
+    public static StateFilter fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return ALL;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
@@ -1,5 +1,8 @@
 package iwaproject.transaction.enums;
 
+import java.util.Arrays;
+import java.util.List;
+
 public enum TransitionState {
     EXCHANGING,
     REQUESTED,
@@ -10,4 +13,14 @@ public enum TransitionState {
     DOUBLE_CONFIRMED,
     FINISHED_AND_PAYED,
     CANCELED;
+
+    public static final List<TransitionState> FINISHED_STATES = List.of(FINISHED_AND_PAYED, CANCELED);
+
+    public static final List<TransitionState> ACTIVE_STATES = Arrays.stream(values())
+            .filter(state -> !FINISHED_STATES.contains(state))
+            .toList();
+
+    public boolean isFinished() {
+        return FINISHED_STATES.contains(this);
+    }
 }
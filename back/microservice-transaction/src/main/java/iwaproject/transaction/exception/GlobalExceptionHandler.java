@@ -1,6 +1,7 @@
 package iwaproject.transaction.exception;
 
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -58,6 +59,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
     }
     
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        Map<String, Object> errors = new HashMap<>();
+        errors.put("status", HttpStatus.UNPROCESSABLE_ENTITY.value());
+        errors.put("error", "Idempotency key reused");
+        errors.put("message", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errors);
+    }
+    
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrentUpdate(OptimisticLockingFailureException ex) {
+        Map<String, Object> errors = new HashMap<>();
+        errors.put("status", HttpStatus.CONFLICT.value());
+        errors.put("error", "Concurrent update");
+        errors.put("message", "Transaction was modified concurrently, please retry");
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericError(Exception ex) {
         Map<String, Object> errors = new HashMap<>();
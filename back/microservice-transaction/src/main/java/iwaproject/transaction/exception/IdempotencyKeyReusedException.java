@@ -0,0 +1,11 @@
+package iwaproject.transaction.exception;
+
+/**
+ * An Idempotency-Key already used for a request with a different payload (another service)
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
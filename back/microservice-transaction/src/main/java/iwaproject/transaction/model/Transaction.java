@@ -2,6 +2,8 @@ package iwaproject.transaction.model;
 
 import iwaproject.transaction.enums.TransitionState;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 import java.time.LocalDateTime;
 
 @Entity
@@ -34,6 +36,27 @@ public class Transaction {
     @Column(name = "creation_date", nullable = false)
     private LocalDateTime creationDate;
     
+    // Date d'entrée dans l'état courant
+    @Column(name = "state_changed_at", nullable = false)
+    private LocalDateTime stateChangedAt;
+    
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
+    // Identifiant de la transaction base ayant écrit la ligne (position de synchronisation)
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(name = "update_xid", insertable = false, updatable = false)
+    private Long updateXid;
+    
+    // Clé d'idempotence fournie par le client à la création
+    @Column(name = "creation_key", length = 64)
+    private String creationKey;
+    
+    // Clé d'idempotence de la dernière mise à jour d'état appliquée
+    @Column(name = "last_update_key", length = 64)
+    private String lastUpdateKey;
+    
     protected Transaction() {}
     
     public Transaction(TransitionState state, Integer idService, String idClient, String idProvider) {
@@ -42,6 +65,7 @@ public class Transaction {
         this.idClient = idClient;
         this.idProvider = idProvider;
         this.creationDate = LocalDateTime.now();
+        this.stateChangedAt = this.creationDate;
     }
     
     // Getters
@@ -53,9 +77,21 @@ public class Transaction {
     public String getIdClient() { return idClient; }
     public String getIdProvider() { return idProvider; }
     public LocalDateTime getCreationDate() { return creationDate; }
+    public LocalDateTime getStateChangedAt() { return stateChangedAt; }
+    public Long getVersion() { return version; }
+    public Long getUpdateXid() { return updateXid; }
+    public String getCreationKey() { return creationKey; }
+    public String getLastUpdateKey() { return lastUpdateKey; }
     
     // Setters
-    public void setTransactionState(TransitionState state) { this.transactionState = state; }
+    public void setTransactionState(TransitionState state) {
+        if (state != this.transactionState) {
+            this.stateChangedAt = LocalDateTime.now();
+        }
+        this.transactionState = state;
+    }
     public void setRequestValidationDate(LocalDateTime date) { this.requestValidationDate = date; }
     public void setFinishDate(LocalDateTime date) { this.finishDate = date; }
+    public void setCreationKey(String key) { this.creationKey = key; }
+    public void setLastUpdateKey(String key) { this.lastUpdateKey = key; }
 }
\ No newline at end of file
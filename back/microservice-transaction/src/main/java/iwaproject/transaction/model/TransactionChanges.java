@@ -0,0 +1,12 @@
+package iwaproject.transaction.model;
+
+import java.util.List;
+
+/**
+ * Page de synchronisation différentielle : highWaterMark est le prochain since à transmettre
+ */
+public record TransactionChanges(
+    List<Transaction> changes,
+    long highWaterMark,
+    boolean hasMore
+) {}
@@ -0,0 +1,41 @@
+package iwaproject.transaction.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "transaction_message")
+public class TransactionMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "transaction_id", nullable = false)
+    private Integer transactionId;
+    
+    @Column(name = "sender_id", nullable = false)
+    private String senderId;
+    
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String content;
+    
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+    
+    protected TransactionMessage() {}
+    
+    public TransactionMessage(Integer transactionId, String senderId, String content) {
+        this.transactionId = transactionId;
+        this.senderId = senderId;
+        this.content = content;
+        this.sentAt = LocalDateTime.now();
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public Integer getTransactionId() { return transactionId; }
+    public String getSenderId() { return senderId; }
+    public String getContent() { return content; }
+    public LocalDateTime getSentAt() { return sentAt; }
+}
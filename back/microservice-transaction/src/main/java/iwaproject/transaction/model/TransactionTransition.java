@@ -0,0 +1,16 @@
+package iwaproject.transaction.model;
+
+import iwaproject.transaction.enums.TransitionState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne du journal des transitions d'état (fromState null à la création)
+ */
+public record TransactionTransition(
+    Integer transactionId,
+    TransitionState fromState,
+    TransitionState toState,
+    String actor,
+    LocalDateTime transitionedAt
+) {}
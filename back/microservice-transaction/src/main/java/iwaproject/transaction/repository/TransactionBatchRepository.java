@@ -0,0 +1,64 @@
+package iwaproject.transaction.repository;
+
+import iwaproject.transaction.model.Transaction;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Insertion de plusieurs transactions en un seul lot JDBC
+ * (l'identifiant IDENTITY empêche Hibernate de regrouper les inserts)
+ */
+@Repository
+public class TransactionBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO transaction (transaction_state, id_service, id_client, id_provider,
+                                     creation_date, state_changed_at, creation_key)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insère les transactions et retourne leurs identifiants, dans l'ordre de la liste
+     */
+    public List<Integer> insertAll(List<Transaction> transactions) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            con -> con.prepareStatement(INSERT_SQL, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Transaction t = transactions.get(i);
+                    ps.setString(1, t.getTransactionState().name());
+                    ps.setInt(2, t.getIdService());
+                    ps.setString(3, t.getIdClient());
+                    ps.setString(4, t.getIdProvider());
+                    ps.setTimestamp(5, Timestamp.valueOf(t.getCreationDate()));
+                    ps.setTimestamp(6, Timestamp.valueOf(t.getStateChangedAt()));
+                    ps.setString(7, t.getCreationKey());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return transactions.size();
+                }
+            },
+            keyHolder);
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.get("id")).intValue())
+                .toList();
+    }
+}
@@ -0,0 +1,20 @@
+package iwaproject.transaction.repository;
+
+import iwaproject.transaction.model.TransactionMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TransactionMessageRepository extends JpaRepository<TransactionMessage, Long> {
+    
+    // Historique : messages plus anciens que le curseur, du plus récent au plus ancien
+    List<TransactionMessage> findByTransactionIdAndIdLessThanOrderByIdDesc(Integer transactionId, Long before, Limit limit);
+    
+    // Rattrapage : messages plus récents que le curseur, dans l'ordre d'envoi
+    List<TransactionMessage> findByTransactionIdAndIdGreaterThanOrderByIdAsc(Integer transactionId, Long after, Limit limit);
+    
+    boolean existsByTransactionIdAndId(Integer transactionId, Long id);
+}
@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,10 +21,114 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
         List<TransitionState> excludedStates
     );
     
-    @Query("SELECT t FROM Transaction t WHERE t.idClient = :userId OR t.idProvider = :userId ORDER BY t.creationDate DESC")
-    List<Transaction> findByIdClientOrIdProviderOrderByCreationDateDesc(@Param("userId") String idClient, @Param("userId") String idProvider);
+    List<Transaction> findByIdClientAndIdServiceInAndTransactionStateNotIn(
+        String idClient,
+        Collection<Integer> idServices,
+        List<TransitionState> excludedStates
+    );
+    
+    Optional<Transaction> findByIdClientAndCreationKey(String idClient, String creationKey);
+    
+    List<Transaction> findByIdClientAndCreationKeyIn(String idClient, Collection<String> creationKeys);
+    
+    /**
+     * Page de transactions d'un utilisateur (client ou provider), triée par date décroissante.
+     * Chaque branche de l'UNION parcourt son propre index (id_client / id_provider, creation_date, id)
+     * à partir du curseur et s'arrête après :limit lignes, au lieu d'un OR non indexable.
+     */
+    @Query(value = """
+            SELECT u.* FROM (
+                (SELECT t.* FROM transaction t
+                 WHERE t.id_client = :userId
+                   AND (t.creation_date, t.id) < (:cursorDate, :cursorId)
+                   AND t.transaction_state IN (:states)
+                 ORDER BY t.creation_date DESC, t.id DESC
+                 LIMIT :limit)
+                UNION
+                (SELECT t.* FROM transaction t
+                 WHERE t.id_provider = :userId
+                   AND (t.creation_date, t.id) < (:cursorDate, :cursorId)
+                   AND t.transaction_state IN (:states)
+                 ORDER BY t.creation_date DESC, t.id DESC
+                 LIMIT :limit)
+            ) u
+            ORDER BY u.creation_date DESC, u.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Transaction> findPageByUser(@Param("userId") String userId,
+                                     @Param("states") List<String> states,
+                                     @Param("cursorDate") LocalDateTime cursorDate,
+                                     @Param("cursorId") Integer cursorId,
+                                     @Param("limit") int limit);
     
     List<Transaction> findByIdClient(String idClient);
     
     List<Transaction> findByIdProvider(String idProvider);
+    
+    /**
+     * Plus ancienne transaction base encore en cours : toute écriture d'identifiant inférieur est terminée
+     */
+    @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+    long currentSnapshotXmin();
+    
+    /**
+     * Âge en secondes de la plus ancienne transaction base encore ouverte sur l'instance (0 si aucune) :
+     * c'est elle qui retient l'horizon de synchronisation. Les sessions d'autres rôles ne sont visibles
+     * qu'avec pg_read_all_stats.
+     */
+    @Query(value = """
+            SELECT COALESCE(EXTRACT(EPOCH FROM clock_timestamp() - min(a.xact_start)), 0)::bigint
+            FROM pg_stat_activity a
+            WHERE a.pid <> pg_backend_pid()
+              AND (a.backend_xid IS NOT NULL OR a.backend_xmin IS NOT NULL)
+            """, nativeQuery = true)
+    long oldestOpenTransactionAgeSeconds();
+    
+    /**
+     * Transactions d'un utilisateur écrites par les transactions base d'identifiant compris dans
+     * [since, horizon), dans l'ordre des écritures
+     */
+    @Query(value = """
+            SELECT u.* FROM (
+                (SELECT t.* FROM transaction t
+                 WHERE t.id_client = :userId AND t.update_xid >= :since AND t.update_xid < :horizon
+                 ORDER BY t.update_xid, t.id
+                 LIMIT :limit)
+                UNION
+                (SELECT t.* FROM transaction t
+                 WHERE t.id_provider = :userId AND t.update_xid >= :since AND t.update_xid < :horizon
+                 ORDER BY t.update_xid, t.id
+                 LIMIT :limit)
+            ) u
+            ORDER BY u.update_xid, u.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Transaction> findChangesByUser(@Param("userId") String userId,
+                                        @Param("since") long since,
+                                        @Param("horizon") long horizon,
+                                        @Param("limit") int limit);
+    
+    /**
+     * Toutes les transactions d'un utilisateur écrites par une même transaction base
+     */
+    @Query(value = """
+            SELECT t.* FROM transaction t
+            WHERE (t.id_client = :userId OR t.id_provider = :userId) AND t.update_xid = :xid
+            ORDER BY t.id
+            """, nativeQuery = true)
+    List<Transaction> findChangesByUserAndXid(@Param("userId") String userId, @Param("xid") long xid);
+    
+    /**
+     * Verrouille un lot de transactions obsolètes, en sautant celles déjà verrouillées par un autre sweeper
+     */
+    @Query(value = """
+            SELECT t.* FROM transaction t
+            WHERE t.transaction_state IN (:states) AND t.creation_date < :cutoff
+            ORDER BY t.creation_date
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Transaction> lockStaleBatch(@Param("states") List<String> states,
+                                     @Param("cutoff") LocalDateTime cutoff,
+                                     @Param("limit") int limit);
 }
\ No newline at end of file
@@ -7,54 +7,94 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @Service
 public class CatalogServiceClient {
     
     private static final Logger log = LoggerFactory.getLogger(CatalogServiceClient.class);
+    // Nombre maximal d'ID acceptés par GET /batch du service-catalog (ProductController.MAX_BATCH_SIZE)
+    static final int MAX_BATCH_SIZE = 200;
+    private static final int BATCH_CONCURRENCY = 4;
     
     private final WebClient webClient;
     private final String catalogBasePath;
     
     public CatalogServiceClient(
-            @Value("${api-gateway.url}") String gatewayUrl,
+            @Value("${catalog-service.url}") String catalogUrl,
             @Value("${catalog-service.path}") String catalogPath,
             WebClient.Builder webClientBuilder) {
         this.catalogBasePath = catalogPath;
         this.webClient = webClientBuilder
-                .baseUrl(gatewayUrl)
+                .baseUrl(catalogUrl)
                 .build();
-        log.info("CatalogServiceClient initialized with gateway URL: {}", gatewayUrl);
+        log.info("CatalogServiceClient initialized with catalog URL: {}", catalogUrl);
     }
     
     /**
-     * Récupère un produit depuis le service-catalog via la gateway
+     * Récupère un produit directement depuis le service-catalog (sans bloquer)
      */
-    public ProductDTO getProductById(Integer productId) {
+    public Mono<ProductDTO> fetchProductById(Integer productId) {
         String url = catalogBasePath + "/" + productId;
-        log.info("#debuglog Calling catalog service: GET {}", url);
+        log.debug("Calling catalog service: GET {}", url);
         
-        try {
-            ProductDTO product = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(ProductDTO.class)
-                    .block();
-            
-            log.info("#debuglog Successfully retrieved product {} from catalog service", productId);
-            log.debug("#debuglog Product details: game={}, type={}, price={}, available={}, provider={}", 
-                    product.game(), product.serviceType(), product.price(), 
-                    product.isAvailable(), product.idProvider());  // idProvider maintenant String
-            return product;
-            
-        } catch (WebClientResponseException.NotFound e) {
-            log.error("#debuglog Product {} not found in catalog service", productId);
-            throw new IllegalArgumentException("Product not found: " + productId);
-            
-        } catch (Exception e) {
-            log.error("#debuglog Failed to call catalog service for product {}: {}", 
-                    productId, e.getMessage(), e);
-            throw new RuntimeException("Failed to retrieve product from catalog service", e);
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(ProductDTO.class)
+                .doOnNext(product -> log.debug("Product {} retrieved: game={}, type={}, price={}, available={}, provider={}",
+                        productId, product.game(), product.serviceType(), product.price(),
+                        product.isAvailable(), product.idProvider()))
+                .onErrorMap(WebClientResponseException.NotFound.class, e -> {
+                    log.error("Product {} not found in catalog service", productId);
+                    return new IllegalArgumentException("Product not found: " + productId);
+                })
+                .onErrorMap(e -> !(e instanceof IllegalArgumentException), e -> {
+                    log.error("Failed to call catalog service for product {}: {}", productId, e.getMessage());
+                    return new RuntimeException("Failed to retrieve product from catalog service", e);
+                });
+    }
+    
+    /**
+     * Récupère plusieurs produits, par appels de MAX_BATCH_SIZE ID au plus (BATCH_CONCURRENCY en
+     * parallèle, résultats dans l'ordre des appels) ; les ID inconnus sont absents du résultat
+     */
+    public Flux<ProductDTO> fetchProductsByIds(Collection<Integer> productIds) {
+        List<Integer> ids = List.copyOf(productIds);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size())));
         }
+        return Flux.fromIterable(chunks).flatMapSequential(this::fetchProductChunk, BATCH_CONCURRENCY);
+    }
+
+    private Flux<ProductDTO> fetchProductChunk(List<Integer> productIds) {
+        log.debug("Calling catalog service: GET {}/batch for {} products", catalogBasePath, productIds.size());
+        
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path(catalogBasePath + "/batch")
+                        .queryParam("ids", productIds.toArray())
+                        .build())
+                .retrieve()
+                .bodyToFlux(ProductDTO.class)
+                .onErrorMap(e -> new RuntimeException("Failed to retrieve products from catalog service", e));
+    }
+    
+    /**
+     * Récupère l'ensemble du catalogue en un seul appel (bootstrap / rafraîchissement du réplica local)
+     */
+    public Flux<ProductDTO> fetchAllProducts() {
+        log.debug("Calling catalog service: GET {}", catalogBasePath);
+        
+        return webClient.get()
+                .uri(catalogBasePath)
+                .retrieve()
+                .bodyToFlux(ProductDTO.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package iwaproject.transaction.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import iwaproject.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Surveille l'âge de l'horizon de /transaction/changes. Une seule transaction base longue ou
+ * "idle in transaction" sur l'instance Postgres fige pg_snapshot_xmin : plus aucune écriture
+ * postérieure n'est livrée, à aucun utilisateur, tant qu'elle reste ouverte. L'âge de la plus
+ * ancienne transaction ouverte est exposé en gauge et journalisé au-delà d'un seuil.
+ */
+@Service
+public class ChangesHorizonMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangesHorizonMonitor.class);
+
+    private final TransactionRepository transactionRepository;
+    private final Duration warnAge;
+    private final AtomicLong horizonAgeSeconds = new AtomicLong();
+
+    public ChangesHorizonMonitor(TransactionRepository transactionRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${transaction-changes.horizon-warn-age:PT1M}") Duration warnAge) {
+        this.transactionRepository = transactionRepository;
+        this.warnAge = warnAge;
+        Gauge.builder("transaction.changes.horizon.age", horizonAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest open database transaction holding back the delta sync horizon")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${transaction-changes.horizon-check-interval-ms:15000}",
+               fixedDelayString = "${transaction-changes.horizon-check-interval-ms:15000}")
+    public void check() {
+        long age;
+        try {
+            age = transactionRepository.oldestOpenTransactionAgeSeconds();
+        } catch (RuntimeException e) {
+            log.warn("Could not read the delta sync horizon age: {}", e.getMessage());
+            return;
+        }
+        horizonAgeSeconds.set(age);
+        if (age >= warnAge.toSeconds()) {
+            log.warn("Delta sync horizon held back for {}s by an open database transaction: "
+                    + "/transaction/changes delivers no newer write until it ends", age);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package iwaproject.transaction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iwaproject.transaction.dto.MessageResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Diffusion SSE des messages et accusés de lecture des conversations. Les threads de requête
+ * ne font que mettre en file ; une tâche de fond regroupe les rafales en un évènement par
+ * transaction ("messages", tableau JSON) et fusionne les accusés de lecture (seul le plus
+ * récent par participant est écrit en base, puis diffusé une fois écrit).
+ */
+@Service
+public class ConversationDeliveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationDeliveryService.class);
+
+    private static final String UPSERT_READ_SQL = """
+            INSERT INTO transaction_message_read (transaction_id, user_id, last_read_message_id)
+            VALUES (?, ?, ?)
+            ON CONFLICT (transaction_id, user_id) DO UPDATE SET
+                last_read_message_id = GREATEST(transaction_message_read.last_read_message_id,
+                                                EXCLUDED.last_read_message_id)
+            """;
+
+    private record Outgoing(MessageResponse message, List<String> participants) {}
+
+    private record ReceiptKey(Integer transactionId, String userId) {}
+
+    private record Receipt(long messageId, List<String> participants) {}
+
+    private final Queue<Outgoing> outgoing = new ConcurrentLinkedQueue<>();
+    private final Map<ReceiptKey, Receipt> receipts = new ConcurrentHashMap<>();
+
+    private final TransactionSseService sseService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ConversationDeliveryService(TransactionSseService sseService,
+                                       JdbcTemplate jdbcTemplate,
+                                       ObjectMapper objectMapper) {
+        this.sseService = sseService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void enqueueMessage(MessageResponse message, List<String> participants) {
+        outgoing.add(new Outgoing(message, participants));
+    }
+
+    public void enqueueReceipt(Integer transactionId, String userId, long lastReadMessageId, List<String> participants) {
+        receipts.merge(new ReceiptKey(transactionId, userId), new Receipt(lastReadMessageId, participants),
+                (current, update) -> current.messageId() >= update.messageId() ? current : update);
+    }
+
+    @Scheduled(fixedDelayString = "${conversation.delivery-interval-ms:50}")
+    public void flush() {
+        flushMessages();
+        flushReceipts();
+    }
+
+    private void flushMessages() {
+        Map<Integer, List<Outgoing>> byTransaction = new LinkedHashMap<>();
+        Outgoing next;
+        while ((next = outgoing.poll()) != null) {
+            byTransaction.computeIfAbsent(next.message().transactionId(), k -> new ArrayList<>()).add(next);
+        }
+
+        byTransaction.forEach((transactionId, batch) -> {
+            List<MessageResponse> messages = batch.stream().map(Outgoing::message).toList();
+            publish(transactionId, batch.get(0).participants(), "messages", messages);
+        });
+    }
+
+    private void flushReceipts() {
+        if (receipts.isEmpty()) {
+            return;
+        }
+        Map<ReceiptKey, Receipt> drained = new LinkedHashMap<>();
+        for (ReceiptKey key : receipts.keySet()) {
+            Receipt receipt = receipts.remove(key);
+            if (receipt != null) {
+                drained.put(key, receipt);
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_READ_SQL, drained.entrySet().stream()
+                    .map(e -> new Object[] {e.getKey().transactionId(), e.getKey().userId(), e.getValue().messageId()})
+                    .toList());
+        } catch (RuntimeException e) {
+            // Rien n'est diffusé : les accusés sont remis en file (fusionnés avec les plus récents)
+            log.warn("Failed to persist {} read receipts, will retry: {}", drained.size(), e.getMessage());
+            drained.forEach((key, receipt) -> receipts.merge(key, receipt,
+                    (current, failed) -> current.messageId() >= failed.messageId() ? current : failed));
+            return;
+        }
+
+        Map<Integer, Map<String, Long>> readsByTransaction = new LinkedHashMap<>();
+        Map<Integer, List<String>> participantsByTransaction = new LinkedHashMap<>();
+        drained.forEach((key, receipt) -> {
+            readsByTransaction.computeIfAbsent(key.transactionId(), k -> new LinkedHashMap<>())
+                    .put(key.userId(), receipt.messageId());
+            participantsByTransaction.putIfAbsent(key.transactionId(), receipt.participants());
+        });
+        readsByTransaction.forEach((transactionId, reads) ->
+                publish(transactionId, participantsByTransaction.get(transactionId), "read",
+                        Map.of("transactionId", transactionId, "reads", reads)));
+    }
+
+    private void publish(Integer transactionId, List<String> participants, String eventName, Object payload) {
+        try {
+            sseService.publishConversationEvent(transactionId, participants, eventName,
+                    objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            log.error("[SSE] Failed to serialize {} event for transaction {}", eventName, transactionId, e);
+        }
+    }
+}
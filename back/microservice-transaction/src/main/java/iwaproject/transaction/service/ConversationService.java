@@ -0,0 +1,87 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.MessageResponse;
+import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.model.TransactionMessage;
+import iwaproject.transaction.repository.TransactionMessageRepository;
+import iwaproject.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversation entre client et provider d'une transaction : journal de messages append-only,
+ * lu par curseur sur l'identifiant, diffusé via l'infrastructure SSE des transactions.
+ */
+@Service
+public class ConversationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationService.class);
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionMessageRepository messageRepository;
+    private final ConversationDeliveryService deliveryService;
+
+    public ConversationService(TransactionRepository transactionRepository,
+                               TransactionMessageRepository messageRepository,
+                               ConversationDeliveryService deliveryService) {
+        this.transactionRepository = transactionRepository;
+        this.messageRepository = messageRepository;
+        this.deliveryService = deliveryService;
+    }
+
+    public MessageResponse sendMessage(Integer transactionId, String userId, String content) {
+        List<String> participants = requireParticipant(transactionId, userId);
+
+        TransactionMessage saved = messageRepository.save(new TransactionMessage(transactionId, userId, content));
+        log.debug("Message {} sent in transaction {} by {}", saved.getId(), transactionId, userId);
+
+        MessageResponse response = MessageResponse.fromEntity(saved);
+        deliveryService.enqueueMessage(response, participants);
+        return response;
+    }
+
+    /**
+     * Page de messages : avant le curseur "before" (historique, du plus récent au plus ancien),
+     * ou après le curseur "after" (rattrapage, dans l'ordre d'envoi)
+     */
+    public List<MessageResponse> getMessages(Integer transactionId, String userId, Long before, Long after, int limit) {
+        requireParticipant(transactionId, userId);
+
+        List<TransactionMessage> messages = after != null
+            ? messageRepository.findByTransactionIdAndIdGreaterThanOrderByIdAsc(transactionId, after, Limit.of(limit))
+            : messageRepository.findByTransactionIdAndIdLessThanOrderByIdDesc(
+                transactionId, before != null ? before : Long.MAX_VALUE, Limit.of(limit));
+        return messages.stream().map(MessageResponse::fromEntity).toList();
+    }
+
+    public void markRead(Integer transactionId, String userId, long lastReadMessageId) {
+        List<String> participants = requireParticipant(transactionId, userId);
+        if (!messageRepository.existsByTransactionIdAndId(transactionId, lastReadMessageId)) {
+            throw new IllegalArgumentException("Message not found in transaction");
+        }
+        deliveryService.enqueueReceipt(transactionId, userId, lastReadMessageId, participants);
+    }
+
+    private List<String> requireParticipant(Integer transactionId, String userId) {
+        if (userId == null || userId.isBlank()) {
+            throw new IllegalArgumentException("User ID header is missing");
+        }
+        Transaction transaction = transactionRepository.findById(transactionId)
+            .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+        if (!userId.equals(transaction.getIdClient()) && !userId.equals(transaction.getIdProvider())) {
+            throw new IllegalStateException("User not part of transaction");
+        }
+
+        List<String> participants = new ArrayList<>(2);
+        participants.add(transaction.getIdClient());
+        if (transaction.getIdProvider() != null && !transaction.getIdProvider().equals(transaction.getIdClient())) {
+            participants.add(transaction.getIdProvider());
+        }
+        return participants;
+    }
+}
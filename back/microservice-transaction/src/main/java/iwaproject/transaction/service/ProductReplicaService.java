@@ -0,0 +1,182 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.ProductDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Réplica local (en mémoire) du catalogue : id, provider, disponibilité, prix.
+ * Amorcé par un appel groupé au service-catalog puis rafraîchi périodiquement.
+ * La création de transaction valide contre ce réplica et ne rappelle le catalogue
+ * qu'en cas d'absence ou d'entrée expirée.
+ */
+@Service
+public class ProductReplicaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReplicaService.class);
+
+    private record Entry(ProductDTO product, Instant fetchedAt) {}
+
+    private final Map<Integer, Entry> products = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private final CatalogServiceClient catalogServiceClient;
+    private final Duration maxAge;
+    private final Duration missTimeout;
+
+    public ProductReplicaService(CatalogServiceClient catalogServiceClient,
+                                 @Value("${catalog-replica.max-age-ms:60000}") long maxAgeMs,
+                                 @Value("${catalog-replica.miss-timeout-ms:3000}") long missTimeoutMs) {
+        this.catalogServiceClient = catalogServiceClient;
+        this.maxAge = Duration.ofMillis(maxAgeMs);
+        this.missTimeout = Duration.ofMillis(missTimeoutMs);
+    }
+
+    /**
+     * Retourne le produit depuis le réplica, ou l'obtient directement du catalogue en cas d'absence
+     */
+    public ProductDTO getProduct(Integer productId) {
+        Entry entry = products.get(productId);
+        if (entry != null && entry.fetchedAt().plus(maxAge).isAfter(Instant.now())) {
+            return entry.product();
+        }
+
+        log.debug("Product {} missing or stale in local replica, fetching from catalog", productId);
+        ProductDTO product = catalogServiceClient.fetchProductById(productId)
+                .timeout(missTimeout)
+                .block();
+        if (product == null) {
+            throw new IllegalArgumentException("Product not found: " + productId);
+        }
+        put(product);
+        return product;
+    }
+
+    /**
+     * Retourne plusieurs produits : depuis le réplica, les absents étant obtenus en un seul appel au catalogue
+     *
+     * @throws IllegalArgumentException si un produit n'existe pas
+     */
+    public Map<Integer, ProductDTO> getProducts(Collection<Integer> productIds) {
+        List<Integer> misses = new ArrayList<>();
+        Map<Integer, ProductDTO> result = fromReplica(productIds, misses);
+        if (!misses.isEmpty()) {
+            fetchInto(result, misses);
+        }
+
+        for (Integer productId : productIds) {
+            if (!result.containsKey(productId)) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Variante tolérante de {@link #getProducts} : les produits inexistants, ou non obtenus car le
+     * catalogue est indisponible, sont simplement absents du résultat (un seul appel, jamais d'exception)
+     */
+    public Map<Integer, ProductDTO> findProducts(Collection<Integer> productIds) {
+        List<Integer> misses = new ArrayList<>();
+        Map<Integer, ProductDTO> result = fromReplica(productIds, misses);
+        if (!misses.isEmpty()) {
+            try {
+                fetchInto(result, misses);
+            } catch (RuntimeException e) {
+                log.warn("Catalog lookup failed for {} products, returning {} from replica: {}",
+                        misses.size(), result.size(), e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private Map<Integer, ProductDTO> fromReplica(Collection<Integer> productIds, List<Integer> misses) {
+        Map<Integer, ProductDTO> result = new HashMap<>();
+        Instant now = Instant.now();
+        for (Integer productId : productIds) {
+            Entry entry = products.get(productId);
+            if (entry != null && entry.fetchedAt().plus(maxAge).isAfter(now)) {
+                result.put(productId, entry.product());
+            } else {
+                misses.add(productId);
+            }
+        }
+        return result;
+    }
+
+    private void fetchInto(Map<Integer, ProductDTO> result, List<Integer> misses) {
+        log.debug("{} products missing or stale in local replica, fetching from catalog", misses.size());
+        List<ProductDTO> fetched = catalogServiceClient.fetchProductsByIds(misses)
+                .collectList()
+                .timeout(missTimeout)
+                .block();
+        if (fetched != null) {
+            fetched.forEach(product -> {
+                put(product);
+                result.put(product.idService(), product);
+            });
+        }
+    }
+
+    /**
+     * Remplace le contenu du réplica par le catalogue complet (appel asynchrone)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${catalog-replica.refresh-interval-ms:30000}",
+               fixedDelayString = "${catalog-replica.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Instant fetchedAt = Instant.now();
+        catalogServiceClient.fetchAllProducts()
+                .collectList()
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(
+                    list -> replaceAll(list, fetchedAt),
+                    e -> log.warn("Catalog replica refresh failed, keeping {} cached products: {}",
+                            products.size(), e.getMessage())
+                );
+    }
+
+    /**
+     * Supprime un produit du réplica (ex : produit modifié ou supprimé)
+     */
+    public void evict(Integer productId) {
+        products.remove(productId);
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    void replaceAll(List<ProductDTO> catalog, Instant fetchedAt) {
+        // Une entrée obtenue (cas d'absence) après le début du rafraîchissement est plus récente : conservée
+        catalog.forEach(product -> products.merge(product.idService(), new Entry(product, fetchedAt),
+                (current, incoming) -> current.fetchedAt().isAfter(incoming.fetchedAt()) ? current : incoming));
+        // Les produits absents du catalogue complet ont été supprimés
+        products.entrySet().removeIf(e -> e.getValue().fetchedAt().isBefore(fetchedAt));
+        log.info("Catalog replica refreshed: {} products", products.size());
+    }
+
+    private void put(ProductDTO product) {
+        if (product.idService() != null) {
+            products.put(product.idService(), new Entry(product, Instant.now()));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.ProductDTO;
+import iwaproject.transaction.dto.TransactionResponse;
+import iwaproject.transaction.dto.UserPublicDTO;
+import iwaproject.transaction.enums.Expansion;
+import iwaproject.transaction.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Enrichit une page de transactions (produit, profil de l'interlocuteur) : les identifiants
+ * de la page sont collectés puis résolus par un appel groupé à chaque service, lancés en parallèle.
+ * Les produits viennent du réplica du catalogue ; les profils d'un cache local à durée de vie courte.
+ * Une dépendance indisponible laisse le champ correspondant à null plutôt que d'échouer la liste.
+ */
+@Service
+public class TransactionEnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionEnrichmentService.class);
+
+    private record CachedProfile(UserPublicDTO profile, Instant fetchedAt) {}
+
+    // LRU borné : au-delà de profileCacheMaxSize, le profil le moins récemment lu est évincé
+    private final Map<String, CachedProfile> profiles;
+
+    private final ProductReplicaService productReplicaService;
+    private final UserServiceClient userServiceClient;
+    private final Duration profileTtl;
+    private final Duration timeout;
+
+    public TransactionEnrichmentService(ProductReplicaService productReplicaService,
+                                        UserServiceClient userServiceClient,
+                                        @Value("${transaction-expand.profile-ttl-ms:30000}") long profileTtlMs,
+                                        @Value("${transaction-expand.profile-cache-max-size:10000}") int profileCacheMaxSize,
+                                        @Value("${transaction-expand.timeout-ms:2000}") long timeoutMs) {
+        this.productReplicaService = productReplicaService;
+        this.userServiceClient = userServiceClient;
+        this.profileTtl = Duration.ofMillis(profileTtlMs);
+        this.profiles = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedProfile> eldest) {
+                return size() > profileCacheMaxSize;
+            }
+        });
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    public List<TransactionResponse> expand(List<Transaction> transactions, String userId,
+                                            Set<Expansion> expansions, String authorization) {
+        if (transactions.isEmpty() || expansions.isEmpty()) {
+            return transactions.stream().map(TransactionResponse::fromEntity).toList();
+        }
+
+        // Lancer l'appel profils en premier : il s'exécute pendant la résolution des produits
+        CompletableFuture<Map<String, UserPublicDTO>> profilesFuture = expansions.contains(Expansion.COUNTERPART)
+            ? fetchProfiles(counterpartIds(transactions, userId), authorization)
+            : CompletableFuture.completedFuture(Map.of());
+
+        Map<Integer, ProductDTO> products = expansions.contains(Expansion.PRODUCT)
+            ? resolveProducts(transactions)
+            : Map.of();
+        Map<String, UserPublicDTO> counterparts = profilesFuture.join();
+
+        return transactions.stream()
+            .map(t -> TransactionResponse.fromEntity(t,
+                    products.get(t.getIdService()),
+                    counterparts.get(counterpartOf(t, userId))))
+            .toList();
+    }
+
+    private Map<Integer, ProductDTO> resolveProducts(List<Transaction> transactions) {
+        Set<Integer> serviceIds = new LinkedHashSet<>();
+        transactions.forEach(t -> serviceIds.add(t.getIdService()));
+        // Un seul appel groupé : produit supprimé ou catalogue indisponible laisse le champ à null
+        return productReplicaService.findProducts(serviceIds);
+    }
+
+    private CompletableFuture<Map<String, UserPublicDTO>> fetchProfiles(Collection<String> userIds, String authorization) {
+        Map<String, UserPublicDTO> cached = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        Instant now = Instant.now();
+        for (String id : userIds) {
+            CachedProfile entry = profiles.get(id);
+            if (entry != null && entry.fetchedAt().plus(profileTtl).isAfter(now)) {
+                cached.put(id, entry.profile());
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return userServiceClient.fetchPublicProfiles(misses, authorization)
+            .collectList()
+            .timeout(timeout)
+            .map(fetched -> {
+                Instant fetchedAt = Instant.now();
+                fetched.forEach(profile -> {
+                    profiles.put(profile.id(), new CachedProfile(profile, fetchedAt));
+                    cached.put(profile.id(), profile);
+                });
+                return cached;
+            })
+            .onErrorResume(e -> {
+                log.warn("Counterpart expansion failed for {} users: {}", misses.size(), e.getMessage());
+                return Mono.just(cached);
+            })
+            .toFuture();
+    }
+
+    private static Set<String> counterpartIds(List<Transaction> transactions, String userId) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Transaction t : transactions) {
+            String counterpart = counterpartOf(t, userId);
+            if (counterpart != null) {
+                ids.add(counterpart);
+            }
+        }
+        return ids;
+    }
+
+    private static String counterpartOf(Transaction transaction, String userId) {
+        return userId.equals(transaction.getIdClient()) ? transaction.getIdProvider() : transaction.getIdClient();
+    }
+}
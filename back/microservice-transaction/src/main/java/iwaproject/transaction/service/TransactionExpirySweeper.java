@@ -0,0 +1,122 @@
+package iwaproject.transaction.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Annule périodiquement les transactions restées en EXCHANGING ou REQUESTED au-delà d'un âge maximal.
+ * Les lignes sont traitées par petits lots verrouillés avec FOR UPDATE SKIP LOCKED : plusieurs
+ * réplicas peuvent balayer en parallèle sans se bloquer ni traiter deux fois la même ligne.
+ */
+@Service
+@ConditionalOnProperty(name = "transaction-expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionExpirySweeper.class);
+
+    static final String SWEEPER_ACTOR = "system:expiry";
+
+    static final List<String> EXPIRABLE_STATES = List.of(
+        TransitionState.EXCHANGING.name(),
+        TransitionState.REQUESTED.name()
+    );
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionSseService sseService;
+    private final TransitionJournalService journalService;
+    private final UserTransactionStatsService statsService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter canceledCounter;
+    private final DistributionSummary rowsPerRun;
+
+    public TransactionExpirySweeper(TransactionRepository transactionRepository,
+                                    TransactionSseService sseService,
+                                    TransitionJournalService journalService,
+                                    UserTransactionStatsService statsService,
+                                    TransactionTemplate transactionTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${transaction-expiry.max-age:P7D}") Duration maxAge,
+                                    @Value("${transaction-expiry.batch-size:100}") int batchSize,
+                                    @Value("${transaction-expiry.max-batches-per-run:50}") int maxBatchesPerRun) {
+        this.transactionRepository = transactionRepository;
+        this.sseService = sseService;
+        this.journalService = journalService;
+        this.statsService = statsService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.canceledCounter = Counter.builder("transaction.expiry.canceled")
+                .description("Stale transactions canceled by the expiry sweeper")
+                .register(meterRegistry);
+        this.rowsPerRun = DistributionSummary.builder("transaction.expiry.rows.per.run")
+                .description("Transactions canceled per sweeper run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${transaction-expiry.interval-ms:300000}",
+               fixedDelayString = "${transaction-expiry.interval-ms:300000}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        int total = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Expired> canceled = cancelBatch(cutoff);
+            // Journaliser et notifier après commit, hors du verrou
+            canceled.forEach(expired -> {
+                journalService.recordTransition(expired.transaction(), expired.fromState(),
+                        expired.fromStateEnteredAt(), SWEEPER_ACTOR);
+                sseService.notifyTransactionUpdate(expired.transaction());
+            });
+            total += canceled.size();
+            if (canceled.size() < batchSize) {
+                break;
+            }
+        }
+
+        rowsPerRun.record(total);
+        if (total > 0) {
+            canceledCounter.increment(total);
+            log.info("Expiry sweeper canceled {} transactions created before {}", total, cutoff);
+        }
+    }
+
+    private record Expired(Transaction transaction, TransitionState fromState, LocalDateTime fromStateEnteredAt) {}
+
+    private List<Expired> cancelBatch(LocalDateTime cutoff) {
+        List<Expired> canceled = transactionTemplate.execute(status -> {
+            List<Transaction> stale = transactionRepository.lockStaleBatch(EXPIRABLE_STATES, cutoff, batchSize);
+            LocalDateTime now = LocalDateTime.now();
+            List<Expired> expired = stale.stream()
+                    .map(transaction -> new Expired(transaction, transaction.getTransactionState(),
+                            transaction.getStateChangedAt()))
+                    .toList();
+            stale.forEach(transaction -> {
+                transaction.setTransactionState(TransitionState.CANCELED);
+                transaction.setFinishDate(now);
+            });
+            transactionRepository.flush();
+            expired.forEach(e -> statsService.onStateChanged(e.transaction(), e.fromState()));
+            return expired;
+        });
+        return canceled != null ? canceled : List.of();
+    }
+}
@@ -1,45 +1,82 @@
 package iwaproject.transaction.service;
 
+import iwaproject.transaction.dto.CreateTransactionBatchRequest;
 import iwaproject.transaction.dto.CreateTransactionRequest;
 import iwaproject.transaction.dto.ProductDTO;
+import iwaproject.transaction.dto.TransactionCursor;
 import iwaproject.transaction.dto.UpdateStateRequest;
+import iwaproject.transaction.enums.StateFilter;
 import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.exception.IdempotencyKeyReusedException;
 import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.model.TransactionChanges;
+import iwaproject.transaction.repository.TransactionBatchRepository;
 import iwaproject.transaction.repository.TransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
     
     private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
     
     private final TransactionRepository transactionRepository;
-    private final CatalogServiceClient catalogServiceClient;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final ProductReplicaService productReplicaService;
     private final TransactionSseService sseService;
+    private final TransitionJournalService journalService;
+    private final UserTransactionStatsService statsService;
+    private final TransactionTemplate transactionTemplate;
     
     public TransactionService(TransactionRepository transactionRepository,
-                             CatalogServiceClient catalogServiceClient,
-                             TransactionSseService sseService) {
+                             TransactionBatchRepository transactionBatchRepository,
+                             ProductReplicaService productReplicaService,
+                             TransactionSseService sseService,
+                             TransitionJournalService journalService,
+                             UserTransactionStatsService statsService,
+                             TransactionTemplate transactionTemplate) {
         this.transactionRepository = transactionRepository;
-        this.catalogServiceClient = catalogServiceClient;
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.productReplicaService = productReplicaService;
         this.sseService = sseService;
+        this.journalService = journalService;
+        this.statsService = statsService;
+        this.transactionTemplate = transactionTemplate;
     }
     
-    @Transactional
-    public Transaction createTransaction(CreateTransactionRequest request, String userIdFromHeader) {
+    /**
+     * Crée une transaction. L'unicité "une transaction active par client/service" et l'idempotence
+     * sont garanties par des index uniques en base : pas de lecture préalable ni de verrou.
+     */
+    public Transaction createTransaction(CreateTransactionRequest request, String userIdFromHeader, String idempotencyKey) {
         String userId = validateUserId(userIdFromHeader);
         
-        log.info("Creating transaction for userId={} (from JWT), serviceId={}", 
-                userId, request.serviceId());
+        log.info("Creating transaction for userId={} (from JWT), serviceId={}, idempotencyKey={}", 
+                userId, request.serviceId(), idempotencyKey);
+        
+        // Rejeu d'une requête déjà traitée
+        if (idempotencyKey != null) {
+            Optional<Transaction> replay = transactionRepository.findByIdClientAndCreationKey(userId, idempotencyKey);
+            if (replay.isPresent()) {
+                log.info("Idempotent replay of transaction creation: id={}", replay.get().getId());
+                return checkReplay(replay.get(), request.serviceId());
+            }
+        }
         
-        // Récupérer le produit depuis le service-catalog via gateway
-        ProductDTO product = catalogServiceClient.getProductById(request.serviceId());
+        // Récupérer le produit depuis le réplica local (appel au catalogue seulement en cas d'absence)
+        ProductDTO product = productReplicaService.getProduct(request.serviceId());
         
         // Vérifier la disponibilité
         if (product.isAvailable() == null || !product.isAvailable()) {
@@ -50,25 +87,10 @@ public class TransactionService {
         log.info("#debuglog Product {} is available, idProvider={}", 
                 request.serviceId(), product.idProvider());
         
-        // Vérifier qu'aucune transaction active n'existe déjà
-        transactionRepository.findByIdClientAndIdServiceAndTransactionStateNotIn(
-            userId,
-            request.serviceId(),
-            java.util.List.of(TransitionState.FINISHED_AND_PAYED, TransitionState.CANCELED)
-        ).ifPresent(existingTransaction -> {
-            throw new IllegalStateException(
-                "Active transaction already exists (id=" + existingTransaction.getId() + ")"
-            );
-        });
-        
         TransitionState initialState = request.directRequest() 
             ? TransitionState.REQUESTED 
             : TransitionState.EXCHANGING;
         
-        // Hook pour création de conversation (non implémenté)
-        log.info("#debuglog Conversation creation hook triggered for client={} and provider={} - NOT IMPLEMENTED YET",
-                userId, product.idProvider());
-        
         // Créer transaction avec idProvider du produit (String)
         Transaction transaction = new Transaction(
             initialState,
@@ -76,17 +98,144 @@ public class TransactionService {
             userId,
             product.idProvider()
         );
+        transaction.setCreationKey(idempotencyKey);
         
-        Transaction saved = transactionRepository.save(transaction);
+        Transaction saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Transaction inserted = transactionRepository.saveAndFlush(transaction);
+                statsService.onCreated(inserted);
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException e) {
+            return resolveCreationConflict(userId, request.serviceId(), idempotencyKey);
+        }
         log.info("Transaction created: id={}, state={}, provider={}", 
                 saved.getId(), initialState, product.idProvider());
         
+        journalService.recordCreation(saved, userId);
+        
         // Notifier via SSE
         sseService.notifyTransactionUpdate(saved);
         
         return saved;
     }
     
+    /**
+     * Crée plusieurs transactions en une requête (panier multi-services) : produits résolus en un appel,
+     * doublons vérifiés en une requête, insertion en un lot JDBC dans une seule transaction base de données.
+     * Tout ou rien : si un service n'est pas disponible ou déjà en cours, aucune transaction n'est créée.
+     */
+    public List<Transaction> createTransactions(CreateTransactionBatchRequest request, String userIdFromHeader,
+                                                String idempotencyKey) {
+        String userId = validateUserId(userIdFromHeader);
+        List<Integer> serviceIds = request.serviceIds();
+        
+        log.info("Creating {} transactions for userId={} (from JWT), serviceIds={}", 
+                serviceIds.size(), userId, serviceIds);
+        
+        // Rejeu d'une requête déjà traitée
+        if (idempotencyKey != null) {
+            List<String> keys = serviceIds.stream().map(id -> batchItemKey(idempotencyKey, id)).toList();
+            List<Transaction> replay = transactionRepository.findByIdClientAndCreationKeyIn(userId, keys);
+            if (!replay.isEmpty()) {
+                // Un lot est créé en entier ou pas du tout : un rejeu partiel vient d'une autre liste de services
+                if (replay.size() != serviceIds.size()) {
+                    throw new IdempotencyKeyReusedException("Idempotency key already used for other services");
+                }
+                log.info("Idempotent replay of batch creation: {} transactions", replay.size());
+                return replay;
+            }
+        }
+        
+        Map<Integer, ProductDTO> products = productReplicaService.getProducts(serviceIds);
+        List<Integer> unavailable = serviceIds.stream()
+            .filter(id -> !Boolean.TRUE.equals(products.get(id).isAvailable()))
+            .toList();
+        if (!unavailable.isEmpty()) {
+            throw new IllegalStateException("Products are not available for purchase: " + unavailable);
+        }
+        
+        ensureNoActiveTransactions(userId, serviceIds);
+        
+        TransitionState initialState = request.directRequest() 
+            ? TransitionState.REQUESTED 
+            : TransitionState.EXCHANGING;
+        List<Transaction> transactions = serviceIds.stream()
+            .map(serviceId -> {
+                Transaction transaction = new Transaction(initialState, serviceId, userId,
+                        products.get(serviceId).idProvider());
+                if (idempotencyKey != null) {
+                    transaction.setCreationKey(batchItemKey(idempotencyKey, serviceId));
+                }
+                return transaction;
+            })
+            .toList();
+        
+        List<Transaction> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                List<Integer> ids = transactionBatchRepository.insertAll(transactions);
+                Map<Integer, Transaction> byId = transactionRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+                List<Transaction> inserted = ids.stream().map(byId::get).toList();
+                statsService.onCreatedAll(inserted);
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Un insert concurrent a gagné entre la vérification et l'insertion
+            ensureNoActiveTransactions(userId, serviceIds);
+            throw new IllegalStateException("Active transaction already exists for one of the services");
+        }
+        log.info("Batch created {} transactions for user {}", saved.size(), userId);
+        
+        saved.forEach(transaction -> journalService.recordCreation(transaction, userId));
+        sseService.notifyTransactionsCreated(saved);
+        
+        return saved;
+    }
+    
+    private void ensureNoActiveTransactions(String userId, List<Integer> serviceIds) {
+        List<Transaction> active = transactionRepository.findByIdClientAndIdServiceInAndTransactionStateNotIn(
+            userId, serviceIds, TransitionState.FINISHED_STATES);
+        if (!active.isEmpty()) {
+            throw new IllegalStateException("Active transaction already exists (ids=" 
+                + active.stream().map(Transaction::getId).toList() + ")");
+        }
+    }
+    
+    /**
+     * Une clé d'idempotence réutilisée pour un autre service n'est pas un rejeu
+     */
+    private static Transaction checkReplay(Transaction replay, Integer serviceId) {
+        if (!replay.getIdService().equals(serviceId)) {
+            throw new IdempotencyKeyReusedException("Idempotency key already used for service " + replay.getIdService());
+        }
+        return replay;
+    }
+    
+    private static String batchItemKey(String idempotencyKey, Integer serviceId) {
+        return idempotencyKey + ":" + serviceId;
+    }
+    
+    /**
+     * Un insert concurrent a gagné : soit le même appel rejoué (même clé), soit une autre transaction active
+     */
+    private Transaction resolveCreationConflict(String userId, Integer serviceId, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Optional<Transaction> replay = transactionRepository.findByIdClientAndCreationKey(userId, idempotencyKey);
+            if (replay.isPresent()) {
+                log.info("Concurrent idempotent creation resolved to transaction {}", replay.get().getId());
+                return checkReplay(replay.get(), serviceId);
+            }
+        }
+        String existingId = transactionRepository.findByIdClientAndIdServiceAndTransactionStateNotIn(
+                userId, serviceId, TransitionState.FINISHED_STATES)
+            .map(existing -> String.valueOf(existing.getId()))
+            .orElse("unknown");
+        throw new IllegalStateException("Active transaction already exists (id=" + existingId + ")");
+    }
+    
     public Transaction getTransaction(Integer id) {
         log.debug("Fetching transaction with id={}", id);
         return transactionRepository.findById(id)
@@ -94,37 +243,119 @@ public class TransactionService {
     }
     
     /**
-     * Récupère toutes les transactions d'un utilisateur (en tant que client ou provider)
+     * Récupère une page de transactions d'un utilisateur (en tant que client ou provider),
+     * à partir du curseur donné, filtrée par état
      */
-    public List<Transaction> getTransactionsByUser(String userId) {
-        log.debug("Fetching transactions for user={}", userId);
-        return transactionRepository.findByIdClientOrIdProviderOrderByCreationDateDesc(userId, userId);
+    public List<Transaction> getTransactionsByUser(String userId, StateFilter filter,
+                                                   TransactionCursor cursor, int limit) {
+        log.debug("Fetching transactions for user={}, filter={}, cursor={}, limit={}", userId, filter, cursor, limit);
+        return transactionRepository.findPageByUser(
+            userId, filter.stateNames(), cursor.creationDate(), cursor.id(), limit);
     }
     
-    @Transactional
-    public Transaction updateState(Integer transactionId, UpdateStateRequest request, String userIdFromHeader) {
+    /**
+     * Récupère les transactions d'un utilisateur écrites depuis la position donnée. Seules les
+     * écritures des transactions base antérieures à la plus ancienne encore en cours sont livrées :
+     * une écriture validée plus tard reçoit toujours une position supérieure au highWaterMark rendu.
+     * Les lignes écrites par une même transaction base ne sont jamais réparties sur deux pages.
+     * Une transaction base longue ou "idle in transaction" n'importe où sur l'instance retient
+     * l'horizon, pour tous les utilisateurs, jusqu'à sa fin (voir ChangesHorizonMonitor).
+     */
+    public TransactionChanges getChangesByUser(String userId, long since, int limit) {
+        log.debug("Fetching transaction changes for user={} since={}, limit={}", userId, since, limit);
+        // Horizon lu avant les lignes : tout ce qui est en dessous est terminé et donc visible ensuite
+        long horizon = transactionRepository.currentSnapshotXmin();
+        List<Transaction> changes = transactionRepository.findChangesByUser(userId, since, horizon, limit);
+        if (changes.size() < limit) {
+            return new TransactionChanges(changes, Math.max(since, horizon), false);
+        }
+        
+        long lastXid = changes.get(changes.size() - 1).getUpdateXid();
+        List<Transaction> complete = changes.stream()
+                .filter(t -> t.getUpdateXid() < lastXid)
+                .toList();
+        if (complete.isEmpty()) {
+            // Page entièrement occupée par une seule transaction base : on la livre en entier
+            return new TransactionChanges(
+                    transactionRepository.findChangesByUserAndXid(userId, lastXid), lastXid + 1, true);
+        }
+        return new TransactionChanges(complete, lastXid, true);
+    }
+    
+    /**
+     * Met à jour l'état d'une transaction. Les écritures concurrentes sont détectées par la colonne
+     * de version et l'opération est rejouée sur l'état à jour ; une clé d'idempotence déjà appliquée
+     * renvoie l'état courant sans nouvelle transition.
+     */
+    public Transaction updateState(Integer transactionId, UpdateStateRequest request, String userIdFromHeader,
+                                   String idempotencyKey) {
         String userId = validateUserId(userIdFromHeader);
         
         log.info("Updating transaction {} state to {} by user {} (from JWT)", 
                 transactionId, request.newState(), userId);
         
-        Transaction transaction = getTransaction(transactionId);
-        TransitionState currentState = transaction.getTransactionState();
-        TransitionState newState = request.newState();
-        
-        validateStateTransition(transaction, currentState, newState, userId);
-        
-        transaction.setTransactionState(newState);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return applyStateUpdate(transactionId, request.newState(), userId, idempotencyKey);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("Concurrent update on transaction {}, retrying (attempt {})", transactionId, attempt + 1);
+            }
+        }
+    }
+    
+    private record AppliedUpdate(Transaction transaction, TransitionState fromState, LocalDateTime fromStateEnteredAt,
+                                 boolean viaDoubleConfirmation) {}
+    
+    private Transaction applyStateUpdate(Integer transactionId, TransitionState newState, String userId,
+                                         String idempotencyKey) {
+        AppliedUpdate applied = transactionTemplate.execute(status -> {
+            Transaction transaction = getTransaction(transactionId);
+            if (idempotencyKey != null && idempotencyKey.equals(transaction.getLastUpdateKey())) {
+                log.info("Idempotent replay of state update on transaction {}", transactionId);
+                return new AppliedUpdate(transaction, null, null, false);
+            }
+            
+            TransitionState currentState = transaction.getTransactionState();
+            LocalDateTime currentStateEnteredAt = transaction.getStateChangedAt();
+            
+            validateStateTransition(transaction, currentState, newState, userId);
+            
+            transaction.setTransactionState(newState);
+            transaction.setLastUpdateKey(idempotencyKey);
+            
+            switch (newState) {
+                case REQUEST_ACCEPTED -> transaction.setRequestValidationDate(LocalDateTime.now());
+                case CLIENT_CONFIRMED, PROVIDER_CONFIRMED -> handleConfirmation(transaction, currentState, userId);
+                case DOUBLE_CONFIRMED -> handleDoubleConfirmation(transaction);
+                case FINISHED_AND_PAYED, CANCELED -> transaction.setFinishDate(LocalDateTime.now());
+            }
+            
+            // Seule la seconde confirmation mène au-delà de l'état demandé (via DOUBLE_CONFIRMED)
+            boolean viaDoubleConfirmation = transaction.getTransactionState() != newState;
+            
+            Transaction saved = transactionRepository.saveAndFlush(transaction);
+            statsService.onStateChanged(saved, currentState);
+            return new AppliedUpdate(saved, currentState, currentStateEnteredAt, viaDoubleConfirmation);
+        });
         
-        switch (newState) {
-            case REQUEST_ACCEPTED -> transaction.setRequestValidationDate(LocalDateTime.now());
-            case CLIENT_CONFIRMED, PROVIDER_CONFIRMED -> handleConfirmation(transaction, userId);
-            case DOUBLE_CONFIRMED -> handleDoubleConfirmation(transaction);
-            case FINISHED_AND_PAYED, CANCELED -> transaction.setFinishDate(LocalDateTime.now());
+        Transaction saved = applied.transaction();
+        if (applied.fromState() == null) {
+            return saved;
         }
+        log.info("Transaction {} state changed: {} -> {}", transactionId, applied.fromState(), saved.getTransactionState());
         
-        Transaction saved = transactionRepository.save(transaction);
-        log.info("Transaction {} state changed: {} -> {}", transactionId, currentState, saved.getTransactionState());
+        if (applied.viaDoubleConfirmation()) {
+            // DOUBLE_CONFIRMED est traversé dans la même écriture : journalisé avec un temps de séjour nul
+            journalService.recordTransition(saved, applied.fromState(), TransitionState.DOUBLE_CONFIRMED,
+                    applied.fromStateEnteredAt(), userId);
+            journalService.recordTransition(saved, TransitionState.DOUBLE_CONFIRMED, saved.getTransactionState(),
+                    saved.getStateChangedAt(), userId);
+        } else {
+            journalService.recordTransition(saved, applied.fromState(), applied.fromStateEnteredAt(), userId);
+        }
         
         // Notifier via SSE
         sseService.notifyTransactionUpdate(saved);
@@ -196,7 +427,7 @@ public class TransactionService {
         }
     }
     
-    private void handleConfirmation(Transaction transaction, String userId) {
+    private void handleConfirmation(Transaction transaction, TransitionState current, String userId) {
         boolean isClient = userId.equals(transaction.getIdClient());
         boolean isProvider = userId.equals(transaction.getIdProvider());
         
@@ -204,28 +435,23 @@ public class TransactionService {
             throw new IllegalStateException("User not part of transaction");
         }
         
-        TransitionState current = transaction.getTransactionState();
-        
         if (current != TransitionState.PREPAID && 
             current != TransitionState.CLIENT_CONFIRMED && 
             current != TransitionState.PROVIDER_CONFIRMED) {
             throw new IllegalStateException("Can only confirm from PREPAID state");
         }
         
-        if (current == TransitionState.CLIENT_CONFIRMED && isProvider) {
-            transaction.setTransactionState(TransitionState.DOUBLE_CONFIRMED);
-        } else if (current == TransitionState.PROVIDER_CONFIRMED && isClient) {
+        // La seconde confirmation (quel que soit l'ordre d'arrivée) finalise la transaction
+        if ((current == TransitionState.CLIENT_CONFIRMED && isProvider)
+                || (current == TransitionState.PROVIDER_CONFIRMED && isClient)) {
             transaction.setTransactionState(TransitionState.DOUBLE_CONFIRMED);
+            handleDoubleConfirmation(transaction);
         }
     }
     
+    // Exécuté dans la transaction de mise à jour (verrou de ligne, connexion) : aucun appel bloquant ici
     private void handleDoubleConfirmation(Transaction transaction) {
         log.info("Both parties confirmed transaction {}, processing payment...", transaction.getId());
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
         transaction.setTransactionState(TransitionState.FINISHED_AND_PAYED);
         transaction.setFinishDate(LocalDateTime.now());
         log.info("Transaction {} finalized and paid", transaction.getId());
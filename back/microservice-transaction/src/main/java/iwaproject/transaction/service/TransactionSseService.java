@@ -8,6 +8,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -141,13 +143,60 @@ public class TransactionSseService {
         }
     }
 
+    /**
+     * Notifier la création de plusieurs transactions : un seul évènement "transactions"
+     * (tableau JSON) par utilisateur concerné
+     */
+    public void notifyTransactionsCreated(List<Transaction> transactions) {
+        Map<String, List<String>> jsonByUser = new LinkedHashMap<>();
+        for (Transaction t : transactions) {
+            String json = transactionToJson(t);
+            jsonByUser.computeIfAbsent(t.getIdClient(), k -> new ArrayList<>()).add(json);
+            if (t.getIdProvider() != null && !t.getIdProvider().equals(t.getIdClient())) {
+                jsonByUser.computeIfAbsent(t.getIdProvider(), k -> new ArrayList<>()).add(json);
+            }
+        }
+
+        log.info("[SSE] Broadcasting {} created transactions to {} users", transactions.size(), jsonByUser.size());
+
+        jsonByUser.forEach((userId, jsons) -> {
+            List<SseEmitter> emitters = userEmitters.get(userId);
+            if (emitters != null) {
+                sendEventToEmitters(emitters, "transactions", "[" + String.join(",", jsons) + "]");
+            }
+        });
+    }
+
+    /**
+     * Publier un évènement de conversation aux abonnés de la transaction et aux participants
+     */
+    public void publishConversationEvent(Integer transactionId, List<String> participantIds,
+                                         String eventName, String data) {
+        List<SseEmitter> txEmitters = transactionEmitters.get(transactionId);
+        if (txEmitters != null) {
+            sendEventToEmitters(txEmitters, eventName, data);
+        }
+        if (participantIds != null) {
+            for (String userId : participantIds) {
+                List<SseEmitter> emitters = userEmitters.get(userId);
+                if (emitters != null) {
+                    sendEventToEmitters(emitters, eventName, data);
+                }
+            }
+        }
+    }
+
     private void sendToEmitters(List<SseEmitter> emitters, String data, Integer transactionId) {
+        sendEventToEmitters(emitters, "message", data);
+    }
+
+    private void sendEventToEmitters(List<SseEmitter> emitters, String eventName, String data) {
         List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
         
         for (SseEmitter emitter : emitters) {
             try {
                 emitter.send(SseEmitter.event()
-                        .name("message")
+                        .name(eventName)
                         .data(data));
             } catch (IOException e) {
                 log.warn("[SSE] Failed to send to emitter, marking for removal");
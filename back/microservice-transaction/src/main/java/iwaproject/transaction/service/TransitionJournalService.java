@@ -0,0 +1,169 @@
+package iwaproject.transaction.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.model.TransactionTransition;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Journal des transitions d'état. Les transitions sont mises en file en mémoire (sans écriture
+ * sur le chemin de la requête) puis écrites par lots JDBC par une tâche de fond. Le temps passé
+ * dans chaque état est exporté sous forme d'histogramme Micrometer.
+ */
+@Service
+public class TransitionJournalService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransitionJournalService.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO transaction_transition (transaction_id, from_state, to_state, actor, transitioned_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<TransactionTransition> pending;
+    private final int batchSize;
+    private final Map<TransitionState, Timer> dwellTimers = new EnumMap<>(TransitionState.class);
+    private final int maxAttempts;
+    private final Counter droppedCounter;
+
+    // Lot en échec conservé pour la prochaine passe (au plus un lot, au plus maxAttempts essais)
+    private List<TransactionTransition> failedBatch = List.of();
+    private int failedAttempts;
+
+    public TransitionJournalService(JdbcTemplate jdbcTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${transition-journal.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${transition-journal.batch-size:500}") int batchSize,
+                                    @Value("${transition-journal.max-attempts:5}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pending = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+
+        for (TransitionState state : TransitionState.values()) {
+            dwellTimers.put(state, Timer.builder("transaction.state.dwell")
+                    .description("Time spent by transactions in a state before leaving it")
+                    .tag("state", state.name())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofSeconds(1))
+                    .maximumExpectedValue(Duration.ofDays(30))
+                    .register(meterRegistry));
+        }
+        this.droppedCounter = Counter.builder("transaction.journal.dropped")
+                .description("Transitions dropped because the journal queue was full")
+                .register(meterRegistry);
+        Gauge.builder("transaction.journal.pending", pending, BlockingQueue::size)
+                .description("Transitions waiting to be written to the journal")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre la création d'une transaction (entrée dans son état initial)
+     */
+    public void recordCreation(Transaction transaction, String actor) {
+        enqueue(new TransactionTransition(transaction.getId(), null, transaction.getTransactionState(),
+                actor, transaction.getStateChangedAt()));
+    }
+
+    /**
+     * Enregistre une transition déjà committée, et le temps passé dans l'état quitté
+     */
+    public void recordTransition(Transaction transaction, TransitionState fromState,
+                                 LocalDateTime fromStateEnteredAt, String actor) {
+        recordTransition(transaction, fromState, transaction.getTransactionState(), fromStateEnteredAt, actor);
+    }
+
+    /**
+     * Enregistre une étape d'une transition committée, pour les états intermédiaires traversés
+     * dans la même écriture (l'état courant de la transaction n'est alors pas toState)
+     */
+    public void recordTransition(Transaction transaction, TransitionState fromState, TransitionState toState,
+                                 LocalDateTime fromStateEnteredAt, String actor) {
+        LocalDateTime at = transaction.getStateChangedAt();
+        if (fromStateEnteredAt != null && at != null) {
+            dwellTimers.get(fromState).record(Duration.between(fromStateEnteredAt, at));
+        }
+        enqueue(new TransactionTransition(transaction.getId(), fromState, toState, actor, at));
+    }
+
+    private void enqueue(TransactionTransition transition) {
+        if (!pending.offer(transition)) {
+            droppedCounter.increment();
+            log.warn("Transition journal queue full, dropping {} -> {} for transaction {}",
+                    transition.fromState(), transition.toState(), transition.transactionId());
+        }
+    }
+
+    /**
+     * Écrit les transitions en attente. Un lot en échec (base indisponible) est rejoué en tête de la
+     * passe suivante ; il n'est abandonné qu'après maxAttempts essais, la file continuant de se
+     * remplir jusqu'à sa capacité entre-temps.
+     */
+    @Scheduled(fixedDelayString = "${transition-journal.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (!failedBatch.isEmpty()) {
+            if (!write(failedBatch)) {
+                if (++failedAttempts < maxAttempts) {
+                    return;
+                }
+                droppedCounter.increment(failedBatch.size());
+                log.error("Dropping {} transitions after {} failed journal writes", failedBatch.size(), failedAttempts);
+            }
+            failedBatch = List.of();
+            failedAttempts = 0;
+        }
+
+        List<TransactionTransition> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            if (!write(batch)) {
+                failedBatch = List.copyOf(batch);
+                failedAttempts = 1;
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private boolean write(List<TransactionTransition> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, t) -> {
+                ps.setInt(1, t.transactionId());
+                ps.setString(2, t.fromState() != null ? t.fromState().name() : null);
+                ps.setString(3, t.toState().name());
+                ps.setString(4, t.actor());
+                ps.setTimestamp(5, Timestamp.valueOf(t.transitionedAt()));
+            });
+            log.debug("Transition journal flushed {} rows", batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} transitions to the journal, will retry: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,52 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.UserPublicDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+@Service
+public class UserServiceClient {
+
+    private static final Logger log = LoggerFactory.getLogger(UserServiceClient.class);
+
+    private final WebClient webClient;
+    private final String userBasePath;
+
+    public UserServiceClient(
+            @Value("${user-service.url}") String userServiceUrl,
+            @Value("${user-service.path}") String userPath,
+            WebClient.Builder webClientBuilder) {
+        this.userBasePath = userPath;
+        this.webClient = webClientBuilder
+                .baseUrl(userServiceUrl)
+                .build();
+        log.info("UserServiceClient initialized with user service URL: {}", userServiceUrl);
+    }
+
+    /**
+     * Récupère plusieurs profils publics en un seul appel, avec le jeton de l'appelant
+     * (les ID inconnus sont absents du résultat)
+     */
+    public Flux<UserPublicDTO> fetchPublicProfiles(Collection<String> userIds, String authorization) {
+        log.debug("Calling user service: POST {}/batch for {} users", userBasePath, userIds.size());
+
+        return webClient.post()
+                .uri(userBasePath + "/batch")
+                .headers(headers -> {
+                    if (authorization != null) {
+                        headers.set(HttpHeaders.AUTHORIZATION, authorization);
+                    }
+                })
+                .bodyValue(userIds)
+                .retrieve()
+                .bodyToFlux(UserPublicDTO.class)
+                .onErrorMap(e -> new RuntimeException("Failed to retrieve profiles from user service", e));
+    }
+}
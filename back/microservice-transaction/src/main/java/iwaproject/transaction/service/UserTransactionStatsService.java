@@ -0,0 +1,177 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.UserTransactionStatsResponse;
+import iwaproject.transaction.dto.UserTransactionStatsResponse.RoleStats;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projection des compteurs de transactions par utilisateur (actives / terminées / annulées, par rôle).
+ * Les deltas sont appliqués dans la transaction base de données de chaque écriture ; la lecture est
+ * une recherche par clé primaire.
+ */
+@Service
+public class UserTransactionStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserTransactionStatsService.class);
+
+    static final String ROLE_CLIENT = "CLIENT";
+    static final String ROLE_PROVIDER = "PROVIDER";
+
+    private static final String UPSERT_DELTA_SQL = """
+            INSERT INTO user_transaction_stats (user_id, role, active_count, completed_count, canceled_count)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, role) DO UPDATE SET
+                active_count = user_transaction_stats.active_count + EXCLUDED.active_count,
+                completed_count = user_transaction_stats.completed_count + EXCLUDED.completed_count,
+                canceled_count = user_transaction_stats.canceled_count + EXCLUDED.canceled_count
+            """;
+
+    private static final String SELECT_SQL = """
+            SELECT role, active_count, completed_count, canceled_count
+            FROM user_transaction_stats WHERE user_id = ?
+            """;
+
+    // Parcours par saut d'index (un accès aux index par rôle par utilisateur distinct) : chaque lot
+    // coûte O(taille du lot), quel que soit le nombre de transactions déjà parcourues
+    private static final String NEXT_USERS_SQL = """
+            WITH RECURSIVE clients(user_id) AS (
+                (SELECT id_client FROM transaction WHERE id_client > ? ORDER BY id_client LIMIT 1)
+                UNION ALL
+                SELECT (SELECT t.id_client FROM transaction t WHERE t.id_client > c.user_id
+                        ORDER BY t.id_client LIMIT 1)
+                FROM clients c WHERE c.user_id IS NOT NULL
+            ), providers(user_id) AS (
+                (SELECT id_provider FROM transaction WHERE id_provider > ? ORDER BY id_provider LIMIT 1)
+                UNION ALL
+                SELECT (SELECT t.id_provider FROM transaction t WHERE t.id_provider > p.user_id
+                        ORDER BY t.id_provider LIMIT 1)
+                FROM providers p WHERE p.user_id IS NOT NULL
+            )
+            SELECT user_id FROM (
+                (SELECT user_id FROM clients WHERE user_id IS NOT NULL LIMIT ?)
+                UNION
+                (SELECT user_id FROM providers WHERE user_id IS NOT NULL LIMIT ?)
+            ) u
+            ORDER BY user_id
+            LIMIT ?
+            """;
+
+    private static final String DELETE_USERS_SQL = "DELETE FROM user_transaction_stats WHERE user_id = ANY(?)";
+
+    private static final String RECOMPUTE_USERS_SQL = """
+            INSERT INTO user_transaction_stats (user_id, role, active_count, completed_count, canceled_count)
+            SELECT user_id, role,
+                   COUNT(*) FILTER (WHERE transaction_state NOT IN ('FINISHED_AND_PAYED', 'CANCELED')),
+                   COUNT(*) FILTER (WHERE transaction_state = 'FINISHED_AND_PAYED'),
+                   COUNT(*) FILTER (WHERE transaction_state = 'CANCELED')
+            FROM (
+                SELECT id_client AS user_id, 'CLIENT' AS role, transaction_state
+                FROM transaction WHERE id_client = ANY(?)
+                UNION ALL
+                SELECT id_provider AS user_id, 'PROVIDER' AS role, transaction_state
+                FROM transaction WHERE id_provider = ANY(?)
+            ) t
+            GROUP BY user_id, role
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserTransactionStatsService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * À appeler dans la transaction qui insère la transaction
+     */
+    public void onCreated(Transaction transaction) {
+        applyDelta(transaction, 1, 0, 0);
+    }
+
+    /**
+     * Variante groupée de {@link #onCreated} : un delta agrégé par utilisateur et par rôle, en un lot JDBC
+     */
+    public void onCreatedAll(List<Transaction> transactions) {
+        Map<List<String>, Integer> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            deltas.merge(List.of(transaction.getIdClient(), ROLE_CLIENT), 1, Integer::sum);
+            if (transaction.getIdProvider() != null) {
+                deltas.merge(List.of(transaction.getIdProvider(), ROLE_PROVIDER), 1, Integer::sum);
+            }
+        }
+        List<Object[]> rows = deltas.entrySet().stream()
+                .map(e -> new Object[] {e.getKey().get(0), e.getKey().get(1), e.getValue(), 0, 0})
+                .toList();
+        jdbcTemplate.batchUpdate(UPSERT_DELTA_SQL, rows);
+    }
+
+    /**
+     * À appeler dans la transaction qui enregistre le changement d'état
+     */
+    public void onStateChanged(Transaction transaction, TransitionState fromState) {
+        TransitionState toState = transaction.getTransactionState();
+        if (fromState.isFinished() || !toState.isFinished()) {
+            return;
+        }
+        boolean completed = toState == TransitionState.FINISHED_AND_PAYED;
+        applyDelta(transaction, -1, completed ? 1 : 0, completed ? 0 : 1);
+    }
+
+    private void applyDelta(Transaction transaction, int active, int completed, int canceled) {
+        jdbcTemplate.update(UPSERT_DELTA_SQL, transaction.getIdClient(), ROLE_CLIENT, active, completed, canceled);
+        if (transaction.getIdProvider() != null) {
+            jdbcTemplate.update(UPSERT_DELTA_SQL, transaction.getIdProvider(), ROLE_PROVIDER, active, completed, canceled);
+        }
+    }
+
+    public UserTransactionStatsResponse getStats(String userId) {
+        RoleStats[] stats = {RoleStats.EMPTY, RoleStats.EMPTY};
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            RoleStats roleStats = RoleStats.of(rs.getLong("active_count"), rs.getLong("completed_count"),
+                    rs.getLong("canceled_count"));
+            stats[ROLE_CLIENT.equals(rs.getString("role")) ? 0 : 1] = roleStats;
+        }, userId);
+        return new UserTransactionStatsResponse(userId, stats[0], stats[1]);
+    }
+
+    /**
+     * Recalcule toute la projection depuis la table des transactions, par lots d'utilisateurs
+     * (une transaction courte par lot)
+     *
+     * @return nombre d'utilisateurs recalculés
+     */
+    public int rebuild(int batchSize) {
+        log.info("Rebuilding user transaction stats (batch size {})", batchSize);
+        String lastUserId = "";
+        int total = 0;
+
+        while (true) {
+            List<String> userIds = jdbcTemplate.queryForList(NEXT_USERS_SQL, String.class,
+                    lastUserId, lastUserId, batchSize, batchSize, batchSize);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            String[] batch = userIds.toArray(String[]::new);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_USERS_SQL, (Object) batch);
+                jdbcTemplate.update(RECOMPUTE_USERS_SQL, batch, batch);
+            });
+            total += batch.length;
+            lastUserId = batch[batch.length - 1];
+        }
+
+        log.info("User transaction stats rebuilt for {} users", total);
+        return total;
+    }
+}
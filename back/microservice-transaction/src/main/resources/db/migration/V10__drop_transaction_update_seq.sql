@@ -0,0 +1,19 @@
+-- La synchronisation différentielle repose uniquement sur update_xid (V9) : le numéro de séquence
+-- n'est plus une position de synchronisation valable et n'est plus ni écrit ni exposé.
+CREATE OR REPLACE FUNCTION transaction_set_update_xid() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.update_xid := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_transaction_update_xid ON transaction;
+CREATE TRIGGER trg_transaction_update_xid
+    BEFORE INSERT OR UPDATE ON transaction
+    FOR EACH ROW EXECUTE FUNCTION transaction_set_update_xid();
+
+DROP TRIGGER IF EXISTS trg_transaction_update_seq ON transaction;
+DROP FUNCTION IF EXISTS transaction_set_update_seq();
+
+ALTER TABLE transaction DROP COLUMN IF EXISTS update_seq;
+DROP SEQUENCE IF EXISTS transaction_update_seq;
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS transaction (
+    id SERIAL PRIMARY KEY,
+    transaction_state VARCHAR(32) NOT NULL,
+    request_validation_date TIMESTAMP,
+    finish_date TIMESTAMP,
+    id_service INTEGER NOT NULL,
+    id_client VARCHAR(255) NOT NULL,
+    id_provider VARCHAR(255),
+    creation_date TIMESTAMP NOT NULL
+);
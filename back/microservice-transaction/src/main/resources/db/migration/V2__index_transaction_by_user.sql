@@ -0,0 +1,4 @@
+-- Index des listes "mes transactions" : un index par rôle, parcouru par date décroissante
+-- (id en dernière colonne pour départager les dates égales lors de la pagination par curseur)
+CREATE INDEX IF NOT EXISTS idx_transaction_client_creation ON transaction (id_client, creation_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transaction_provider_creation ON transaction (id_provider, creation_date DESC, id DESC);
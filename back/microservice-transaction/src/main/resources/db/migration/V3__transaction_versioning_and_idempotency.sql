@@ -0,0 +1,15 @@
+-- Verrouillage optimiste
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Clés d'idempotence (création / dernière mise à jour d'état)
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS creation_key VARCHAR(64);
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS last_update_key VARCHAR(64);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_transaction_client_creation_key
+    ON transaction (id_client, creation_key)
+    WHERE creation_key IS NOT NULL;
+
+-- Une seule transaction active par client et par service
+CREATE UNIQUE INDEX IF NOT EXISTS uq_transaction_active_client_service
+    ON transaction (id_client, id_service)
+    WHERE transaction_state NOT IN ('FINISHED_AND_PAYED', 'CANCELED');
@@ -0,0 +1,19 @@
+-- Numéro de séquence global, réattribué à chaque écriture (synchronisation différentielle)
+CREATE SEQUENCE IF NOT EXISTS transaction_update_seq;
+
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS update_seq BIGINT NOT NULL DEFAULT nextval('transaction_update_seq');
+
+CREATE OR REPLACE FUNCTION transaction_set_update_seq() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.update_seq := nextval('transaction_update_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_transaction_update_seq ON transaction;
+CREATE TRIGGER trg_transaction_update_seq
+    BEFORE INSERT OR UPDATE ON transaction
+    FOR EACH ROW EXECUTE FUNCTION transaction_set_update_seq();
+
+CREATE INDEX IF NOT EXISTS idx_transaction_client_update_seq ON transaction (id_client, update_seq);
+CREATE INDEX IF NOT EXISTS idx_transaction_provider_update_seq ON transaction (id_provider, update_seq);
@@ -0,0 +1,4 @@
+-- Recherche des transactions obsolètes par le sweeper (index partiel : seuls les états expirables)
+CREATE INDEX IF NOT EXISTS idx_transaction_expirable_creation
+    ON transaction (creation_date)
+    WHERE transaction_state IN ('EXCHANGING', 'REQUESTED');
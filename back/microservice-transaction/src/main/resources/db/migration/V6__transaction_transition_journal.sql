@@ -0,0 +1,18 @@
+-- Date d'entrée dans l'état courant (temps passé par état)
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS state_changed_at TIMESTAMP;
+UPDATE transaction
+SET state_changed_at = COALESCE(finish_date, request_validation_date, creation_date)
+WHERE state_changed_at IS NULL;
+ALTER TABLE transaction ALTER COLUMN state_changed_at SET NOT NULL;
+
+-- Journal des transitions d'état (append-only)
+CREATE TABLE IF NOT EXISTS transaction_transition (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id INTEGER NOT NULL,
+    from_state VARCHAR(32),
+    to_state VARCHAR(32) NOT NULL,
+    actor VARCHAR(255),
+    transitioned_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_transition_tx ON transaction_transition (transaction_id, transitioned_at);
@@ -0,0 +1,22 @@
+-- Projection des compteurs de transactions par utilisateur et par rôle, maintenue à chaque écriture
+CREATE TABLE IF NOT EXISTS user_transaction_stats (
+    user_id VARCHAR(255) NOT NULL,
+    role VARCHAR(16) NOT NULL,
+    active_count BIGINT NOT NULL DEFAULT 0,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    canceled_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, role)
+);
+
+INSERT INTO user_transaction_stats (user_id, role, active_count, completed_count, canceled_count)
+SELECT user_id, role,
+       COUNT(*) FILTER (WHERE transaction_state NOT IN ('FINISHED_AND_PAYED', 'CANCELED')),
+       COUNT(*) FILTER (WHERE transaction_state = 'FINISHED_AND_PAYED'),
+       COUNT(*) FILTER (WHERE transaction_state = 'CANCELED')
+FROM (
+    SELECT id_client AS user_id, 'CLIENT' AS role, transaction_state FROM transaction
+    UNION ALL
+    SELECT id_provider AS user_id, 'PROVIDER' AS role, transaction_state FROM transaction WHERE id_provider IS NOT NULL
+) t
+GROUP BY user_id, role
+ON CONFLICT (user_id, role) DO NOTHING;
@@ -0,0 +1,18 @@
+-- Messages échangés dans le cadre d'une transaction (append-only, lus par curseur sur id)
+CREATE TABLE IF NOT EXISTS transaction_message (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id INTEGER NOT NULL,
+    sender_id VARCHAR(255) NOT NULL,
+    content TEXT NOT NULL,
+    sent_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_message_tx ON transaction_message (transaction_id, id);
+
+-- Accusés de lecture : dernier message lu par participant
+CREATE TABLE IF NOT EXISTS transaction_message_read (
+    transaction_id INTEGER NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    last_read_message_id BIGINT NOT NULL,
+    PRIMARY KEY (transaction_id, user_id)
+);
@@ -0,0 +1,19 @@
+-- Identifiant de la transaction base ayant écrit la ligne : la synchronisation différentielle
+-- ne livre que les écritures des transactions antérieures à la plus ancienne encore en cours
+-- (pg_snapshot_xmin), un numéro de séquence plus bas pouvant être validé après un plus haut.
+-- Les lignes existantes reçoivent 0 et sont livrées à la première synchronisation.
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS update_xid BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION transaction_set_update_seq() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.update_seq := nextval('transaction_update_seq');
+    NEW.update_xid := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE INDEX IF NOT EXISTS idx_transaction_client_update_xid ON transaction (id_client, update_xid, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_provider_update_xid ON transaction (id_provider, update_xid, id);
+
+DROP INDEX IF EXISTS idx_transaction_client_update_seq;
+DROP INDEX IF EXISTS idx_transaction_provider_update_seq;
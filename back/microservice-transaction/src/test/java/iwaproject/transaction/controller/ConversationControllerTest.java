@@ -0,0 +1,68 @@
+package iwaproject.transaction.controller;
+
+import iwaproject.transaction.service.ConversationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationControllerTest {
+
+    private static final String USER_ID = "client-1";
+
+    @Mock
+    private ConversationService conversationService;
+
+    @InjectMocks
+    private ConversationController conversationController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(conversationController).build();
+    }
+
+    @Test
+    void sendMessage_WithMissingBlankOrOversizedContent_ShouldBeRejected() throws Exception {
+        for (String body : List.of("{}", "{\"content\":\"   \"}", "{\"content\":\"" + "a".repeat(2001) + "\"}")) {
+            mockMvc.perform(post("/transaction/1/messages").header("X-User-Id", USER_ID)
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verifyNoInteractions(conversationService);
+    }
+
+    @Test
+    void sendMessage_WithValidContent_ShouldReachTheService() throws Exception {
+        mockMvc.perform(post("/transaction/1/messages").header("X-User-Id", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"content\":\"Hello\"}"))
+                .andExpect(status().isOk());
+
+        verify(conversationService).sendMessage(1, USER_ID, "Hello");
+    }
+
+    @Test
+    void markRead_WithMissingOrInvalidMessageId_ShouldBeRejected() throws Exception {
+        for (String body : List.of("{}", "{\"lastReadMessageId\":0}")) {
+            mockMvc.perform(post("/transaction/1/messages/read").header("X-User-Id", USER_ID)
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verifyNoInteractions(conversationService);
+    }
+}
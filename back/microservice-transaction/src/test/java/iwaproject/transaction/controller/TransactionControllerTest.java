@@ -0,0 +1,203 @@
+package iwaproject.transaction.controller;
+
+import iwaproject.transaction.dto.TransactionCursor;
+import iwaproject.transaction.enums.StateFilter;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.model.TransactionChanges;
+import iwaproject.transaction.service.TransactionEnrichmentService;
+import iwaproject.transaction.service.TransactionService;
+import iwaproject.transaction.service.UserTransactionStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionControllerTest {
+
+    private static final String USER_ID = "client-1";
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 28, 12, 0);
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private UserTransactionStatsService statsService;
+
+    @Mock
+    private TransactionEnrichmentService enrichmentService;
+
+    @InjectMocks
+    private TransactionController transactionController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(transactionController).build();
+        lenient().when(enrichmentService.expand(anyList(), anyString(), anySet(), any())).thenReturn(List.of());
+    }
+
+    private static Transaction transaction(int id, LocalDateTime creationDate) {
+        Transaction transaction = new Transaction(TransitionState.REQUESTED, 10, USER_ID, "provider-1");
+        ReflectionTestUtils.setField(transaction, "id", id);
+        ReflectionTestUtils.setField(transaction, "creationDate", creationDate);
+        return transaction;
+    }
+
+    @Test
+    void getMyTransactions_WithoutCursorNorLimit_ShouldReturnTheFullList() throws Exception {
+        when(transactionService.getTransactionsByUser(eq(USER_ID), eq(StateFilter.ALL), eq(TransactionCursor.START), anyInt()))
+                .thenReturn(List.of(transaction(2, NOW), transaction(1, NOW.minusDays(1))));
+
+        mockMvc.perform(get("/transaction/my").header("X-User-Id", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        verify(transactionService).getTransactionsByUser(USER_ID, StateFilter.ALL, TransactionCursor.START, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void getMyTransactions_WithLimit_ShouldReturnTheCursorOfTheLastRow() throws Exception {
+        when(transactionService.getTransactionsByUser(USER_ID, StateFilter.ALL, TransactionCursor.START, 2))
+                .thenReturn(List.of(transaction(5, NOW), transaction(4, NOW.minusHours(1))));
+
+        mockMvc.perform(get("/transaction/my").header("X-User-Id", USER_ID).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", new TransactionCursor(NOW.minusHours(1), 4).encode()));
+    }
+
+    @Test
+    void getMyTransactions_WithCursor_ShouldResumeAfterItWithTheDefaultPageSize() throws Exception {
+        TransactionCursor cursor = new TransactionCursor(NOW.minusHours(1), 4);
+        when(transactionService.getTransactionsByUser(USER_ID, StateFilter.ALL, cursor, 50))
+                .thenReturn(List.of(transaction(3, NOW.minusHours(2))));
+
+        // Last page: fewer rows than the page size, no next cursor
+        mockMvc.perform(get("/transaction/my").header("X-User-Id", USER_ID).param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getMyTransactions_WithMalformedCursor_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/transaction/my").header("X-User-Id", USER_ID).param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void getMyTransactionChanges_ShouldReturnTheServicePageAndHighWaterMark() throws Exception {
+        when(transactionService.getChangesByUser(USER_ID, 120L, 50))
+                .thenReturn(new TransactionChanges(List.of(transaction(7, NOW)), 130L, true));
+
+        mockMvc.perform(get("/transaction/changes").header("X-User-Id", USER_ID)
+                        .param("since", "120").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].id").value(7))
+                .andExpect(jsonPath("$.highWaterMark").value(130))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    void getMyTransactionChanges_ShouldClampTheLimitAndStartFromZero() throws Exception {
+        when(transactionService.getChangesByUser(USER_ID, 0L, 1))
+                .thenReturn(new TransactionChanges(List.of(), 900L, false));
+
+        mockMvc.perform(get("/transaction/changes").header("X-User-Id", USER_ID).param("limit", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes").isEmpty())
+                .andExpect(jsonPath("$.highWaterMark").value(900))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void getMyTransactionChanges_WithNegativeSince_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/transaction/changes").header("X-User-Id", USER_ID).param("since", "-1"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void getMyTransactionChanges_WithoutUser_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/transaction/changes"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void createTransactions_WithInvalidBody_ShouldBeRejectedBeforeReachingTheService() throws Exception {
+        String tooManyIds = IntStream.rangeClosed(1, 21)
+                .mapToObj(Integer::toString).collect(Collectors.joining(","));
+        for (String body : List.of(
+                "{\"directRequest\":true}",
+                "{\"serviceIds\":[],\"directRequest\":true}",
+                "{\"serviceIds\":[1,null],\"directRequest\":true}",
+                "{\"serviceIds\":[1,-2],\"directRequest\":true}",
+                "{\"serviceIds\":[1,2]}",
+                "{\"serviceIds\":[" + tooManyIds + "],\"directRequest\":true}")) {
+            mockMvc.perform(post("/transaction/batch").header("X-User-Id", USER_ID)
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void getUserStats_ShouldBeRestrictedToTheUserAndAdmins() throws Exception {
+        mockMvc.perform(get("/transaction/stats/provider-1").header("X-User-Id", USER_ID))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(statsService);
+
+        mockMvc.perform(get("/transaction/stats/" + USER_ID).header("X-User-Id", USER_ID))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/transaction/stats/provider-1").header("X-User-Id", USER_ID).header("X-User-Roles", "admin"))
+                .andExpect(status().isOk());
+        verify(statsService).getStats(USER_ID);
+        verify(statsService).getStats("provider-1");
+    }
+
+    @Test
+    void rebuildStats_WithAdminRole_ShouldRebuild() throws Exception {
+        when(statsService.rebuild(500)).thenReturn(12);
+
+        mockMvc.perform(post("/transaction/stats/rebuild").header("X-User-Roles", "user, admin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").value(12));
+    }
+
+    @Test
+    void rebuildStats_WithoutAdminRole_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(post("/transaction/stats/rebuild").header("X-User-Roles", "user,administrator"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/transaction/stats/rebuild"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(statsService);
+    }
+}
@@ -0,0 +1,64 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogServiceClientTest {
+
+    // URIs reçues par le faux service-catalog
+    private final List<URI> requests = new ArrayList<>();
+
+    private CatalogServiceClient client;
+
+    @BeforeEach
+    void setUp() {
+        // Répond à GET /batch avec un produit par ID demandé
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            requests.add(request.url());
+            String body = Arrays.stream(request.url().getQuery().replace("ids=", "").split("&"))
+                    .map(id -> "{\"idService\":" + id + "}")
+                    .collect(Collectors.joining(",", "[", "]"));
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(body)
+                    .build());
+        });
+        client = new CatalogServiceClient("http://catalog", "/api/products", builder);
+    }
+
+    @Test
+    void fetchProductsByIds_ShouldSplitIdsIntoBatchesAcceptedByTheCatalog() {
+        List<Integer> ids = IntStream.rangeClosed(1, 450).boxed().toList();
+
+        List<ProductDTO> products = client.fetchProductsByIds(ids).collectList().block();
+
+        assertThat(products).extracting(ProductDTO::idService).containsExactlyElementsOf(ids);
+        assertThat(requests).hasSize(3);
+        assertThat(requests).allSatisfy(uri -> {
+            assertThat(uri.getPath()).isEqualTo("/api/products/batch");
+            assertThat(uri.getQuery().split("&").length).isLessThanOrEqualTo(CatalogServiceClient.MAX_BATCH_SIZE);
+        });
+    }
+
+    @Test
+    void fetchProductsByIds_WithoutIds_ShouldNotCallTheCatalog() {
+        assertThat(client.fetchProductsByIds(List.of()).collectList().block()).isEmpty();
+        assertThat(requests).isEmpty();
+    }
+}
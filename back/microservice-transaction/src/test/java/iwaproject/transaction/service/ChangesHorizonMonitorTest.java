@@ -0,0 +1,57 @@
+package iwaproject.transaction.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iwaproject.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChangesHorizonMonitorTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ChangesHorizonMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new ChangesHorizonMonitor(transactionRepository, meterRegistry, Duration.ofMinutes(1));
+    }
+
+    private double horizonAge() {
+        return meterRegistry.get("transaction.changes.horizon.age").gauge().value();
+    }
+
+    @Test
+    void check_ShouldExposeTheAgeOfTheOldestOpenTransaction() {
+        when(transactionRepository.oldestOpenTransactionAgeSeconds()).thenReturn(420L);
+
+        monitor.check();
+
+        assertThat(horizonAge()).isEqualTo(420.0);
+    }
+
+    @Test
+    void check_WhenTheDatabaseIsUnreachable_ShouldKeepTheLastValue() {
+        when(transactionRepository.oldestOpenTransactionAgeSeconds())
+                .thenReturn(30L)
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        monitor.check();
+        monitor.check();
+
+        assertThat(horizonAge()).isEqualTo(30.0);
+    }
+}
@@ -0,0 +1,94 @@
+package iwaproject.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import iwaproject.transaction.dto.MessageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationDeliveryServiceTest {
+
+    private static final List<String> PARTICIPANTS = List.of("client-1", "provider-1");
+
+    @Mock
+    private TransactionSseService sseService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ConversationDeliveryService deliveryService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        deliveryService = new ConversationDeliveryService(sseService, jdbcTemplate, objectMapper);
+    }
+
+    private static MessageResponse message(long id, int transactionId) {
+        return new MessageResponse(id, transactionId, "client-1", "hello " + id, LocalDateTime.now());
+    }
+
+    @Test
+    void flush_ShouldSendOneEventPerTransactionForABurst() {
+        deliveryService.enqueueMessage(message(1, 10), PARTICIPANTS);
+        deliveryService.enqueueMessage(message(2, 10), PARTICIPANTS);
+        deliveryService.enqueueMessage(message(3, 11), PARTICIPANTS);
+
+        deliveryService.flush();
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(sseService).publishConversationEvent(eq(10), eq(PARTICIPANTS), eq("messages"), payload.capture());
+        verify(sseService).publishConversationEvent(eq(11), eq(PARTICIPANTS), eq("messages"), anyString());
+        assertThat(payload.getValue()).contains("hello 1").contains("hello 2");
+
+        deliveryService.flush();
+        verifyNoMoreInteractions(sseService);
+    }
+
+    @Test
+    void flush_ShouldCoalesceReadReceiptsToHighestMessage() {
+        deliveryService.enqueueReceipt(10, "client-1", 5, PARTICIPANTS);
+        deliveryService.enqueueReceipt(10, "client-1", 9, PARTICIPANTS);
+        deliveryService.enqueueReceipt(10, "client-1", 7, PARTICIPANTS);
+
+        deliveryService.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).singleElement()
+                .satisfies(row -> assertThat(row).containsExactly(10, "client-1", 9L));
+        verify(sseService).publishConversationEvent(eq(10), eq(PARTICIPANTS), eq("read"), contains("\"client-1\":9"));
+    }
+
+    @Test
+    void flush_WhenReceiptsFailToPersist_ShouldNotPublishAndRetryNextFlush() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(new int[] {1});
+        deliveryService.enqueueReceipt(10, "client-1", 5, PARTICIPANTS);
+
+        deliveryService.flush();
+        verifyNoInteractions(sseService);
+
+        deliveryService.enqueueReceipt(10, "client-1", 3, PARTICIPANTS);
+        deliveryService.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(sseService).publishConversationEvent(eq(10), eq(PARTICIPANTS), eq("read"), contains("\"client-1\":5"));
+    }
+}
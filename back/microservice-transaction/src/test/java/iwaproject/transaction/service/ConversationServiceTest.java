@@ -0,0 +1,58 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.repository.TransactionMessageRepository;
+import iwaproject.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionMessageRepository messageRepository;
+
+    @Mock
+    private ConversationDeliveryService deliveryService;
+
+    @InjectMocks
+    private ConversationService conversationService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionRepository.findById(10))
+                .thenReturn(Optional.of(new Transaction(TransitionState.REQUESTED, 1, "client-1", "provider-1")));
+    }
+
+    @Test
+    void markRead_ShouldEnqueueReceiptForAMessageOfTheTransaction() {
+        when(messageRepository.existsByTransactionIdAndId(10, 42L)).thenReturn(true);
+
+        conversationService.markRead(10, "client-1", 42L);
+
+        verify(deliveryService).enqueueReceipt(10, "client-1", 42L, List.of("client-1", "provider-1"));
+    }
+
+    @Test
+    void markRead_WithMessageOfAnotherTransaction_ShouldFail() {
+        when(messageRepository.existsByTransactionIdAndId(10, 99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> conversationService.markRead(10, "client-1", 99L))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(deliveryService);
+    }
+}
@@ -0,0 +1,103 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductReplicaServiceTest {
+
+    @Mock
+    private CatalogServiceClient catalogServiceClient;
+
+    private ProductReplicaService replica;
+
+    @BeforeEach
+    void setUp() {
+        replica = new ProductReplicaService(catalogServiceClient, 60_000, 1_000);
+    }
+
+    private static ProductDTO product(int id, boolean available) {
+        return new ProductDTO(id, "Valorant", "Coaching", "desc", 10f, false, available, "provider-" + id);
+    }
+
+    @Test
+    void getProduct_WhenReplicated_ShouldNotCallCatalog() {
+        when(catalogServiceClient.fetchAllProducts()).thenReturn(Flux.just(product(1, true), product(2, false)));
+
+        replica.refresh();
+
+        assertThat(replica.size()).isEqualTo(2);
+        assertThat(replica.getProduct(1).idProvider()).isEqualTo("provider-1");
+        verify(catalogServiceClient, never()).fetchProductById(anyInt());
+    }
+
+    @Test
+    void getProduct_OnMiss_ShouldFetchOnceAndCache() {
+        when(catalogServiceClient.fetchProductById(3)).thenReturn(Mono.just(product(3, true)));
+
+        assertThat(replica.getProduct(3).isAvailable()).isTrue();
+        assertThat(replica.getProduct(3).isAvailable()).isTrue();
+
+        verify(catalogServiceClient, times(1)).fetchProductById(3);
+    }
+
+    @Test
+    void getProduct_WhenCatalogReportsNotFound_ShouldPropagate() {
+        when(catalogServiceClient.fetchProductById(4))
+                .thenReturn(Mono.error(new IllegalArgumentException("Product not found: 4")));
+
+        assertThatThrownBy(() -> replica.getProduct(4))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void replaceAll_ShouldDropProductsRemovedFromCatalog() {
+        replica.replaceAll(List.of(product(1, true), product(2, true)), Instant.now().minusSeconds(5));
+        replica.replaceAll(List.of(product(2, true)), Instant.now());
+
+        assertThat(replica.size()).isEqualTo(1);
+    }
+
+    @Test
+    void replaceAll_ShouldKeepEntriesFetchedAfterRefreshStarted() {
+        Instant refreshStartedAt = Instant.now().minusSeconds(5);
+        when(catalogServiceClient.fetchProductById(1)).thenReturn(Mono.just(product(1, false)));
+        replica.getProduct(1);
+
+        replica.replaceAll(List.of(product(1, true)), refreshStartedAt);
+
+        assertThat(replica.getProduct(1).isAvailable()).isFalse();
+        verify(catalogServiceClient, times(1)).fetchProductById(1);
+    }
+
+    @Test
+    void findProducts_ShouldReturnResolvedProductsAndOmitMissingOnes() {
+        replica.replaceAll(List.of(product(1, true)), Instant.now());
+        when(catalogServiceClient.fetchProductsByIds(List.of(2, 3))).thenReturn(Flux.just(product(2, true)));
+
+        assertThat(replica.findProducts(List.of(1, 2, 3))).containsOnlyKeys(1, 2);
+        verify(catalogServiceClient, never()).fetchProductById(anyInt());
+    }
+
+    @Test
+    void findProducts_WhenCatalogFails_ShouldReturnReplicatedProducts() {
+        replica.replaceAll(List.of(product(1, true)), Instant.now());
+        when(catalogServiceClient.fetchProductsByIds(List.of(2))).thenReturn(Flux.error(new RuntimeException("down")));
+
+        assertThat(replica.findProducts(List.of(1, 2))).containsOnlyKeys(1);
+    }
+}
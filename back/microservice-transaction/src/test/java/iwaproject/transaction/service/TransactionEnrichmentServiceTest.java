@@ -0,0 +1,115 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.ProductDTO;
+import iwaproject.transaction.dto.TransactionResponse;
+import iwaproject.transaction.dto.UserPublicDTO;
+import iwaproject.transaction.enums.Expansion;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionEnrichmentServiceTest {
+
+    private static final String USER_ID = "client-1";
+
+    @Mock
+    private ProductReplicaService productReplicaService;
+
+    @Mock
+    private UserServiceClient userServiceClient;
+
+    private TransactionEnrichmentService enrichmentService;
+
+    @BeforeEach
+    void setUp() {
+        enrichmentService = new TransactionEnrichmentService(productReplicaService, userServiceClient, 60_000, 100, 1_000);
+    }
+
+    private static ProductDTO product(int id) {
+        return new ProductDTO(id, "Valorant", "Coaching", "desc", 10f, false, true, "provider-" + id);
+    }
+
+    private static UserPublicDTO profile(String id) {
+        return new UserPublicDTO(id, id + "-name", "First", "Last");
+    }
+
+    @Test
+    void expand_ShouldIssueOneBatchedCallPerService() {
+        List<Transaction> page = List.of(
+                new Transaction(TransitionState.REQUESTED, 1, USER_ID, "provider-1"),
+                new Transaction(TransitionState.REQUESTED, 2, USER_ID, "provider-2"),
+                new Transaction(TransitionState.REQUESTED, 3, "provider-1", USER_ID));
+        when(productReplicaService.findProducts(Set.of(1, 2, 3)))
+                .thenReturn(Map.of(1, product(1), 2, product(2), 3, product(3)));
+        when(userServiceClient.fetchPublicProfiles(anyCollection(), any()))
+                .thenReturn(Flux.just(profile("provider-1"), profile("provider-2")));
+
+        List<TransactionResponse> responses = enrichmentService.expand(
+                page, USER_ID, EnumSet.allOf(Expansion.class), "Bearer token");
+
+        assertThat(responses).extracting(r -> r.product().idService()).containsExactly(1, 2, 3);
+        assertThat(responses).extracting(r -> r.counterpart().id()).containsExactly("provider-1", "provider-2", "provider-1");
+        verify(userServiceClient).fetchPublicProfiles(List.of("provider-1", "provider-2"), "Bearer token");
+    }
+
+    @Test
+    void expand_ShouldServeCachedProfilesWithoutCallingUserService() {
+        List<Transaction> page = List.of(new Transaction(TransitionState.REQUESTED, 1, USER_ID, "provider-1"));
+        when(userServiceClient.fetchPublicProfiles(anyCollection(), any())).thenReturn(Flux.just(profile("provider-1")));
+        Set<Expansion> counterpartOnly = EnumSet.of(Expansion.COUNTERPART);
+
+        enrichmentService.expand(page, USER_ID, counterpartOnly, null);
+        List<TransactionResponse> responses = enrichmentService.expand(page, USER_ID, counterpartOnly, null);
+
+        assertThat(responses.get(0).counterpart().username()).isEqualTo("provider-1-name");
+        assertThat(responses.get(0).product()).isNull();
+        verify(userServiceClient, times(1)).fetchPublicProfiles(anyCollection(), any());
+        verifyNoInteractions(productReplicaService);
+    }
+
+    @Test
+    void expand_WhenUserServiceFails_ShouldLeaveCounterpartEmpty() {
+        List<Transaction> page = List.of(new Transaction(TransitionState.REQUESTED, 1, USER_ID, "provider-1"));
+        when(userServiceClient.fetchPublicProfiles(anyCollection(), any()))
+                .thenReturn(Flux.error(new RuntimeException("down")));
+
+        List<TransactionResponse> responses = enrichmentService.expand(
+                page, USER_ID, EnumSet.of(Expansion.COUNTERPART), null);
+
+        assertThat(responses).singleElement().satisfies(r -> assertThat(r.counterpart()).isNull());
+    }
+
+    @Test
+    void expand_WhenProfileCacheIsFull_ShouldEvictTheLeastRecentlyUsedProfile() {
+        enrichmentService = new TransactionEnrichmentService(productReplicaService, userServiceClient, 60_000, 2, 1_000);
+        when(userServiceClient.fetchPublicProfiles(anyCollection(), any())).thenAnswer(invocation ->
+                Flux.fromIterable(invocation.<List<String>>getArgument(0)).map(TransactionEnrichmentServiceTest::profile));
+        Set<Expansion> counterpartOnly = EnumSet.of(Expansion.COUNTERPART);
+
+        for (String provider : List.of("provider-1", "provider-2", "provider-1", "provider-3", "provider-1", "provider-2")) {
+            enrichmentService.expand(List.of(new Transaction(TransitionState.REQUESTED, 1, USER_ID, provider)),
+                    USER_ID, counterpartOnly, null);
+        }
+
+        // provider-1, lu récemment, reste en cache ; provider-2 a été évincé par provider-3
+        verify(userServiceClient, times(1)).fetchPublicProfiles(List.of("provider-1"), null);
+        verify(userServiceClient, times(2)).fetchPublicProfiles(List.of("provider-2"), null);
+        verify(userServiceClient, times(1)).fetchPublicProfiles(List.of("provider-3"), null);
+    }
+}
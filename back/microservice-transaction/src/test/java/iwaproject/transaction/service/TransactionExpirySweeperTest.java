@@ -0,0 +1,166 @@
+package iwaproject.transaction.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExpirySweeperTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionSseService sseService;
+
+    @Mock
+    private TransitionJournalService journalService;
+
+    @Mock
+    private UserTransactionStatsService statsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransactionExpirySweeper sweeper;
+
+    private boolean inTransaction;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new TransactionExpirySweeper(transactionRepository, sseService, journalService, statsService,
+                transactionTemplate, meterRegistry, Duration.ofDays(7), BATCH_SIZE, 3);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction = true;
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction = false;
+            }
+        });
+        // Journal et SSE uniquement après le commit du lot, hors du verrou
+        lenient().doAnswer(invocation -> {
+            assertThat(inTransaction).isFalse();
+            return null;
+        }).when(journalService).recordTransition(any(), any(), any(), any());
+        lenient().doAnswer(invocation -> {
+            assertThat(inTransaction).isFalse();
+            return null;
+        }).when(sseService).notifyTransactionUpdate(any());
+    }
+
+    private static Transaction stale(int id, TransitionState state) {
+        Transaction transaction = new Transaction(state, 10, "client-1", "provider-1");
+        ReflectionTestUtils.setField(transaction, "id", id);
+        return transaction;
+    }
+
+    private static List<Transaction> staleBatch(int firstId, int size) {
+        return IntStream.range(firstId, firstId + size)
+                .mapToObj(id -> stale(id, TransitionState.REQUESTED))
+                .toList();
+    }
+
+    @Test
+    void sweep_ShouldClaimStaleRowsWithSkipLockedAndCancelThem() {
+        Transaction requested = stale(1, TransitionState.REQUESTED);
+        LocalDateTime enteredAt = requested.getStateChangedAt();
+        when(transactionRepository.lockStaleBatch(eq(TransactionExpirySweeper.EXPIRABLE_STATES), any(), eq(BATCH_SIZE)))
+                .thenReturn(List.of(requested));
+
+        LocalDateTime before = LocalDateTime.now().minusDays(7);
+        sweeper.sweep();
+
+        verify(transactionRepository).lockStaleBatch(eq(TransactionExpirySweeper.EXPIRABLE_STATES),
+                argThat(cutoff -> !cutoff.isBefore(before) && !cutoff.isAfter(LocalDateTime.now().minusDays(7))),
+                eq(BATCH_SIZE));
+        assertThat(requested.getTransactionState()).isEqualTo(TransitionState.CANCELED);
+        assertThat(requested.getFinishDate()).isNotNull();
+        verify(transactionRepository).flush();
+        verify(statsService).onStateChanged(requested, TransitionState.REQUESTED);
+        verify(journalService).recordTransition(requested, TransitionState.REQUESTED, enteredAt,
+                TransactionExpirySweeper.SWEEPER_ACTOR);
+        verify(sseService).notifyTransactionUpdate(requested);
+        assertThat(meterRegistry.counter("transaction.expiry.canceled").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sweep_ShouldKeepClaimingBatchesUntilOneIsNotFull() {
+        when(transactionRepository.lockStaleBatch(any(), any(), anyInt()))
+                .thenReturn(staleBatch(1, BATCH_SIZE), staleBatch(3, 1));
+
+        sweeper.sweep();
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(sseService, times(3)).notifyTransactionUpdate(any());
+        assertThat(meterRegistry.counter("transaction.expiry.canceled").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void sweep_ShouldStopAfterMaxBatchesPerRun() {
+        when(transactionRepository.lockStaleBatch(any(), any(), anyInt()))
+                .thenReturn(staleBatch(1, BATCH_SIZE), staleBatch(3, BATCH_SIZE), staleBatch(5, BATCH_SIZE),
+                        staleBatch(7, BATCH_SIZE));
+
+        sweeper.sweep();
+
+        verify(transactionRepository, times(3)).lockStaleBatch(any(), any(), anyInt());
+        verify(journalService, times(6)).recordTransition(any(), any(), any(), any());
+    }
+
+    @Test
+    void sweep_ShouldJournalAndNotifyEachBatchAfterItsCommit() {
+        List<Transaction> first = staleBatch(1, BATCH_SIZE);
+        List<Transaction> second = staleBatch(3, 1);
+        when(transactionRepository.lockStaleBatch(any(), any(), anyInt())).thenReturn(first, second);
+
+        sweeper.sweep();
+
+        InOrder inOrder = inOrder(transactionTemplate, journalService, sseService);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(journalService).recordTransition(eq(first.get(0)), any(), any(), any());
+        inOrder.verify(sseService).notifyTransactionUpdate(first.get(0));
+        inOrder.verify(journalService).recordTransition(eq(first.get(1)), any(), any(), any());
+        inOrder.verify(sseService).notifyTransactionUpdate(first.get(1));
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(journalService).recordTransition(eq(second.get(0)), any(), any(), any());
+        inOrder.verify(sseService).notifyTransactionUpdate(second.get(0));
+    }
+
+    @Test
+    void sweep_WithNothingStale_ShouldNotJournalNorNotify() {
+        when(transactionRepository.lockStaleBatch(any(), any(), anyInt())).thenReturn(List.of());
+
+        sweeper.sweep();
+
+        verify(transactionTemplate, times(1)).execute(any());
+        verifyNoInteractions(journalService, sseService);
+        assertThat(meterRegistry.counter("transaction.expiry.canceled").count()).isZero();
+    }
+}
@@ -0,0 +1,268 @@
+package iwaproject.transaction.service;
+
+import iwaproject.transaction.dto.CreateTransactionBatchRequest;
+import iwaproject.transaction.dto.CreateTransactionRequest;
+import iwaproject.transaction.dto.ProductDTO;
+import iwaproject.transaction.dto.UpdateStateRequest;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.exception.IdempotencyKeyReusedException;
+import iwaproject.transaction.model.Transaction;
+import iwaproject.transaction.model.TransactionChanges;
+import iwaproject.transaction.repository.TransactionBatchRepository;
+import iwaproject.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionServiceTest {
+
+    private static final String CLIENT_ID = "client-1";
+    private static final String PROVIDER_ID = "provider-1";
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Mock
+    private ProductReplicaService productReplicaService;
+
+    @Mock
+    private TransactionSseService sseService;
+
+    @Mock
+    private TransitionJournalService journalService;
+
+    @Mock
+    private UserTransactionStatsService statsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static ProductDTO availableProduct() {
+        return new ProductDTO(10, "Valorant", "Coaching", "desc", 20f, false, true, PROVIDER_ID);
+    }
+
+    private static Transaction transaction(int id, TransitionState state) {
+        Transaction transaction = new Transaction(state, 10, CLIENT_ID, PROVIDER_ID);
+        ReflectionTestUtils.setField(transaction, "id", id);
+        return transaction;
+    }
+
+    @Test
+    void createTransaction_WithKnownIdempotencyKey_ShouldReturnExistingWithoutInsert() {
+        Transaction existing = transaction(1, TransitionState.REQUESTED);
+        when(transactionRepository.findByIdClientAndCreationKey(CLIENT_ID, "key-1")).thenReturn(Optional.of(existing));
+
+        Transaction result = transactionService.createTransaction(new CreateTransactionRequest(10, true), CLIENT_ID, "key-1");
+
+        assertThat(result).isSameAs(existing);
+        verify(transactionRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(productReplicaService);
+    }
+
+    @Test
+    void createTransaction_WithIdempotencyKeyOfAnotherService_ShouldBeRejected() {
+        when(transactionRepository.findByIdClientAndCreationKey(CLIENT_ID, "key-1"))
+                .thenReturn(Optional.of(transaction(1, TransitionState.REQUESTED)));
+
+        assertThatThrownBy(() -> transactionService.createTransaction(new CreateTransactionRequest(11, true), CLIENT_ID, "key-1"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        verify(transactionRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(productReplicaService);
+    }
+
+    @Test
+    void createTransaction_WhenConcurrentInsertUsedTheKeyForAnotherService_ShouldBeRejected() {
+        when(transactionRepository.findByIdClientAndCreationKey(CLIENT_ID, "key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(transaction(1, TransitionState.REQUESTED)));
+        when(productReplicaService.getProduct(11)).thenReturn(availableProduct());
+        when(transactionRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uq_transaction_creation_key"));
+
+        assertThatThrownBy(() -> transactionService.createTransaction(new CreateTransactionRequest(11, true), CLIENT_ID, "key-1"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void createTransactions_WithIdempotencyKeyOfAnotherServiceList_ShouldBeRejected() {
+        when(transactionRepository.findByIdClientAndCreationKeyIn(CLIENT_ID, List.of("key-1:10", "key-1:11")))
+                .thenReturn(List.of(transaction(1, TransitionState.REQUESTED)));
+
+        assertThatThrownBy(() -> transactionService.createTransactions(
+                new CreateTransactionBatchRequest(List.of(10, 11), true), CLIENT_ID, "key-1"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        verifyNoInteractions(transactionBatchRepository);
+    }
+
+    @Test
+    void createTransaction_WhenActiveTransactionExists_ShouldFailOnConstraint() {
+        when(productReplicaService.getProduct(10)).thenReturn(availableProduct());
+        when(transactionRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uq_transaction_active_client_service"));
+        when(transactionRepository.findByIdClientAndIdServiceAndTransactionStateNotIn(CLIENT_ID, 10, TransitionState.FINISHED_STATES))
+                .thenReturn(Optional.of(transaction(7, TransitionState.EXCHANGING)));
+
+        assertThatThrownBy(() -> transactionService.createTransaction(new CreateTransactionRequest(10, false), CLIENT_ID, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("id=7");
+        verifyNoInteractions(sseService);
+    }
+
+    @Test
+    void updateState_OnConcurrentModification_ShouldRetryAgainstFreshState() {
+        when(transactionRepository.findById(1))
+                .thenReturn(Optional.of(transaction(1, TransitionState.PREPAID)))
+                .thenReturn(Optional.of(transaction(1, TransitionState.CLIENT_CONFIRMED)));
+        when(transactionRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Transaction.class, 1))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Transaction result = transactionService.updateState(1,
+                new UpdateStateRequest(TransitionState.PROVIDER_CONFIRMED), PROVIDER_ID, null);
+
+        assertThat(result.getTransactionState()).isEqualTo(TransitionState.FINISHED_AND_PAYED);
+        verify(transactionRepository, times(2)).saveAndFlush(any());
+        verify(journalService, times(1)).recordTransition(any(), eq(TransitionState.CLIENT_CONFIRMED),
+                eq(TransitionState.DOUBLE_CONFIRMED), any(), eq(PROVIDER_ID));
+        verify(statsService, times(1)).onStateChanged(any(), eq(TransitionState.CLIENT_CONFIRMED));
+    }
+
+    @Test
+    void updateState_OnSecondConfirmation_ShouldJournalTheDoubleConfirmedStep() {
+        when(transactionRepository.findById(1)).thenReturn(Optional.of(transaction(1, TransitionState.PROVIDER_CONFIRMED)));
+        when(transactionRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Transaction result = transactionService.updateState(1,
+                new UpdateStateRequest(TransitionState.CLIENT_CONFIRMED), CLIENT_ID, null);
+
+        InOrder inOrder = inOrder(journalService);
+        inOrder.verify(journalService).recordTransition(eq(result), eq(TransitionState.PROVIDER_CONFIRMED),
+                eq(TransitionState.DOUBLE_CONFIRMED), any(), eq(CLIENT_ID));
+        inOrder.verify(journalService).recordTransition(result, TransitionState.DOUBLE_CONFIRMED,
+                TransitionState.FINISHED_AND_PAYED, result.getStateChangedAt(), CLIENT_ID);
+        verify(journalService, never()).recordTransition(any(), any(), any(), any());
+    }
+
+    @Test
+    void updateState_WithAlreadyAppliedIdempotencyKey_ShouldNotTransitionAgain() {
+        Transaction current = transaction(1, TransitionState.REQUEST_ACCEPTED);
+        current.setLastUpdateKey("accept-1");
+        when(transactionRepository.findById(1)).thenReturn(Optional.of(current));
+
+        Transaction result = transactionService.updateState(1,
+                new UpdateStateRequest(TransitionState.REQUEST_ACCEPTED), PROVIDER_ID, "accept-1");
+
+        assertThat(result.getTransactionState()).isEqualTo(TransitionState.REQUEST_ACCEPTED);
+        verify(transactionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createTransactions_ShouldInsertInOneBatchAndNotifyOnce() {
+        ProductDTO second = new ProductDTO(11, "Valorant", "Coaching", "desc", 20f, false, true, "provider-2");
+        when(productReplicaService.getProducts(List.of(10, 11))).thenReturn(Map.of(10, availableProduct(), 11, second));
+        when(transactionRepository.findByIdClientAndIdServiceInAndTransactionStateNotIn(CLIENT_ID, List.of(10, 11),
+                TransitionState.FINISHED_STATES)).thenReturn(List.of());
+        when(transactionBatchRepository.insertAll(anyList())).thenReturn(List.of(1, 2));
+        when(transactionRepository.findAllById(List.of(1, 2)))
+                .thenReturn(List.of(transaction(2, TransitionState.REQUESTED), transaction(1, TransitionState.REQUESTED)));
+
+        List<Transaction> result = transactionService.createTransactions(
+                new CreateTransactionBatchRequest(List.of(10, 11), true), CLIENT_ID, null);
+
+        assertThat(result).extracting(Transaction::getId).containsExactly(1, 2);
+        verify(transactionBatchRepository, times(1)).insertAll(anyList());
+        verify(statsService, times(1)).onCreatedAll(result);
+        verify(sseService, times(1)).notifyTransactionsCreated(result);
+    }
+
+    @Test
+    void createTransactions_WhenOneServiceUnavailable_ShouldCreateNothing() {
+        ProductDTO unavailable = new ProductDTO(11, "Valorant", "Coaching", "desc", 20f, false, false, "provider-2");
+        when(productReplicaService.getProducts(List.of(10, 11))).thenReturn(Map.of(10, availableProduct(), 11, unavailable));
+
+        assertThatThrownBy(() -> transactionService.createTransactions(
+                new CreateTransactionBatchRequest(List.of(10, 11), true), CLIENT_ID, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[11]");
+        verifyNoInteractions(transactionBatchRepository);
+    }
+
+    private static Transaction written(int id, long xid) {
+        Transaction transaction = transaction(id, TransitionState.REQUESTED);
+        ReflectionTestUtils.setField(transaction, "updateXid", xid);
+        return transaction;
+    }
+
+    @Test
+    void getChangesByUser_WithPartialPage_ShouldAdvanceToTheSnapshotHorizon() {
+        when(transactionRepository.currentSnapshotXmin()).thenReturn(900L);
+        when(transactionRepository.findChangesByUser(CLIENT_ID, 100L, 900L, 3))
+                .thenReturn(List.of(written(1, 120), written(2, 130)));
+
+        TransactionChanges changes = transactionService.getChangesByUser(CLIENT_ID, 100L, 3);
+
+        assertThat(changes.changes()).extracting(Transaction::getId).containsExactly(1, 2);
+        assertThat(changes.highWaterMark()).isEqualTo(900L);
+        assertThat(changes.hasMore()).isFalse();
+    }
+
+    @Test
+    void getChangesByUser_WithFullPage_ShouldNotSplitTheLastWriteTransaction() {
+        when(transactionRepository.currentSnapshotXmin()).thenReturn(900L);
+        when(transactionRepository.findChangesByUser(CLIENT_ID, 0L, 900L, 3))
+                .thenReturn(List.of(written(1, 120), written(2, 130), written(3, 130)));
+
+        TransactionChanges changes = transactionService.getChangesByUser(CLIENT_ID, 0L, 3);
+
+        // Les lignes de la transaction 130 sont relivrées en entier à la page suivante
+        assertThat(changes.changes()).extracting(Transaction::getId).containsExactly(1);
+        assertThat(changes.highWaterMark()).isEqualTo(130L);
+        assertThat(changes.hasMore()).isTrue();
+    }
+
+    @Test
+    void getChangesByUser_WithPageFilledByOneWriteTransaction_ShouldReturnItWhole() {
+        when(transactionRepository.currentSnapshotXmin()).thenReturn(900L);
+        when(transactionRepository.findChangesByUser(CLIENT_ID, 130L, 900L, 2))
+                .thenReturn(List.of(written(2, 130), written(3, 130)));
+        when(transactionRepository.findChangesByUserAndXid(CLIENT_ID, 130L))
+                .thenReturn(List.of(written(2, 130), written(3, 130), written(4, 130)));
+
+        TransactionChanges changes = transactionService.getChangesByUser(CLIENT_ID, 130L, 2);
+
+        assertThat(changes.changes()).extracting(Transaction::getId).containsExactly(2, 3, 4);
+        assertThat(changes.highWaterMark()).isEqualTo(131L);
+        assertThat(changes.hasMore()).isTrue();
+    }
+}
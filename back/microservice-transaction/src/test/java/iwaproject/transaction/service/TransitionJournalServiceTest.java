@@ -0,0 +1,97 @@
+package iwaproject.transaction.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iwaproject.transaction.enums.TransitionState;
+import iwaproject.transaction.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransitionJournalServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransitionJournalService journalService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        journalService = new TransitionJournalService(jdbcTemplate, meterRegistry, 100, 10, 3);
+    }
+
+    private static Transaction transaction(int id) {
+        Transaction transaction = new Transaction(TransitionState.REQUESTED, 10, "client-1", "provider-1");
+        ReflectionTestUtils.setField(transaction, "id", id);
+        return transaction;
+    }
+
+    // Copie de chaque lot au moment de l'écriture (la liste est réutilisée ensuite)
+    private final List<List<?>> writtenBatches = new ArrayList<>();
+
+    private void stubBatchUpdate(int failures) {
+        AtomicInteger calls = new AtomicInteger();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    writtenBatches.add(List.copyOf(invocation.<Collection<?>>getArgument(1)));
+                    if (calls.incrementAndGet() <= failures) {
+                        throw new DataAccessResourceFailureException("connection refused");
+                    }
+                    return new int[0][];
+                });
+    }
+
+    private double dropped() {
+        return meterRegistry.counter("transaction.journal.dropped").count();
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldReplayTheBatchOnTheNextPass() {
+        stubBatchUpdate(1);
+        journalService.recordCreation(transaction(1), "client-1");
+
+        journalService.flush();
+        journalService.recordCreation(transaction(2), "client-1");
+        journalService.flush();
+
+        assertThat(writtenBatches).hasSize(3);
+        assertThat(writtenBatches.get(1)).isEqualTo(writtenBatches.get(0)).hasSize(1);
+        assertThat(writtenBatches.get(2)).hasSize(1).isNotEqualTo(writtenBatches.get(0));
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void flush_WhenWriteKeepsFailing_ShouldDropTheBatchAfterMaxAttempts() {
+        stubBatchUpdate(3);
+        journalService.recordCreation(transaction(1), "client-1");
+        journalService.recordCreation(transaction(2), "client-1");
+
+        journalService.flush();
+        journalService.flush();
+        journalService.flush();
+
+        assertThat(dropped()).isEqualTo(2.0);
+        journalService.recordCreation(transaction(3), "client-1");
+        journalService.flush();
+        assertThat(writtenBatches).hasSize(4);
+        assertThat(writtenBatches.get(3)).hasSize(1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.iwaproject.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the read replicas (datasource.replicas.urls), everything else
+ * to the primary. Only active when replicas are configured; otherwise the auto-configured
+ * DataSource is used.
+ * The connection is fetched lazily, at the first statement, once the transaction is known to be
+ * read-only: {@code @Transactional(readOnly = true)} then reaches a replica.
+ * Every pool gets the spring.datasource.hikari.* settings, like the auto-configured one.
+ */
+@AutoConfiguration(before = DataSourceAutoConfiguration.class)
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.isBlank()")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReadReplicaAutoConfiguration {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig replicaRoutingPoolConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean(destroyMethod = "close", defaultCandidate = false)
+    public ReplicaRoutingDataSource readOnlyDataSource(DataSourceProperties properties,
+                                                      @Qualifier("replicaRoutingPoolConfig") HikariConfig poolConfig,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${datasource.replicas.urls}") String urls,
+                                                      @Value("${datasource.replicas.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                                                      @Value("${datasource.replicas.max-lag-ms:5000}") long maxLagMs,
+                                                      @Value("${datasource.replicas.check-interval-ms:5000}") long checkIntervalMs) {
+        HikariDataSource primary = pool("primary", properties.determineUrl(), properties, poolConfig, meterRegistry);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        String[] replicaUrls = urls.split(",");
+        for (int i = 0; i < replicaUrls.length; i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource replica = pool(name, replicaUrls[i].trim(), properties, poolConfig, meterRegistry);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+
+        ReplicaRoutingDataSource readOnlyDataSource = new ReplicaRoutingDataSource(primary, replicas, maxLagMs, meterRegistry);
+        readOnlyDataSource.start(checkIntervalMs);
+        return readOnlyDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("readOnlyDataSource") ReplicaRoutingDataSource readOnlyDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(readOnlyDataSource.getPrimary());
+        dataSource.setReadOnlyDataSource(readOnlyDataSource);
+        // Postgres defaults, so that no connection is needed just to detect them
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    // Pool metrics (hikaricp.connections.*) are tagged with the pool name
+    private static HikariDataSource pool(String name, String url, DataSourceProperties properties,
+                                         HikariConfig config, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        config.copyStateTo(pool);
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(properties.determineUsername());
+        pool.setPassword(properties.determinePassword());
+        pool.setDriverClassName(properties.determineDriverClassName());
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
@@ -0,0 +1,175 @@
+package com.iwaproject.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource for read-only transactions: connections come round-robin from the replica pools
+ * whose replication lag is within the limit, and from the primary when no replica is.
+ * Replica lag is checked periodically on a dedicated thread; a replica that fails to hand out
+ * a connection is excluded until its next successful check.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    // NULL (lag unknown) unless the WAL receiver is streaming from the primary: a disconnected
+    // replica has replayed all it received and would otherwise report no lag while falling behind.
+    // Then 0 when the replica has replayed all the WAL it received (no writes on the primary means no replay).
+    // Without pg_read_all_stats, pg_stat_wal_receiver only shows the pid of a running receiver
+    private static final String LAG_SQL = """
+            SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver
+                                         WHERE pid IS NOT NULL AND COALESCE(status, 'streaming') = 'streaming') THEN NULL
+                        WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END
+            """;
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter connections;
+        // Unavailable until the first lag check
+        private volatile boolean available;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(String name, DataSource dataSource, Counter connections) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.connections = connections;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final double maxLagSeconds;
+    private final Counter primaryConnections;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMs,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagSeconds = maxLagMs / 1000.0;
+        this.primaryConnections = readOnlyConnections("primary", meterRegistry);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource, readOnlyConnections(name, meterRegistry));
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("pool", name)
+                    .baseUnit("seconds")
+                    .description("Replication lag of the replica at the last check (NaN when unreachable or not replicating)")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .tag("pool", name)
+                    .description("Whether the replica currently serves read-only transactions")
+                    .register(meterRegistry);
+            this.replicas.add(replica);
+        });
+    }
+
+    private static Counter readOnlyConnections(String pool, MeterRegistry meterRegistry) {
+        return Counter.builder("datasource.read-only.connections")
+                .tag("pool", pool)
+                .description("Connections handed out to read-only transactions")
+                .register(meterRegistry);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Check the replicas now, then every {@code intervalMs}
+     */
+    public void start(long intervalMs) {
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.available;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_SQL)) {
+                rs.next();
+                double lagSeconds = rs.getDouble(1);
+                replica.lagSeconds = rs.wasNull() ? Double.NaN : lagSeconds;
+                // NaN (not replicating) never compares below the limit
+                replica.available = replica.lagSeconds <= maxLagSeconds;
+            } catch (SQLException e) {
+                replica.lagSeconds = Double.NaN;
+                replica.available = false;
+                log.debug("Replica {} lag check failed: {}", replica.name, e.getMessage());
+            }
+            if (wasAvailable != replica.available) {
+                log.info("Replica {} {} (lag {}s)", replica.name,
+                        replica.available ? "serving read-only transactions" : "excluded, reads go to the primary",
+                        replica.lagSeconds);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.available) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.available = false;
+                log.warn("Replica {} excluded until its next lag check: {}", replica.name, e.getMessage());
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pools are configured with the datasource credentials");
+    }
+
+    @Override
+    public void close() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        replicas.forEach(replica -> closePool(replica.dataSource));
+        closePool(primary);
+    }
+
+    private static void closePool(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+}
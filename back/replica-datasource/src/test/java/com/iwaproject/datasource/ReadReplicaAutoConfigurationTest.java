@@ -0,0 +1,49 @@
+package com.iwaproject.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadReplicaAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ReadReplicaAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:postgresql://localhost:1/primary",
+                    "spring.datasource.username=app",
+                    "datasource.replicas.check-interval-ms=600000");
+
+    @Test
+    void withoutReplicas_ShouldNotReplaceTheDataSource() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ReplicaRoutingDataSource.class));
+    }
+
+    @Test
+    void pools_ShouldUseTheHikariSettings() {
+        contextRunner
+                .withPropertyValues(
+                        "datasource.replicas.urls=jdbc:postgresql://localhost:1/replica",
+                        "spring.datasource.hikari.maximum-pool-size=7",
+                        "spring.datasource.hikari.minimum-idle=2",
+                        "spring.datasource.hikari.connection-timeout=250")
+                .run(context -> {
+                    assertThat(context.getBean(DataSource.class)).isInstanceOf(LazyConnectionDataSourceProxy.class);
+                    HikariDataSource primary = (HikariDataSource) context.getBean(ReplicaRoutingDataSource.class).getPrimary();
+                    assertThat(primary.getPoolName()).isEqualTo("primary");
+                    assertThat(primary.getJdbcUrl()).isEqualTo("jdbc:postgresql://localhost:1/primary");
+                    assertThat(primary.getUsername()).isEqualTo("app");
+                    assertThat(primary.getMaximumPoolSize()).isEqualTo(7);
+                    assertThat(primary.getMinimumIdle()).isEqualTo(2);
+                    assertThat(primary.getConnectionTimeout()).isEqualTo(250);
+                });
+    }
+}
@@ -0,0 +1,139 @@
+package com.iwaproject.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+    private ReplicaRoutingDataSource readOnlyDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = dataSource(0);
+        replica1 = dataSource(0);
+        replica2 = dataSource(0);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        readOnlyDataSource = new ReplicaRoutingDataSource(primary, replicas, 5000, meterRegistry);
+    }
+
+    // DataSource whose connections report the given replication lag
+    private static DataSource dataSource(double lagSeconds) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        lenient().when(dataSource.getConnection()).thenReturn(connection);
+        lenient().when(connection.createStatement()).thenReturn(statement);
+        lenient().when(statement.executeQuery(anyString())).thenReturn(rs);
+        lenient().when(rs.next()).thenReturn(true);
+        lenient().when(rs.getDouble(1)).thenReturn(lagSeconds);
+        return dataSource;
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get("datasource.read-only.connections").tag("pool", pool).counter().count();
+    }
+
+    @Test
+    void beforeFirstLagCheck_ShouldUsePrimary() throws SQLException {
+        readOnlyDataSource.getConnection();
+
+        assertThat(connections("primary")).isEqualTo(1.0);
+        verify(replica1, never()).getConnection();
+    }
+
+    @Test
+    void availableReplicas_ShouldBeUsedRoundRobin() throws SQLException {
+        readOnlyDataSource.checkReplicas();
+
+        for (int i = 0; i < 4; i++) {
+            readOnlyDataSource.getConnection();
+        }
+
+        assertThat(connections("replica-1")).isEqualTo(2.0);
+        assertThat(connections("replica-2")).isEqualTo(2.0);
+        assertThat(connections("primary")).isZero();
+    }
+
+    @Test
+    void laggingReplica_ShouldBeSkipped() throws SQLException {
+        when(replica1.getConnection().createStatement().executeQuery(anyString()).getDouble(1)).thenReturn(30.0);
+        readOnlyDataSource.checkReplicas();
+
+        readOnlyDataSource.getConnection();
+        readOnlyDataSource.getConnection();
+
+        assertThat(connections("replica-2")).isEqualTo(2.0);
+        assertThat(meterRegistry.get("datasource.replica.available").tag("pool", "replica-1").gauge().value()).isZero();
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("pool", "replica-1").gauge().value()).isEqualTo(30.0);
+    }
+
+    @Test
+    void replicaNotStreaming_ShouldBeSkipped() throws SQLException {
+        // Lag query returns NULL when the WAL receiver is disconnected
+        ResultSet rs = replica1.getConnection().createStatement().executeQuery(anyString());
+        when(rs.wasNull()).thenReturn(true);
+        readOnlyDataSource.checkReplicas();
+
+        readOnlyDataSource.getConnection();
+        readOnlyDataSource.getConnection();
+
+        assertThat(connections("replica-2")).isEqualTo(2.0);
+        assertThat(meterRegistry.get("datasource.replica.available").tag("pool", "replica-1").gauge().value()).isZero();
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("pool", "replica-1").gauge().value()).isNaN();
+    }
+
+    @Test
+    void unreachableReplicas_ShouldFallBackToPrimary() throws SQLException {
+        readOnlyDataSource.checkReplicas();
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(replica2.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        readOnlyDataSource.getConnection();
+        readOnlyDataSource.getConnection();
+
+        assertThat(connections("primary")).isEqualTo(2.0);
+        // Excluded after the first failure, until the next lag check
+        verify(replica1, times(2)).getConnection();
+    }
+
+    @Test
+    void readOnlyTransactionConnection_ShouldReachAReplica() throws SQLException {
+        readOnlyDataSource.checkReplicas();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(readOnlyDataSource);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.createStatement();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement();
+        }
+
+        assertThat(connections("replica-1")).isEqualTo(1.0);
+        verify(primary, times(1)).getConnection();
+    }
+}
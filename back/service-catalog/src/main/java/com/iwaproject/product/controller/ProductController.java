@@ -19,6 +19,8 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ProductController {
 
+    private static final int MAX_BATCH_SIZE = 200;
+
     private final ProductService productService;
 
     // GET /api/products - Récupérer tous les services
@@ -32,6 +34,15 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
+    // GET /api/products/batch?ids=1,2,3 - Récupérer plusieurs services en un appel
+    @GetMapping("/batch")
+    public ResponseEntity<List<ProductDTO>> getProductsByIds(@RequestParam List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
     // GET /api/products/{id} - Récupérer un service par ID
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Integer id) {
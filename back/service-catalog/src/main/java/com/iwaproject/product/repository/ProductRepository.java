@@ -21,6 +21,10 @@ public interface ProductRepository extends CrudRepository<Product, Integer> {
     @Query("SELECT * FROM SERVICE WHERE IS_AVAILABLE = true")
     List<Product> findByIsAvailableTrue();
 
+    // Trouver plusieurs services par ID en une requête
+    @Query("SELECT * FROM SERVICE WHERE ID_SERVICE IN (:ids)")
+    List<Product> findByIdServiceIn(@Param("ids") List<Integer> ids);
+
     // Trouver par jeu
     @Query("SELECT * FROM SERVICE WHERE GAME = :game")
     List<Product> findByGame(@Param("game") String game);
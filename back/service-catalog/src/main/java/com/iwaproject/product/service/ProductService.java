@@ -56,6 +56,13 @@ public class ProductService {
                 .map(ProductDTO::fromEntity);
     }
 
+    // Récupérer plusieurs services par ID (les ID inconnus sont ignorés)
+    public List<ProductDTO> getProductsByIds(List<Integer> ids) {
+        return productRepository.findByIdServiceIn(ids).stream()
+                .map(ProductDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     // Récupérer les services par jeu
     public List<ProductDTO> getProductsByGame(Game game) {
         return productRepository.findByGame(game.name()).stream()
@@ -24,9 +24,11 @@ public class StripeController {
      * POST /api/stripe/connect-account
      */
     @PostMapping("/connect-account")
-    public ResponseEntity<?> createConnectAccount(@RequestBody CreateConnectAccountRequest request) {
+    public ResponseEntity<?> createConnectAccount(
+            @RequestBody CreateConnectAccountRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            CreateConnectAccountResponse response = stripeService.createConnectAccount(request);
+            CreateConnectAccountResponse response = stripeService.createConnectAccount(request, idempotencyKey);
             return ResponseEntity.ok(response);
         } catch (StripeException e) {
             log.error("Error creating connect account", e);
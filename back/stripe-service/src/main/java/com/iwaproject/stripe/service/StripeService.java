@@ -23,9 +23,11 @@ public class StripeService {
     private final StripeConfig stripeConfig;
 
     /**
-     * Create a Stripe Connect account
+     * Create a Stripe Connect account. With an idempotency key, a retried request returns
+     * the account created by the first one instead of creating a second account.
      */
-    public CreateConnectAccountResponse createConnectAccount(CreateConnectAccountRequest request) throws StripeException {
+    public CreateConnectAccountResponse createConnectAccount(CreateConnectAccountRequest request,
+                                                             String idempotencyKey) throws StripeException {
         log.info("Creating Connect account for email: {}", request.getEmail());
         
         AccountCreateParams params = AccountCreateParams.builder()
@@ -48,7 +50,9 @@ public class StripeService {
                 )
                 .build();
 
-        Account account = Account.create(params);
+        Account account = idempotencyKey != null
+                ? Account.create(params, RequestOptions.builder().setIdempotencyKey(idempotencyKey).build())
+                : Account.create(params);
         log.info("Created Connect account with ID: {}", account.getId());
         
         return CreateConnectAccountResponse.builder()
@@ -66,12 +66,29 @@ public class StripeServiceTest {
         accountStatic.when(() -> Account.create(any(AccountCreateParams.class))).thenReturn(mockAccount);
 
         CreateConnectAccountResponse resp = stripeService.createConnectAccount(
-                CreateConnectAccountRequest.builder().email("user@example.com").build()
+                CreateConnectAccountRequest.builder().email("user@example.com").build(), null
         );
 
         assertThat(resp.getAccountId()).isEqualTo("acct_123");
     }
 
+    @Test
+    void createConnectAccount_withIdempotencyKey_passesItToStripe() throws StripeException {
+        Account mockAccount = mock(Account.class);
+        when(mockAccount.getId()).thenReturn("acct_123");
+        accountStatic.when(() -> Account.create(any(AccountCreateParams.class), any(RequestOptions.class)))
+                .thenReturn(mockAccount);
+
+        CreateConnectAccountResponse resp = stripeService.createConnectAccount(
+                CreateConnectAccountRequest.builder().email("user@example.com").build(), "stripe-onboarding-user-1"
+        );
+
+        assertThat(resp.getAccountId()).isEqualTo("acct_123");
+        accountStatic.verify(() -> Account.create(any(AccountCreateParams.class),
+                argThat((RequestOptions options) -> "stripe-onboarding-user-1".equals(options.getIdempotencyKey()))));
+        accountStatic.verify(() -> Account.create(any(AccountCreateParams.class)), never());
+    }
+
     @Test
     void createAccountLink_usesFrontendUrlAndReturnPath() throws StripeException {
         AccountLink mockLink = mock(AccountLink.class);
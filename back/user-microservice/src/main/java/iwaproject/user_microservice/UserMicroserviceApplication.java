@@ -2,8 +2,10 @@ package iwaproject.user_microservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UserMicroserviceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,162 @@
+package iwaproject.user_microservice.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticates requests with the identity header signed (HMAC-SHA256) by the API gateway
+ * after it has verified the JWT, instead of verifying the JWT signature again.
+ * The resulting JwtAuthenticationToken is cached by header value until the token expires.
+ * Requests without the header fall through to the regular JWT resource server.
+ */
+@Slf4j
+public class GatewayIdentityAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Internal-Identity";
+
+    // Set when the request is authenticated by this filter: the bearer token is then not decoded again
+    public static final String AUTHENTICATED_ATTRIBUTE = GatewayIdentityAuthenticationFilter.class.getName() + ".AUTHENTICATED";
+
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {
+    };
+
+    private final SecretKeySpec key;
+    private final ObjectMapper objectMapper;
+    private final int maxCacheSize;
+    private final Map<String, JwtAuthenticationToken> cache = new ConcurrentHashMap<>();
+
+    public GatewayIdentityAuthenticationFilter(String secret, ObjectMapper objectMapper, int maxCacheSize) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.objectMapper = objectMapper;
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String identity = request.getHeader(HEADER);
+        if (identity == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        JwtAuthenticationToken authentication = cache.get(identity);
+        if (authentication == null || isExpired(authentication.getToken())) {
+            authentication = authenticate(identity, request.getHeader(HttpHeaders.AUTHORIZATION));
+            if (authentication == null) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid gateway identity");
+                return;
+            }
+            cache(identity, authentication);
+        }
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        request.setAttribute(AUTHENTICATED_ATTRIBUTE, Boolean.TRUE);
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * @return the authentication for a valid, unexpired identity, or null
+     */
+    JwtAuthenticationToken authenticate(String identity, String authorization) {
+        int dot = identity.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String payload = identity.substring(0, dot);
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(identity.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            log.warn("Rejected gateway identity with an invalid signature");
+            return null;
+        }
+
+        Map<String, Object> claims;
+        try {
+            claims = objectMapper.readValue(Base64.getUrlDecoder().decode(payload), CLAIMS_TYPE);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        if (!(claims.get("sub") instanceof String) || !(claims.get("exp") instanceof Number exp)) {
+            return null;
+        }
+
+        // The original bearer token (still forwarded by the gateway) is kept as token value
+        String tokenValue = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : identity;
+        Jwt jwt = Jwt.withTokenValue(tokenValue)
+                .header("alg", "HS256")
+                .claims(c -> c.putAll(claims))
+                .expiresAt(Instant.ofEpochSecond(exp.longValue()))
+                .build();
+        if (isExpired(jwt)) {
+            return null;
+        }
+        return new JwtAuthenticationToken(jwt, authorities(claims));
+    }
+
+    // Same mapping as SecurityConfig.jwtAuthenticationConverter: realm_access.roles -> ROLE_*
+    private static Collection<GrantedAuthority> authorities(Map<String, Object> claims) {
+        if (claims.get("realm_access") instanceof Map<?, ?> realmAccess && realmAccess.get("roles") instanceof List<?> roles) {
+            return roles.stream()
+                    .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role))
+                    .toList();
+        }
+        return List.of();
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static boolean isExpired(Jwt jwt) {
+        return jwt.getExpiresAt() == null || !jwt.getExpiresAt().isAfter(Instant.now());
+    }
+
+    private void cache(String identity, JwtAuthenticationToken authentication) {
+        if (cache.size() >= maxCacheSize) {
+            cache.values().removeIf(cached -> isExpired(cached.getToken()));
+            if (cache.size() >= maxCacheSize) {
+                cache.clear();
+            }
+        }
+        cache.put(identity, authentication);
+    }
+}
@@ -0,0 +1,134 @@
+package iwaproject.user_microservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import iwaproject.user_microservice.kafka.event.KeycloakUserEvent;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka configuration for consuming Keycloak events in batches.
+ * Offsets are committed once a batch has been written. Records that are invalid, cannot be
+ * deserialized or violate a constraint are published to the dead-letter topic right away;
+ * any other failure (e.g. the database being unavailable) is retried with an exponential
+ * backoff until it succeeds, so valid events are never dead-lettered by an outage.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:kafka:29092}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${spring.kafka.consumer.auto-offset-reset:earliest}")
+    private String autoOffsetReset;
+
+    @Value("${kafka.topic.keycloak-events-dlq}")
+    private String deadLetterTopic;
+
+    @Value("${kafka.keycloak-events.concurrency:3}")
+    private int concurrency;
+
+    @Value("${kafka.keycloak-events.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.keycloak-events.retry-initial-interval-ms:1000}")
+    private long retryInitialIntervalMs;
+
+    @Value("${kafka.keycloak-events.retry-max-interval-ms:60000}")
+    private long retryMaxIntervalMs;
+
+    /**
+     * Consumer factory for KeycloakUserEvent, with client metrics (including records-lag) exported to Micrometer
+     */
+    @Bean
+    public ConsumerFactory<String, KeycloakUserEvent> keycloakEventConsumerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // A record that cannot be deserialized reaches the listener with a null value instead of blocking the partition
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, KeycloakUserEvent.class.getName());
+        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+
+        DefaultKafkaConsumerFactory<String, KeycloakUserEvent> factory = new DefaultKafkaConsumerFactory<>(config);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * Kafka template for the dead-letter topic: events are re-sent as JSON, undeserializable records as their original bytes
+     */
+    @Bean
+    public KafkaTemplate<String, Object> keycloakEventDeadLetterTemplate() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        Map<Class<?>, Serializer<?>> serializers = new HashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(KeycloakUserEvent.class, new JsonSerializer<>());
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config,
+                new StringSerializer(), new DelegatingByTypeSerializer(serializers)));
+    }
+
+    /**
+     * Batch listener container factory for Keycloak events
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KeycloakUserEvent> keycloakEventBatchFactory(
+            ConsumerFactory<String, KeycloakUserEvent> keycloakEventConsumerFactory,
+            KafkaTemplate<String, Object> keycloakEventDeadLetterTemplate) {
+        ConcurrentKafkaListenerContainerFactory<String, KeycloakUserEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(keycloakEventConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(keycloakEventDeadLetterTemplate,
+                (record, exception) -> new TopicPartition(deadLetterTopic, -1));
+        // No max elapsed time: transient failures are retried until they go through
+        ExponentialBackOff backOff = new ExponentialBackOff(retryInitialIntervalMs, ExponentialBackOff.DEFAULT_MULTIPLIER);
+        backOff.setMaxInterval(retryMaxIntervalMs);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        // Deserialization errors are not retryable by default; invalid events and constraint violations neither
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class, DataIntegrityViolationException.class);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+}
@@ -47,7 +47,18 @@ public class KafkaProducerConfig {
      */
     @Bean
     public ProducerFactory<String, UserEvent> producerFactoryUserEvent() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+        // Relayed from the outbox: idempotent producer (no duplicates or reordering on retry
+        // within a partition) and compressed batches
+        Map<String, Object> config = producerConfigs();
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        config.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30000);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        return new DefaultKafkaProducerFactory<>(config);
     }
 
     /**
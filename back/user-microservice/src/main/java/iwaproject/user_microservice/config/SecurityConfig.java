@@ -1,5 +1,6 @@
 package iwaproject.user_microservice.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +13,9 @@ import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -29,6 +33,19 @@ public class SecurityConfig {
     @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri:#{null}}")
     private String jwkSetUri;
 
+    // Shared with the API gateway; when set, the gateway-signed identity header is accepted
+    @Value("${security.gateway-identity.secret:}")
+    private String gatewayIdentitySecret;
+
+    @Value("${security.gateway-identity.cache-size:10000}")
+    private int gatewayIdentityCacheSize;
+
+    private final ObjectMapper objectMapper;
+
+    public SecurityConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -52,15 +69,32 @@ public class SecurityConfig {
                         .requestMatchers("/api/webhooks/**").permitAll()
                         
                         // Public read-only endpoints
+                        .requestMatchers(HttpMethod.GET, "/api/users/availability").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/users/{userId}").permitAll()
                         
                         // All other endpoints require authentication (if OAuth2 enabled)
                         .anyRequest().authenticated()
                 );
 
+        // Trusted gateway identity mode: requests carrying the gateway-signed identity header
+        // are authenticated with an HMAC check instead of a JWT signature verification
+        boolean gatewayIdentity = !gatewayIdentitySecret.isEmpty();
+        if (gatewayIdentity) {
+            http.addFilterBefore(
+                    new GatewayIdentityAuthenticationFilter(gatewayIdentitySecret, objectMapper, gatewayIdentityCacheSize),
+                    BearerTokenAuthenticationFilter.class);
+        }
+
         // Only enable OAuth2 Resource Server if issuer-uri is configured
         if (issuerUri != null && !issuerUri.isEmpty()) {
+            DefaultBearerTokenResolver defaultResolver = new DefaultBearerTokenResolver();
+            BearerTokenResolver bearerTokenResolver = gatewayIdentity
+                    ? request -> request.getAttribute(GatewayIdentityAuthenticationFilter.AUTHENTICATED_ATTRIBUTE) != null
+                            ? null
+                            : defaultResolver.resolve(request)
+                    : defaultResolver;
             http.oauth2ResourceServer(oauth2 -> oauth2
+                    .bearerTokenResolver(bearerTokenResolver)
                     .jwt(jwt -> jwt
                             .decoder(jwtDecoder())
                             .jwtAuthenticationConverter(jwtAuthenticationConverter()))
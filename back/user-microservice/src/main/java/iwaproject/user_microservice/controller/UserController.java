@@ -1,12 +1,18 @@
 package iwaproject.user_microservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import iwaproject.user_microservice.dto.UpdateProfileDTO;
+import iwaproject.user_microservice.dto.UserAvailabilityDTO;
 import iwaproject.user_microservice.dto.UserProfileDTO;
 import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.dto.UserSearchSliceDTO;
 import iwaproject.user_microservice.dto.UserStatsDTO;
+import iwaproject.user_microservice.service.UserAvailabilityService;
+import iwaproject.user_microservice.service.UserBatchLookupService;
 import iwaproject.user_microservice.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,11 +21,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -30,7 +40,12 @@ import java.util.List;
 @SecurityRequirement(name = "bearer-jwt")
 public class UserController {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     private final UserService userService;
+    private final UserBatchLookupService userBatchLookupService;
+    private final UserAvailabilityService availabilityService;
+    private final ObjectMapper objectMapper;
 
 
     /**
@@ -47,13 +62,9 @@ public class UserController {
 
         log.info("GET /api/users/profile - User (token sub): {}", userId);
 
-        // Auto-create or resolve existing user if they don't exist yet (first login sync)
-        // Use the returned User (might be an existing record with a different internal id)
-        iwaproject.user_microservice.entity.User resolvedUser = userService.getOrCreateUser(userId, username, email, firstName, lastName);
-
-        // Fetch profile using the resolved user's id to avoid conflicts when an existing user
-        // (by username/email) already exists with a different id
-        UserProfileDTO profile = userService.getUserProfile(resolvedUser.getId());
+        // Cached or single lookup by id; auto-creates the user on first login (sync from Keycloak).
+        // The profile may belong to an existing record with a different internal id (matched by username/email)
+        UserProfileDTO profile = userService.getOrCreateProfile(userId, username, email, firstName, lastName);
         return ResponseEntity.ok(profile);
     }
 
@@ -123,16 +134,15 @@ public class UserController {
      * Search users by username or email
      */
     @GetMapping("/search")
-    @Operation(summary = "Search users", description = "Search users by username or email with pagination")
-    public ResponseEntity<Page<UserPublicDTO>> searchUsers(
+    @Operation(summary = "Search users", description = "Search users by username or email; prefix matches first, keyset-paginated via cursor")
+    public ResponseEntity<UserSearchSliceDTO> searchUsers(
             @RequestParam String query,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size) {
         
-        log.info("GET /api/users/search - query: {}, page: {}, size: {}", query, page, size);
+        log.info("GET /api/users/search - query: {}, cursor: {}, size: {}", query, cursor, size);
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "username"));
-        Page<UserPublicDTO> users = userService.searchUsers(query, pageable);
+        UserSearchSliceDTO users = userService.searchUsers(query, cursor, Math.clamp(size, 1, MAX_SEARCH_PAGE_SIZE));
         return ResponseEntity.ok(users);
     }
 
@@ -150,14 +160,33 @@ public class UserController {
 
     /**
      * Get multiple users by their IDs (batch operation)
+     * The JSON array is streamed as profiles are resolved (cache first, then database chunks).
+     * If a later chunk fails, the array is left unterminated so that the caller gets a parse error
+     * instead of a well-formed but truncated list.
      */
     @PostMapping("/batch")
     @Operation(summary = "Get users by IDs", description = "Returns multiple users by their IDs (batch operation)")
-    public ResponseEntity<List<UserPublicDTO>> getUsersByIds(@RequestBody List<String> userIds) {
+    public ResponseEntity<StreamingResponseBody> getUsersByIds(@RequestBody List<String> userIds) {
         log.info("POST /api/users/batch - requesting {} users", userIds.size());
         
-        List<UserPublicDTO> users = userService.getUsersByIds(userIds);
-        return ResponseEntity.ok(users);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                generator.writeStartArray();
+                userBatchLookupService.streamPublicProfiles(userIds, chunk -> {
+                    try {
+                        for (UserPublicDTO user : chunk) {
+                            generator.writeObject(user);
+                        }
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
@@ -184,6 +213,24 @@ public class UserController {
         return ResponseEntity.ok(exists);
     }
 
+    /**
+     * Check if a username is still available (e.g. before registration).
+     * Public, so emails are deliberately not checked here: that would let anyone test whether an email is registered.
+     */
+    @GetMapping("/availability")
+    @Operation(summary = "Check username availability",
+            description = "Answered from an in-memory Bloom filter; only possible matches are checked in the database")
+    public ResponseEntity<UserAvailabilityDTO> checkAvailability(@RequestParam String username) {
+        if (username.isBlank()) {
+            throw new IllegalArgumentException("username is required");
+        }
+
+        UserAvailabilityDTO availability = UserAvailabilityDTO.builder()
+                .usernameAvailable(!availabilityService.isUsernameTaken(username))
+                .build();
+        return ResponseEntity.ok(availability);
+    }
+
     /**
      * Get user statistics
      */
@@ -1,6 +1,7 @@
 package iwaproject.user_microservice.controller;
 
 import iwaproject.user_microservice.dto.KeycloakUserWebhookDTO;
+import iwaproject.user_microservice.service.UserWebhookIngestionService;
 import iwaproject.user_microservice.service.UserWebhookService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,16 +20,20 @@ import org.springframework.web.bind.annotation.*;
 public class UserWebhookController {
 
     private final UserWebhookService webhookService;
+    private final UserWebhookIngestionService ingestionService;
 
     /**
-     * Handle user creation from Keycloak
+     * Handle user creation from Keycloak (accepted once stored in the inbox, applied with the next batch)
      */
     @PostMapping("/users")
     public ResponseEntity<Void> handleUserCreate(@RequestBody KeycloakUserWebhookDTO userData) {
-        log.info("Received user creation webhook for user: {}", userData.getId());
+        log.debug("Received user creation webhook for user: {}", userData.getId());
         try {
-            webhookService.createUser(userData);
-            return ResponseEntity.status(HttpStatus.CREATED).build();
+            ingestionService.submit(userData);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected user creation webhook: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error handling user creation webhook", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -36,16 +41,17 @@ public class UserWebhookController {
     }
 
     /**
-     * Handle user update from Keycloak
+     * Handle user update from Keycloak (accepted once stored in the inbox, applied with the next batch)
      */
     @PutMapping("/users/{userId}")
     public ResponseEntity<Void> handleUserUpdate(
             @PathVariable String userId,
             @RequestBody KeycloakUserWebhookDTO userData) {
-        log.info("Received user update webhook for user: {}", userId);
+        log.debug("Received user update webhook for user: {}", userId);
         try {
-            webhookService.updateUser(userId, userData);
-            return ResponseEntity.ok().build();
+            userData.setId(userId);
+            ingestionService.submit(userData);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
         } catch (Exception e) {
             log.error("Error handling user update webhook", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -59,6 +65,8 @@ public class UserWebhookController {
     public ResponseEntity<Void> handleUserDelete(@PathVariable String userId) {
         log.info("Received user deletion webhook for user: {}", userId);
         try {
+            // A create/update still queued for this user is applied first
+            ingestionService.flushUser(userId);
             webhookService.deleteUser(userId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
@@ -0,0 +1,17 @@
+package iwaproject.user_microservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Availability of a username
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAvailabilityDTO {
+    private Boolean usernameAvailable;
+}
@@ -0,0 +1,34 @@
+package iwaproject.user_microservice.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in a user search: (match rank, username, id) of the last returned user.
+ * Encoded as URL-safe base64 so clients pass it back unchanged.
+ */
+public record UserSearchCursor(int rank, String username, String id) {
+
+    public static final UserSearchCursor START = new UserSearchCursor(-1, "", "");
+
+    public String encode() {
+        String raw = rank + "\n" + username + "\n" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static UserSearchCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 3);
+            return new UserSearchCursor(Integer.parseInt(parts[0]), parts[1], parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package iwaproject.user_microservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of search results; nextCursor is null on the last page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchSliceDTO {
+    private List<UserPublicDTO> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
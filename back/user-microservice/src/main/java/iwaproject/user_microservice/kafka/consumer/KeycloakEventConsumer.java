@@ -1,34 +1,66 @@
 package iwaproject.user_microservice.kafka.consumer;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import iwaproject.user_microservice.entity.User;
 import iwaproject.user_microservice.kafka.event.KeycloakUserEvent;
 import iwaproject.user_microservice.service.UserService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Kafka consumer that listens to Keycloak user events
- * When a user registers in Keycloak, this consumer creates the corresponding User entity
+ * When users register in Keycloak, this consumer creates the corresponding User entities,
+ * one batch of records per database transaction (see KafkaConsumerConfig)
  * Disabled by default - enable with spring.kafka.enabled=true
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
 public class KeycloakEventConsumer {
 
     private final UserService userService;
+    private final DistributionSummary batchSize;
 
-    @KafkaListener(topics = "${kafka.topic.keycloak-events}", groupId = "${spring.kafka.consumer.group-id}")
-    public void consumeKeycloakEvent(KeycloakUserEvent event) {
-        log.info("Received Keycloak event: {}", event);
+    public KeycloakEventConsumer(UserService userService, MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.batchSize = DistributionSummary.builder("keycloak.events.batch.size")
+                .description("Number of Keycloak event records per consumed batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "${kafka.topic.keycloak-events}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "keycloakEventBatchFactory")
+    public void consumeKeycloakEvents(List<ConsumerRecord<String, KeycloakUserEvent>> records) {
+        log.debug("Received {} Keycloak event(s)", records.size());
+        batchSize.record(records.size());
+
+        // Registrations keyed by user id, in the order of their last record
+        Map<String, ConsumerRecord<String, KeycloakUserEvent>> registrations = new LinkedHashMap<>();
+        for (ConsumerRecord<String, KeycloakUserEvent> record : records) {
+            KeycloakUserEvent event = record.value();
+            if (event == null || event.getEventType() == null || event.getUserId() == null) {
+                // Offsets up to the previous record are committed: write what precedes it first
+                registerUsers(registrations);
+                // The IllegalArgumentException cause makes the error handler dead-letter it without retrying
+                throw new BatchListenerFailedException("Invalid Keycloak event at offset " + record.offset(),
+                        new IllegalArgumentException("Missing event, event type or user id"), record);
+            }
 
-        try {
             switch (event.getEventType()) {
                 case "REGISTER":
-                    handleUserRegistration(event);
+                    registrations.remove(event.getUserId());
+                    registrations.put(event.getUserId(), record);
                     break;
                 case "UPDATE":
                     log.info("User update event received for user: {}", event.getUserId());
@@ -41,23 +73,46 @@ public class KeycloakEventConsumer {
                 default:
                     log.warn("Unknown event type: {}", event.getEventType());
             }
-        } catch (Exception e) {
-            log.error("Error processing Keycloak event: {}", event, e);
-            // In production, you might want to send this to a dead-letter queue
+        }
+        registerUsers(registrations);
+    }
+
+    /**
+     * Create the registered users in one transaction. If a constraint is violated, retry them one by one
+     * to find the failing record, which the error handler dead-letters; any other failure is reported at
+     * the first record of the batch, so that the error handler retries the whole batch after a backoff
+     */
+    private void registerUsers(Map<String, ConsumerRecord<String, KeycloakUserEvent>> registrations) {
+        if (registrations.isEmpty()) {
+            return;
+        }
+        try {
+            userService.registerUsers(registrations.values().stream().map(r -> toUser(r.value())).toList());
+        } catch (DataIntegrityViolationException batchFailure) {
+            log.warn("Batch registration of {} users failed ({}), retrying one by one",
+                    registrations.size(), batchFailure.getMessage());
+            for (ConsumerRecord<String, KeycloakUserEvent> record : registrations.values()) {
+                try {
+                    userService.registerUsers(List.of(toUser(record.value())));
+                } catch (RuntimeException e) {
+                    throw new BatchListenerFailedException("Failed to create user " + record.value().getUserId(), e, record);
+                }
+            }
+        } catch (RuntimeException e) {
+            ConsumerRecord<String, KeycloakUserEvent> first = registrations.values().iterator().next();
+            throw new BatchListenerFailedException("Failed to create " + registrations.size() + " user(s)", e, first);
+        } finally {
+            registrations.clear();
         }
     }
 
-    private void handleUserRegistration(KeycloakUserEvent event) {
-        log.info("Creating user from Keycloak registration: {}", event.getUserId());
-        
-        userService.createUser(
-                event.getUserId(),
-                event.getUsername(),
-                event.getEmail(),
-                event.getFirstName(),
-                event.getLastName()
-        );
-        
-        log.info("User created successfully from Keycloak event: {}", event.getUserId());
+    private static User toUser(KeycloakUserEvent event) {
+        return User.builder()
+                .id(event.getUserId())
+                .username(event.getUsername())
+                .email(event.getEmail())
+                .firstName(event.getFirstName())
+                .lastName(event.getLastName())
+                .build();
     }
 }
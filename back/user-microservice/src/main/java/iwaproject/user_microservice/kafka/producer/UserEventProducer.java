@@ -6,11 +6,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
+
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Kafka producer to publish user events to other microservices
+ * Events are keyed by user id so that the events of a user land on the same partition, in order.
+ * Called by UserEventRelay (services record events in the outbox through UserEventOutboxService)
  * Disabled by default - enable with spring.kafka.enabled=true
  */
 @Component
@@ -24,18 +29,15 @@ public class UserEventProducer {
     @Value("${kafka.topic.user-events}")
     private String userEventsTopic;
 
-    public void publishUserEvent(UserEvent event) {
+    public CompletableFuture<SendResult<String, UserEvent>> publishUserEvent(UserEvent event) {
         String userId = Objects.requireNonNull(event.getUserId(), "userId must not be null");
         String topic = Objects.requireNonNull(userEventsTopic, "userEventsTopic must not be null");
-        log.info("Publishing user event: {} for user: {}", event.getEventType(), userId);
-        kafkaTemplate.send(topic, userId, event)
+        log.debug("Publishing user event: {} for user: {}", event.getEventType(), userId);
+        return kafkaTemplate.send(topic, userId, event)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
                         log.error("Failed to publish user event: {}", event, ex);
-                    } else {
-                        log.info("User event published successfully: {}", event.getEventType());
                     }
                 });
-                
     }
 }
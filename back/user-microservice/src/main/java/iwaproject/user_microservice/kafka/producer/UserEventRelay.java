@@ -0,0 +1,130 @@
+package iwaproject.user_microservice.kafka.producer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import iwaproject.user_microservice.kafka.event.UserEvent;
+import iwaproject.user_microservice.repository.UserEventOutboxRepository;
+import iwaproject.user_microservice.repository.UserEventOutboxRepository.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the user events of the outbox to Kafka, oldest first.
+ * A batch is deleted from the outbox only once every event of it has been acknowledged
+ * (at-least-once: a failed batch is sent again, duplicates included). Events are keyed by
+ * user id and a single relay runs at a time, so events of a user keep their order.
+ * Disabled by default - enable with spring.kafka.enabled=true
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
+public class UserEventRelay {
+
+    private final UserEventOutboxRepository outboxRepository;
+    private final UserEventProducer userEventProducer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public UserEventRelay(UserEventOutboxRepository outboxRepository,
+                          UserEventProducer userEventProducer,
+                          ObjectMapper objectMapper,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${user-event-outbox.batch-size:500}") int batchSize,
+                          @Value("${user-event-outbox.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.userEventProducer = userEventProducer;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = Duration.ofMillis(sendTimeoutMs);
+        Gauge.builder("users.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest user event not yet published to Kafka")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${user-event-outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> relayBatch());
+            } while (published != null && published == batchSize);
+        } catch (RuntimeException e) {
+            // The batch stays in the outbox and is sent again on the next run
+            log.error("Failed to relay user events: {}", e.getMessage());
+        }
+        refreshLag();
+    }
+
+    /**
+     * Sends one batch and deletes it from the outbox, in the current transaction
+     *
+     * @return the number of events published
+     */
+    int relayBatch() {
+        if (!outboxRepository.tryLockRelay()) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxRepository.findOldest(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Sends are pipelined by the producer (linger/batching); the whole batch is then awaited
+        List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            acks.add(userEventProducer.publishUserEvent(readEvent(event)));
+        }
+        try {
+            CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing user events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("User events not acknowledged by Kafka", e);
+        }
+
+        outboxRepository.deleteAll(batch.stream().map(OutboxEvent::id).toList());
+        log.debug("Relayed {} user event(s)", batch.size());
+        return batch.size();
+    }
+
+    private UserEvent readEvent(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.payload(), UserEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox event " + event.id(), e);
+        }
+    }
+
+    private void refreshLag() {
+        try {
+            LocalDateTime oldest = outboxRepository.oldestCreatedAt();
+            lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to compute user event outbox lag: {}", e.getMessage());
+        }
+    }
+}
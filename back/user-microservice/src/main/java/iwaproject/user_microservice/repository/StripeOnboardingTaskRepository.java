@@ -0,0 +1,61 @@
+package iwaproject.user_microservice.repository;
+
+import iwaproject.user_microservice.entity.StripeOnboardingTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StripeOnboardingTaskRepository extends JpaRepository<StripeOnboardingTask, Long> {
+
+    // Enqueue once per user (a second registration event for the same user is a no-op)
+    @Modifying
+    @Query(value = """
+            INSERT INTO stripe_onboarding_outbox (user_id, email, status, attempts, next_attempt_at, created_at)
+            VALUES (:userId, :email, 'PENDING', 0, now(), now())
+            ON CONFLICT (user_id) DO NOTHING
+            """, nativeQuery = true)
+    int enqueue(@Param("userId") String userId, @Param("email") String email);
+
+    // Claim due tasks: rows locked by another instance are skipped, and claimed rows are
+    // leased (next_attempt_at pushed back) so a crashed worker's tasks are retried later
+    @Query(value = """
+            UPDATE stripe_onboarding_outbox SET next_attempt_at = :leaseUntil
+            WHERE id IN (
+                SELECT id FROM stripe_onboarding_outbox
+                WHERE status = 'PENDING' AND next_attempt_at <= now()
+                ORDER BY next_attempt_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<StripeOnboardingTask> claimDue(@Param("limit") int limit, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Record the outcome of an attempt
+    @Modifying
+    @Query("""
+            UPDATE StripeOnboardingTask t
+            SET t.status = :status, t.attempts = t.attempts + 1, t.nextAttemptAt = :nextAttemptAt, t.lastError = :error
+            WHERE t.id = :id
+            """)
+    int recordAttempt(@Param("id") Long id,
+                      @Param("status") StripeOnboardingTask.Status status,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
+
+    // Purge completed tasks (next_attempt_at holds the completion time of DONE tasks)
+    @Modifying
+    @Query(value = """
+            DELETE FROM stripe_onboarding_outbox
+            WHERE id IN (
+                SELECT id FROM stripe_onboarding_outbox
+                WHERE status = 'DONE' AND next_attempt_at < :cutoff
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteDoneBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
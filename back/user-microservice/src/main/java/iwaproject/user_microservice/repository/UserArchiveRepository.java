@@ -0,0 +1,54 @@
+package iwaproject.user_microservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Moves long-deleted users from users to users_archive. Archived ids are never re-created in users
+ * (the inserts of UserRepository and UserBatchRepository skip them).
+ */
+@Repository
+public class UserArchiveRepository {
+
+    // Delete and insert in one statement (atomic per batch); rows locked by a concurrent
+    // transaction are skipped and archived by a later run
+    private static final String ARCHIVE_BATCH_SQL = """
+            WITH moved AS (
+                DELETE FROM users WHERE id IN (
+                    SELECT id FROM users
+                    WHERE deleted_at IS NOT NULL AND deleted_at < ?
+                    ORDER BY deleted_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING id, username, email, first_name, last_name, created_at, updated_at, deleted_at, stripe_account_id)
+            INSERT INTO users_archive (id, username, email, first_name, last_name, created_at, updated_at, deleted_at, stripe_account_id, archived_at)
+            SELECT id, username, email, first_name, last_name, created_at, updated_at, deleted_at, stripe_account_id, now()
+            FROM moved
+            ON CONFLICT (id) DO UPDATE SET username = EXCLUDED.username, email = EXCLUDED.email,
+                first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, updated_at = EXCLUDED.updated_at,
+                deleted_at = EXCLUDED.deleted_at, stripe_account_id = EXCLUDED.stripe_account_id, archived_at = now()
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Archives up to {@code limit} users deleted before {@code deletedBefore}, oldest deletions first.
+     *
+     * @return the number of users moved
+     */
+    public int archiveDeletedBefore(LocalDateTime deletedBefore, int limit) {
+        return jdbcTemplate.update(ARCHIVE_BATCH_SQL, Timestamp.valueOf(deletedBefore), limit);
+    }
+
+    public boolean isArchived(String id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users_archive WHERE id = ?)", Boolean.class, id));
+    }
+}
@@ -0,0 +1,109 @@
+package iwaproject.user_microservice.repository;
+
+import iwaproject.user_microservice.dto.KeycloakUserWebhookDTO;
+import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Set-based statements on users with array parameters ({@code id = ANY(?)}, {@code unnest(?)}):
+ * one statement and one cached plan whatever the number of rows, unlike an expanded IN list
+ * or a loop of single-row statements.
+ */
+@Repository
+public class UserBatchRepository {
+
+    private static final String FIND_ACTIVE_PUBLIC_SQL = """
+            SELECT id, username, first_name, last_name FROM users
+            WHERE id = ANY(?) AND deleted_at IS NULL
+            """;
+
+    // Rows whose columns are unchanged are not rewritten (no dead tuple, no updated_at bump);
+    // xmax = 0 identifies the rows that were inserted rather than updated. Archived users are skipped
+    private static final String UPSERT_SQL = """
+            INSERT INTO users (id, username, email, first_name, last_name, created_at, updated_at)
+            SELECT u.id, u.username, u.email, u.first_name, u.last_name, now(), now()
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[])
+                AS u(id, username, email, first_name, last_name)
+            WHERE NOT EXISTS (SELECT 1 FROM users_archive a WHERE a.id = u.id)
+            ON CONFLICT (id) DO UPDATE SET
+                username = EXCLUDED.username, email = EXCLUDED.email,
+                first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, updated_at = now()
+            WHERE (users.username, users.email, users.first_name, users.last_name)
+                IS DISTINCT FROM (EXCLUDED.username, EXCLUDED.email, EXCLUDED.first_name, EXCLUDED.last_name)
+            RETURNING id, (xmax = 0) AS inserted
+            """;
+
+    // Registration: existing and archived users are left untouched (redelivered events are no-ops)
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO users (id, username, email, first_name, last_name, created_at, updated_at)
+            SELECT u.id, u.username, u.email, u.first_name, u.last_name, now(), now()
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[])
+                AS u(id, username, email, first_name, last_name)
+            WHERE NOT EXISTS (SELECT 1 FROM users_archive a WHERE a.id = u.id)
+            ON CONFLICT (id) DO NOTHING
+            RETURNING id
+            """;
+
+    private static final RowMapper<UserPublicDTO> PUBLIC_PROFILE_MAPPER = (rs, rowNum) -> UserPublicDTO.builder()
+            .id(rs.getString("id"))
+            .username(rs.getString("username"))
+            .firstName(rs.getString("first_name"))
+            .lastName(rs.getString("last_name"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<UserPublicDTO> findActivePublicProfiles(Collection<String> ids) {
+        return jdbcTemplate.query(FIND_ACTIVE_PUBLIC_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", ids.toArray())),
+                PUBLIC_PROFILE_MAPPER);
+    }
+
+    /**
+     * Inserts or updates the given users in one statement. Ids must be distinct.
+     *
+     * @return the ids of the users that did not exist before
+     */
+    public List<String> upsertAll(List<KeycloakUserWebhookDTO> users) {
+        return jdbcTemplate.query(UPSERT_SQL,
+                ps -> setColumns(ps, users, KeycloakUserWebhookDTO::getId, KeycloakUserWebhookDTO::getUsername,
+                        KeycloakUserWebhookDTO::getEmail, KeycloakUserWebhookDTO::getFirstName, KeycloakUserWebhookDTO::getLastName),
+                (rs, rowNum) -> rs.getBoolean("inserted") ? rs.getString("id") : null)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Inserts the given users that do not exist yet, in one statement. Ids must be distinct.
+     *
+     * @return the ids of the users that were inserted
+     */
+    public List<String> insertAllIfAbsent(List<User> users) {
+        return jdbcTemplate.query(INSERT_IF_ABSENT_SQL,
+                ps -> setColumns(ps, users, User::getId, User::getUsername, User::getEmail, User::getFirstName, User::getLastName),
+                (rs, rowNum) -> rs.getString("id"));
+    }
+
+    // One varchar[] parameter per column, in the order of the unnest(...) arguments
+    @SafeVarargs
+    private static <T> void setColumns(PreparedStatement ps, List<T> rows, Function<T, String>... columns) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            ps.setArray(i + 1, ps.getConnection().createArrayOf("varchar", rows.stream().map(columns[i]).toArray()));
+        }
+    }
+}
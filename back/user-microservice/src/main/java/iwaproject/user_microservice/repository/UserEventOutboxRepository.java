@@ -0,0 +1,70 @@
+package iwaproject.user_microservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox of user domain events: rows are inserted in the transaction that changes the user
+ * and deleted by UserEventRelay once Kafka has acknowledged them.
+ */
+@Repository
+public class UserEventOutboxRepository {
+
+    public record OutboxEvent(long id, String userId, String payload, LocalDateTime createdAt) {
+    }
+
+    // Only one relay at a time (across instances), so that events leave in id order
+    private static final long RELAY_LOCK_KEY = 0x55534552_4F555442L;
+
+    private static final RowMapper<OutboxEvent> EVENT_MAPPER = (rs, rowNum) -> new OutboxEvent(
+            rs.getLong("id"),
+            rs.getString("user_id"),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserEventOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(String userId, String eventType, String payload) {
+        jdbcTemplate.update("INSERT INTO user_event_outbox (user_id, event_type, payload, created_at) VALUES (?, ?, ?::jsonb, now())",
+                userId, eventType, payload);
+    }
+
+    /**
+     * Takes the relay lock for the current transaction.
+     *
+     * @return false if another relay holds it
+     */
+    public boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY));
+    }
+
+    public List<OutboxEvent> findOldest(int limit) {
+        return jdbcTemplate.query("SELECT id, user_id, payload::text AS payload, created_at FROM user_event_outbox ORDER BY id LIMIT ?",
+                EVENT_MAPPER, limit);
+    }
+
+    public void deleteAll(Collection<Long> ids) {
+        jdbcTemplate.update("DELETE FROM user_event_outbox WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())));
+    }
+
+    /**
+     * Creation time of the oldest unpublished event, or null if the outbox is empty.
+     */
+    public LocalDateTime oldestCreatedAt() {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT (SELECT created_at FROM user_event_outbox ORDER BY id LIMIT 1)",
+                Timestamp.class);
+        return oldest != null ? oldest.toLocalDateTime() : null;
+    }
+}
@@ -4,6 +4,9 @@ import iwaproject.user_microservice.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -43,12 +46,26 @@ public interface UserRepository extends JpaRepository<User, String> {
     // Find all non-deleted users with pagination
     Page<User> findAllByDeletedAtIsNull(Pageable pageable);
 
-    // Search users by username or email (case-insensitive) with pagination
-    Page<User> findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCaseAndDeletedAtIsNull(
-            String username, String email, Pageable pageable);
-
-    // Find multiple users by IDs
-    List<User> findAllByIdInAndDeletedAtIsNull(List<String> ids);
+    // Search non-deleted users by username or email (case-insensitive, trigram-indexed).
+    // Prefix matches rank first; keyset-paginated on (rank, username, id).
+    // pattern / prefix are the escaped lower-case term as '%term%' / 'term%'
+    @Query(value = """
+            SELECT u.* FROM users u
+            WHERE u.deleted_at IS NULL
+              AND (lower(u.username) LIKE :pattern ESCAPE '\\' OR lower(u.email) LIKE :pattern ESCAPE '\\')
+              AND (CASE WHEN lower(u.username) LIKE :prefix ESCAPE '\\' OR lower(u.email) LIKE :prefix ESCAPE '\\'
+                        THEN 0 ELSE 1 END, u.username, u.id) > (:afterRank, :afterUsername, :afterId)
+            ORDER BY CASE WHEN lower(u.username) LIKE :prefix ESCAPE '\\' OR lower(u.email) LIKE :prefix ESCAPE '\\'
+                          THEN 0 ELSE 1 END,
+                     u.username, u.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<User> searchActiveUsers(@Param("pattern") String pattern,
+                                 @Param("prefix") String prefix,
+                                 @Param("afterRank") int afterRank,
+                                 @Param("afterUsername") String afterUsername,
+                                 @Param("afterId") String afterId,
+                                 @Param("limit") int limit);
 
     // Count non-deleted users
     long countByDeletedAtIsNull();
@@ -58,4 +75,23 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     // Count users created after a certain date
     long countByCreatedAtAfterAndDeletedAtIsNull(LocalDateTime date);
+
+    // Insert a user unless one already exists (same id, username or email) or was archived; returns 1 if inserted
+    @Modifying
+    @Query(value = """
+            INSERT INTO users (id, username, email, first_name, last_name, created_at, updated_at)
+            SELECT :id, :username, :email, :firstName, :lastName, now(), now()
+            WHERE NOT EXISTS (SELECT 1 FROM users_archive WHERE id = :id)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("username") String username,
+                       @Param("email") String email,
+                       @Param("firstName") String firstName,
+                       @Param("lastName") String lastName);
+
+    // Attach the Stripe Connect account unless one is already linked; returns 1 if updated
+    @Modifying
+    @Query("UPDATE User u SET u.stripeAccountId = :accountId WHERE u.id = :id AND u.stripeAccountId IS NULL")
+    int linkStripeAccount(@Param("id") String id, @Param("accountId") String accountId);
 }
@@ -0,0 +1,64 @@
+package iwaproject.user_microservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Inbox of Keycloak user webhooks: a row is written before the webhook is acknowledged and
+ * deleted in the transaction that applies it to the users table.
+ */
+@Repository
+public class UserWebhookInboxRepository {
+
+    public record InboxEntry(String userId, String payload) {
+    }
+
+    private static final RowMapper<InboxEntry> ENTRY_MAPPER = (rs, rowNum) -> new InboxEntry(
+            rs.getString("user_id"),
+            rs.getString("payload"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserWebhookInboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Store the last state received for a user (replaces a state not applied yet).
+     */
+    public void upsert(String userId, String payload) {
+        jdbcTemplate.update("""
+                INSERT INTO user_webhook_inbox (user_id, payload, received_at) VALUES (?, ?::jsonb, now())
+                ON CONFLICT (user_id) DO UPDATE SET payload = EXCLUDED.payload, received_at = EXCLUDED.received_at
+                """, userId, payload);
+    }
+
+    /**
+     * Lock the oldest entries for the current transaction, skipping those claimed by another instance.
+     */
+    public List<InboxEntry> claimOldest(int limit) {
+        return jdbcTemplate.query("""
+                SELECT user_id, payload::text AS payload FROM user_webhook_inbox
+                ORDER BY received_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """, ENTRY_MAPPER, limit);
+    }
+
+    /**
+     * Lock the entry of a user, waiting for an instance that is applying it.
+     */
+    public List<InboxEntry> claimUser(String userId) {
+        return jdbcTemplate.query("SELECT user_id, payload::text AS payload FROM user_webhook_inbox WHERE user_id = ? FOR UPDATE",
+                ENTRY_MAPPER, userId);
+    }
+
+    public void deleteAll(Collection<String> userIds) {
+        jdbcTemplate.update("DELETE FROM user_webhook_inbox WHERE user_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", userIds.toArray())));
+    }
+}
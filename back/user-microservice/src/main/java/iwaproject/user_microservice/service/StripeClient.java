@@ -2,6 +2,7 @@ package iwaproject.user_microservice.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -9,45 +10,62 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Simple HTTP client to call the stripe-service endpoints.
  * Uses RestTemplate to POST /api/stripe/connect-account and returns accountId.
+ * The idempotency key is forwarded to Stripe, so a retry after a lost response
+ * returns the account already created instead of creating another one.
+ * Calls are bounded by connect/read timeouts, well below the onboarding task lease, so that
+ * a hung call fails (and is retried) before the task can be claimed again.
  */
 @Component
 @Slf4j
 public class StripeClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    private final String stripeServiceUrl;
 
-    @Value("${stripe.service.url:http://localhost:8090}")
-    private String stripeServiceUrl;
+    public StripeClient(RestTemplateBuilder restTemplateBuilder,
+                        @Value("${stripe.service.url:http://localhost:8090}") String stripeServiceUrl,
+                        @Value("${stripe.service.connect-timeout-ms:5000}") long connectTimeoutMs,
+                        @Value("${stripe.service.read-timeout-ms:30000}") long readTimeoutMs) {
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
+        this.stripeServiceUrl = stripeServiceUrl;
+    }
 
-    public String createConnectAccount(String email) {
-        try {
-            String url = stripeServiceUrl + "/api/stripe/connect-account";
-            Map<String, String> body = new HashMap<>();
-            body.put("email", email);
+    /**
+     * @return the id of the created (or already created, for a replayed key) account
+     * @throws org.springframework.web.client.RestClientException if the call failed
+     * @throws IllegalStateException if the response holds no account id
+     */
+    public String createConnectAccount(String email, String idempotencyKey) {
+        String url = stripeServiceUrl + "/api/stripe/connect-account";
+        Map<String, String> body = new HashMap<>();
+        body.put("email", email);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(body, headers);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (idempotencyKey != null) {
+            headers.set("Idempotency-Key", idempotencyKey);
+        }
+        HttpEntity<Map<String, String>> request = new HttpEntity<>(body, headers);
 
-            log.info("Calling Stripe service to create connect account for email {} at {}", email, url);
-            ResponseEntity<Map> resp = restTemplate.postForEntity(url, request, Map.class);
-            if (resp.getStatusCode().is2xxSuccessful() && resp.getBody() != null) {
-                Object accountId = resp.getBody().get("accountId");
-                if (accountId != null) {
-                    return accountId.toString();
-                }
+        log.info("Calling Stripe service to create connect account for email {} at {}", email, url);
+        ResponseEntity<Map> resp = restTemplate.postForEntity(url, request, Map.class);
+        if (resp.getStatusCode().is2xxSuccessful() && resp.getBody() != null) {
+            Object accountId = resp.getBody().get("accountId");
+            if (accountId != null) {
+                return accountId.toString();
             }
-            log.warn("Unexpected response from Stripe service when creating account for {}: status={}, body={}",
-                    email, resp.getStatusCode(), resp.getBody());
-        } catch (Exception e) {
-            log.error("Error calling stripe-service to create connect account: {}", e.getMessage(), e);
         }
-        return null;
+        throw new IllegalStateException("Unexpected response from Stripe service: status="
+                + resp.getStatusCode() + ", body=" + resp.getBody());
     }
 }
@@ -0,0 +1,32 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.repository.StripeOnboardingTaskRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Requests the creation of a Stripe Connect account for a user, through the onboarding outbox.
+ * Must be called inside the transaction that creates the user: the request is committed
+ * (or rolled back) together with it and processed later by StripeOnboardingWorker.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StripeOnboardingService {
+
+    private final StripeOnboardingTaskRepository taskRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void requestConnectAccount(String userId, String email) {
+        if (email == null || email.isEmpty()) {
+            log.warn("User {} has no email, skipping Stripe account creation", userId);
+            return;
+        }
+        if (taskRepository.enqueue(userId, email) == 1) {
+            log.debug("Stripe onboarding queued for user {}", userId);
+        }
+    }
+}
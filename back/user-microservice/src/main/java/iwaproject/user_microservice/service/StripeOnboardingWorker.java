@@ -0,0 +1,207 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.entity.StripeOnboardingTask;
+import iwaproject.user_microservice.entity.StripeOnboardingTask.Status;
+import iwaproject.user_microservice.entity.User;
+import iwaproject.user_microservice.repository.StripeOnboardingTaskRepository;
+import iwaproject.user_microservice.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates Stripe Connect accounts for the tasks of the onboarding outbox, outside of the
+ * registration request. At most {@code concurrency} Stripe calls run at a time; failures are
+ * retried with exponential backoff (with jitter) until {@code maxAttempts}. Every attempt for a
+ * user sends the same idempotency key, so Stripe creates at most one account per user even when
+ * the outcome of an earlier attempt was not recorded. Users deleted or archived before their task
+ * runs get no account. DONE tasks are purged after a retention period.
+ */
+@Component
+@Slf4j
+public class StripeOnboardingWorker {
+
+    // Longer than a Stripe call can last (StripeClient timeouts)
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final StripeOnboardingTaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final StripeClient stripeClient;
+    private final UserProfileCache profileCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration doneRetention;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public StripeOnboardingWorker(StripeOnboardingTaskRepository taskRepository,
+                                  UserRepository userRepository,
+                                  StripeClient stripeClient,
+                                  UserProfileCache profileCache,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${stripe-onboarding.concurrency:4}") int concurrency,
+                                  @Value("${stripe-onboarding.max-attempts:8}") int maxAttempts,
+                                  @Value("${stripe-onboarding.base-backoff-ms:2000}") long baseBackoffMs,
+                                  @Value("${stripe-onboarding.max-backoff-ms:3600000}") long maxBackoffMs,
+                                  @Value("${stripe-onboarding.done-retention-days:7}") int doneRetentionDays) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.stripeClient = stripeClient;
+        this.profileCache = profileCache;
+        this.transactionTemplate = transactionTemplate;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofMillis(baseBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.doneRetention = Duration.ofDays(doneRetentionDays);
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "stripe-onboarding");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Claim as many due tasks as there are free workers and dispatch them
+     */
+    @Scheduled(fixedDelayString = "${stripe-onboarding.poll-interval-ms:1000}")
+    public void poll() {
+        int free = concurrency - inFlight.get();
+        if (free <= 0) {
+            return;
+        }
+
+        List<StripeOnboardingTask> tasks;
+        try {
+            tasks = transactionTemplate.execute(status ->
+                    taskRepository.claimDue(free, LocalDateTime.now().plus(LEASE)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to claim Stripe onboarding tasks: {}", e.getMessage());
+            return;
+        }
+        if (tasks == null || tasks.isEmpty()) {
+            return;
+        }
+
+        log.debug("Dispatching {} Stripe onboarding tasks", tasks.size());
+        for (StripeOnboardingTask task : tasks) {
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    process(task);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    void process(StripeOnboardingTask task) {
+        try {
+            // Archived users are no longer in the users table
+            Optional<User> user = userRepository.findById(task.getUserId());
+            if (user.isEmpty() || user.get().isDeleted()) {
+                log.info("Skipping Stripe onboarding of deleted user {}", task.getUserId());
+                transactionTemplate.executeWithoutResult(status ->
+                        taskRepository.recordAttempt(task.getId(), Status.DONE, LocalDateTime.now(), "User deleted"));
+                return;
+            }
+            // Dedup: the user may already have an account (earlier attempt whose outcome was not recorded)
+            if (user.get().getStripeAccountId() != null) {
+                transactionTemplate.executeWithoutResult(status ->
+                        taskRepository.recordAttempt(task.getId(), Status.DONE, LocalDateTime.now(), null));
+                return;
+            }
+
+            String accountId = stripeClient.createConnectAccount(task.getEmail(), idempotencyKey(task));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.linkStripeAccount(task.getUserId(), accountId);
+                taskRepository.recordAttempt(task.getId(), Status.DONE, LocalDateTime.now(), null);
+            });
+            profileCache.invalidate(task.getUserId());
+            log.info("Stripe account {} linked to user {}", accountId, task.getUserId());
+        } catch (RuntimeException e) {
+            retryLater(task, e.getMessage());
+        }
+    }
+
+    private void retryLater(StripeOnboardingTask task, String error) {
+        int attempt = task.getAttempts() + 1;
+        Status status = attempt >= maxAttempts ? Status.FAILED : Status.PENDING;
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempt));
+        String truncated = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+
+        if (status == Status.FAILED) {
+            log.error("Stripe onboarding for user {} abandoned after {} attempts: {}", task.getUserId(), attempt, error);
+        } else {
+            log.warn("Stripe onboarding for user {} failed (attempt {}), retrying at {}: {}",
+                    task.getUserId(), attempt, nextAttemptAt, error);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    taskRepository.recordAttempt(task.getId(), status, nextAttemptAt, truncated));
+        } catch (RuntimeException e) {
+            // The lease expires and the task is claimed again
+            log.error("Failed to record Stripe onboarding attempt for user {}: {}", task.getUserId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Delete completed tasks older than the retention period, in short batches.
+     * FAILED tasks are kept for investigation.
+     */
+    @Scheduled(initialDelayString = "${stripe-onboarding.purge-interval-ms:3600000}",
+               fixedDelayString = "${stripe-onboarding.purge-interval-ms:3600000}")
+    public void purgeDone() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(doneRetention);
+        int total = 0;
+        try {
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> taskRepository.deleteDoneBefore(cutoff, PURGE_BATCH_SIZE));
+                total += deleted != null ? deleted : 0;
+            } while (deleted != null && deleted == PURGE_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge completed Stripe onboarding tasks: {}", e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Purged {} completed Stripe onboarding tasks older than {}", total, cutoff);
+        }
+    }
+
+    // Stable per user: the outbox holds one task per user, re-enqueued only after a purge
+    static String idempotencyKey(StripeOnboardingTask task) {
+        return "stripe-onboarding-" + task.getUserId();
+    }
+
+    Duration backoff(int attempt) {
+        long exponential = baseBackoff.toMillis() << Math.min(attempt - 1, 30);
+        long capped = Math.min(exponential, maxBackoff.toMillis());
+        // +/- 20% jitter so that tasks failing together do not retry together
+        long jitter = (long) (capped * 0.2 * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        return Duration.ofMillis(Math.max(0, capped + jitter));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
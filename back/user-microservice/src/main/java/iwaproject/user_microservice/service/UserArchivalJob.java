@@ -0,0 +1,55 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.repository.UserArchiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves users soft-deleted for longer than the retention period to users_archive, in batches
+ * (one short transaction per batch), so that the users table and its indexes only hold users
+ * that queries can still return.
+ */
+@Component
+@Slf4j
+public class UserArchivalJob {
+
+    private final UserArchiveRepository archiveRepository;
+    private final UserStatsCounter statsCounter;
+    private final int retentionDays;
+    private final int batchSize;
+
+    public UserArchivalJob(UserArchiveRepository archiveRepository,
+                           UserStatsCounter statsCounter,
+                           @Value("${user-archival.retention-days:365}") int retentionDays,
+                           @Value("${user-archival.batch-size:1000}") int batchSize) {
+        this.archiveRepository = archiveRepository;
+        this.statsCounter = statsCounter;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${user-archival.cron:0 30 3 * * *}")
+    public void archiveDeletedUsers() {
+        LocalDateTime deletedBefore = LocalDateTime.now().minusDays(retentionDays);
+        long archived = 0;
+        try {
+            int moved;
+            do {
+                moved = archiveRepository.archiveDeletedBefore(deletedBefore, batchSize);
+                archived += moved;
+            } while (moved == batchSize);
+        } catch (RuntimeException e) {
+            log.error("User archival stopped after {} users: {}", archived, e.getMessage());
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} users deleted before {}", archived, deletedBefore);
+            // Archived users leave the deleted-users count
+            statsCounter.reconcile();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package iwaproject.user_microservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import iwaproject.user_microservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+
+/**
+ * Username availability checks backed by an in-memory Bloom filter: a name the filter has never
+ * seen is free without a database query; only possible hits fall through to the database.
+ * The filter is built at startup in one streaming pass over users (rebuilt periodically, which
+ * also drops renamed values) and updated when users are created or renamed through this instance.
+ * A name taken through another instance is only known after the next rebuild, so the answer is a
+ * hint for forms: writes must check uniqueness exactly. Until the first build completes, every
+ * check goes to the database.
+ */
+@Service
+@Slf4j
+public class UserAvailabilityService {
+
+    private static final int FETCH_SIZE = 5_000;
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final Counter filteredChecks;
+    private final Counter databaseChecks;
+
+    private volatile BloomFilter current;
+    // Filter being built: additions made during the scan are applied to it as well
+    private volatile BloomFilter building;
+
+    public UserAvailabilityService(UserRepository userRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${user-availability.false-positive-rate:0.01}") double falsePositiveRate,
+                                   @Value("${user-availability.min-capacity:100000}") long minCapacity) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+        this.filteredChecks = Counter.builder("users.availability.checks").tag("source", "filter")
+                .description("Availability checks answered by the Bloom filter").register(meterRegistry);
+        this.databaseChecks = Counter.builder("users.availability.checks").tag("source", "database")
+                .description("Availability checks that needed a database query").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the filter from the users table, sized for twice the current number of users
+     */
+    @Scheduled(initialDelayString = "${user-availability.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${user-availability.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        try {
+            Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM users", Long.class);
+            long capacity = Math.max(minCapacity, 2 * (count != null ? count : 0));
+            BloomFilter filter = BloomFilter.create(capacity, falsePositiveRate);
+            building = filter;
+
+            // Soft-deleted users are included (their row keeps the username unique); users purged
+            // by UserArchivalJob are not, as their username is free again in the table
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement("SELECT username FROM users");
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, (RowCallbackHandler) rs -> put(filter, rs.getString("username"))));
+
+            current = filter;
+            log.info("Availability filter built for {} users (capacity {})", count, capacity);
+        } catch (RuntimeException e) {
+            log.error("Failed to build availability filter: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * Record a username as taken (call when a user is created or renamed).
+     * Applied after commit: a rebuild scan that started earlier may not see the row, so the
+     * value must then reach the filter being built, which is read before the current one.
+     */
+    public void add(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(username);
+                }
+            });
+        } else {
+            apply(username);
+        }
+    }
+
+    private void apply(String username) {
+        BloomFilter next = building;
+        if (next != null) {
+            put(next, username);
+        }
+        BloomFilter filter = current;
+        if (filter != null) {
+            put(filter, username);
+        }
+    }
+
+    public boolean isUsernameTaken(String username) {
+        BloomFilter filter = current;
+        if (filter != null && !filter.mightContain(normalize(username))) {
+            filteredChecks.increment();
+            return false;
+        }
+        databaseChecks.increment();
+        return userRepository.existsByUsername(username);
+    }
+
+    private static void put(BloomFilter filter, String username) {
+        if (username != null) {
+            filter.put(normalize(username));
+        }
+    }
+
+    // Case-insensitive superset of the values in the table: never a false negative for an exact check
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
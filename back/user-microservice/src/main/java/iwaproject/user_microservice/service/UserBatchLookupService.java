@@ -0,0 +1,97 @@
+package iwaproject.user_microservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.repository.UserBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Batch multi-get of public profiles (POST /api/users/batch): served from the shared
+ * public-profile cache first, misses resolved from the database in fixed-size chunks.
+ * Results are handed to the caller chunk by chunk so large responses can be streamed.
+ */
+@Service
+@Slf4j
+public class UserBatchLookupService {
+
+    private final UserBatchRepository userBatchRepository;
+    private final UserProfileCache profileCache;
+    private final int chunkSize;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final DistributionSummary batchSize;
+
+    public UserBatchLookupService(UserBatchRepository userBatchRepository,
+                                  UserProfileCache profileCache,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${user-batch.chunk-size:100}") int chunkSize) {
+        this.userBatchRepository = userBatchRepository;
+        this.profileCache = profileCache;
+        this.chunkSize = chunkSize;
+        this.cacheHits = Counter.builder("users.batch.cache")
+                .tag("result", "hit")
+                .description("Batch lookups served from the public-profile cache")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("users.batch.cache")
+                .tag("result", "miss")
+                .description("Batch lookups resolved from the database")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("users.batch.size")
+                .description("Distinct ids per batch lookup")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolve the public profiles of the given users; unknown or deleted users are omitted.
+     * The sink receives the cache hits first, then one list per database chunk.
+     */
+    public void streamPublicProfiles(Collection<String> userIds, Consumer<List<UserPublicDTO>> sink) {
+        Set<String> distinctIds = new LinkedHashSet<>(userIds);
+        batchSize.record(distinctIds.size());
+
+        List<UserPublicDTO> hits = new ArrayList<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : distinctIds) {
+            UserPublicDTO cached = id != null ? profileCache.getPublic(id) : null;
+            if (cached != null) {
+                hits.add(cached);
+            } else if (id != null) {
+                misses.add(id);
+            }
+        }
+        cacheHits.increment(hits.size());
+        cacheMisses.increment(misses.size());
+        log.debug("Batch lookup of {} users: {} cached, {} to load", distinctIds.size(), hits.size(), misses.size());
+
+        if (!hits.isEmpty()) {
+            sink.accept(hits);
+        }
+        for (int from = 0; from < misses.size(); from += chunkSize) {
+            List<String> chunk = misses.subList(from, Math.min(from + chunkSize, misses.size()));
+            List<UserPublicDTO> loaded = userBatchRepository.findActivePublicProfiles(chunk);
+            loaded.forEach(profileCache::putPublic);
+            if (!loaded.isEmpty()) {
+                sink.accept(loaded);
+            }
+        }
+    }
+
+    public List<UserPublicDTO> getPublicProfiles(Collection<String> userIds) {
+        List<UserPublicDTO> result = new ArrayList<>();
+        streamPublicProfiles(userIds, result::addAll);
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package iwaproject.user_microservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iwaproject.user_microservice.kafka.event.UserEvent;
+import iwaproject.user_microservice.repository.UserEventOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records user domain events in the outbox. Must be called inside the transaction that changes
+ * the user: the event is committed (or rolled back) together with it and published to Kafka
+ * later by UserEventRelay.
+ * Disabled by default - enable with spring.kafka.enabled=true
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
+public class UserEventOutboxService {
+
+    private final UserEventOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(UserEvent event) {
+        try {
+            outboxRepository.insert(event.getUserId(), event.getEventType(), objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize user event " + event.getEventType(), e);
+        }
+        log.debug("User event {} queued for user {}", event.getEventType(), event.getUserId());
+    }
+}
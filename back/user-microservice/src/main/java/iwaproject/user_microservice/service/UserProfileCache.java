@@ -0,0 +1,140 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.dto.UserProfileDTO;
+import iwaproject.user_microservice.dto.UserPublicDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded caches of user profiles: complete profiles keyed by Keycloak subject
+ * (GET /api/users/profile) and public profiles keyed by user id (public lookups, batch multi-get).
+ * Entries are evicted least-recently-used beyond maxSize and expire after ttl,
+ * which bounds staleness for changes made through another instance.
+ * Local writes (profile update/delete, Keycloak webhooks, Stripe onboarding) invalidate explicitly.
+ * Inside a transaction, entries are only stored once it commits, so a rolled-back insert
+ * is never served from the cache.
+ */
+@Component
+@Slf4j
+public class UserProfileCache {
+
+    private final LruCache<UserProfileDTO> profiles;
+    private final LruCache<UserPublicDTO> publicProfiles;
+
+    public UserProfileCache(@Value("${user-profile-cache.max-size:10000}") int maxSize,
+                            @Value("${user-profile-cache.ttl-seconds:300}") long ttlSeconds) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.profiles = new LruCache<>(maxSize, ttl, UserProfileDTO::getId);
+        this.publicProfiles = new LruCache<>(maxSize, ttl, UserPublicDTO::getId);
+    }
+
+    public UserProfileDTO get(String userId) {
+        return profiles.get(userId);
+    }
+
+    public void put(String userId, UserProfileDTO profile) {
+        afterCommit(() -> profiles.put(userId, profile));
+    }
+
+    public UserPublicDTO getPublic(String userId) {
+        return publicProfiles.get(userId);
+    }
+
+    public void putPublic(UserPublicDTO profile) {
+        afterCommit(() -> publicProfiles.put(profile.getId(), profile));
+    }
+
+    /**
+     * Remove the user's entries, and any entry resolved to that user under another subject.
+     * Inside a transaction, the eviction is repeated after commit so that a concurrent read
+     * of the previous row cannot re-populate the cache.
+     */
+    public void invalidate(String userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private void evict(String userId) {
+        profiles.evict(userId);
+        publicProfiles.evict(userId);
+        log.debug("Profile cache invalidated for user: {}", userId);
+    }
+
+    private static final class LruCache<V> {
+
+        private record Entry<V>(V value, Instant cachedAt) {}
+
+        private final Map<String, Entry<V>> entries;
+        private final Duration ttl;
+        private final Function<V, String> idOf;
+
+        LruCache(int maxSize, Duration ttl, Function<V, String> idOf) {
+            this.ttl = ttl;
+            this.idOf = idOf;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized V get(String key) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.cachedAt().plus(ttl).isBefore(Instant.now())) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+
+        synchronized void put(String key, V value) {
+            entries.put(key, new Entry<>(value, Instant.now()));
+        }
+
+        synchronized void evict(String userId) {
+            entries.remove(userId);
+            entries.values().removeIf(entry -> userId.equals(idOf.apply(entry.value())));
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -3,13 +3,16 @@ package iwaproject.user_microservice.service;
 import iwaproject.user_microservice.dto.UpdateProfileDTO;
 import iwaproject.user_microservice.dto.UserProfileDTO;
 import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.dto.UserSearchCursor;
+import iwaproject.user_microservice.dto.UserSearchSliceDTO;
 import iwaproject.user_microservice.dto.UserStatsDTO;
 import iwaproject.user_microservice.entity.User;
 import iwaproject.user_microservice.exception.UserAlreadyExistsException;
 import iwaproject.user_microservice.exception.UserNotFoundException;
 import iwaproject.user_microservice.kafka.event.UserEvent;
-import iwaproject.user_microservice.kafka.producer.UserEventProducer;
 import iwaproject.user_microservice.kafka.producer.LogProducer;
+import iwaproject.user_microservice.repository.UserArchiveRepository;
+import iwaproject.user_microservice.repository.UserBatchRepository;
 import iwaproject.user_microservice.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +22,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,23 +35,63 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final StripeClient stripeClient;
+    private final UserBatchRepository userBatchRepository;
+    private final StripeOnboardingService stripeOnboardingService;
+    private final UserProfileCache profileCache;
+    private final UserStatsCounter statsCounter;
+    private final UserAvailabilityService availabilityService;
+    private final UserArchiveRepository archiveRepository;
     
     @Autowired(required = false)
-    private UserEventProducer userEventProducer;
+    private UserEventOutboxService userEventOutbox;
     
     @Autowired(required = false)
     private LogProducer logProducer;
 
-    public UserService(UserRepository userRepository, StripeClient stripeClient) {
+    public UserService(UserRepository userRepository, UserBatchRepository userBatchRepository,
+                       StripeOnboardingService stripeOnboardingService,
+                       UserProfileCache profileCache, UserStatsCounter statsCounter,
+                       UserAvailabilityService availabilityService, UserArchiveRepository archiveRepository) {
         this.userRepository = userRepository;
-        this.stripeClient = stripeClient;
+        this.userBatchRepository = userBatchRepository;
+        this.stripeOnboardingService = stripeOnboardingService;
+        this.profileCache = profileCache;
+        this.statsCounter = statsCounter;
+        this.availabilityService = availabilityService;
+        this.archiveRepository = archiveRepository;
     }
 
     /**
-     * Get the complete profile of the current user
+     * Get the current user's profile, creating the user on first access.
+     * Served from the profile cache when possible, otherwise with a single lookup by id;
+     * the username/email resolution and the insert only run when the user does not exist yet.
      */
-    @Transactional(readOnly = true)
+    @Transactional
+    public UserProfileDTO getOrCreateProfile(String keycloakId, String username, String email, String firstName, String lastName) {
+        if (keycloakId == null) {
+            throw new IllegalArgumentException("Keycloak ID cannot be null");
+        }
+        UserProfileDTO cached = profileCache.get(keycloakId);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findById(keycloakId)
+                .orElseGet(() -> resolveOrInsertUser(keycloakId, username, email, firstName, lastName));
+        if (user.isDeleted()) {
+            throw new UserNotFoundException("User not found with id: " + user.getId());
+        }
+
+        UserProfileDTO profile = mapToProfileDTO(user);
+        profileCache.put(keycloakId, profile);
+        return profile;
+    }
+
+    /**
+     * Get the complete profile of the current user.
+     * Read on the primary (not read-only): a user reloading their profile right after an update must see it
+     */
+    @Transactional
     public UserProfileDTO getUserProfile(String userId) {
         log.info("Fetching profile for user: {}", userId);
         User user = userRepository.findByIdAndDeletedAtIsNull(userId)
@@ -54,15 +101,23 @@ public class UserService {
     }
 
     /**
-     * Get public profile of any user (visible to others)
+     * Get public profile of any user (visible to others).
+     * Read on the primary (not read-only): the result fills the profile cache, which a lagging replica
+     * would fill with a stale profile
      */
-    @Transactional(readOnly = true)
+    @Transactional
     public UserPublicDTO getPublicProfile(String userId) {
         log.info("Fetching public profile for user: {}", userId);
+        UserPublicDTO cached = profileCache.getPublic(userId);
+        if (cached != null) {
+            return cached;
+        }
         User user = userRepository.findByIdAndDeletedAtIsNull(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
 
-        return mapToPublicDTO(user);
+        UserPublicDTO profile = mapToPublicDTO(user);
+        profileCache.putPublic(profile);
+        return profile;
     }
 
     /**
@@ -75,18 +130,21 @@ public class UserService {
         User user = userRepository.findByIdAndDeletedAtIsNull(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
 
-        // Check if username is being changed and if it's already taken
+        // Check if username is being changed and if it's already taken (exact check: the availability
+        // filter does not know names taken through other instances)
         if (!user.getUsername().equals(updateDTO.getUsername())) {
             if (userRepository.existsByUsername(updateDTO.getUsername())) {
                 throw new UserAlreadyExistsException("Username already taken: " + updateDTO.getUsername());
             }
             user.setUsername(updateDTO.getUsername());
+            availabilityService.add(updateDTO.getUsername());
         }
 
         user.setFirstName(updateDTO.getFirstName());
         user.setLastName(updateDTO.getLastName());
 
         User savedUser = userRepository.save(user);
+        profileCache.invalidate(userId);
         log.info("Profile updated successfully for user: {}", userId);
 
         // Send log to Kafka
@@ -115,6 +173,8 @@ public class UserService {
 
         user.setDeletedAt(LocalDateTime.now());
         userRepository.save(user);
+        profileCache.invalidate(userId);
+        statsCounter.onUserDeleted(user.getCreatedAt());
         
         // Send log to Kafka
         if (logProducer != null) {
@@ -156,30 +216,56 @@ public class UserService {
         User savedUser = userRepository.save(user);
         
         log.info("User created successfully: {}", keycloakId);
+        return onUserCreated(savedUser);
+    }
+
+    /**
+     * Create the given users in one statement, skipping those that already exist
+     * (registration events may be delivered more than once).
+     *
+     * @return the number of users actually created
+     */
+    @Transactional
+    public int registerUsers(Collection<User> users) {
+        Map<String, User> byId = new LinkedHashMap<>();
+        for (User user : users) {
+            if (user.getId() == null) {
+                throw new IllegalArgumentException("Keycloak ID cannot be null");
+            }
+            byId.put(user.getId(), user);
+        }
+        if (byId.isEmpty()) {
+            return 0;
+        }
+
+        List<String> createdIds = userBatchRepository.insertAllIfAbsent(List.copyOf(byId.values()));
+        for (String keycloakId : createdIds) {
+            profileCache.invalidate(keycloakId);
+            onUserCreated(byId.get(keycloakId));
+        }
+        log.info("Registered {} user(s), {} already existed", createdIds.size(), byId.size() - createdIds.size());
+        return createdIds.size();
+    }
+
+    /**
+     * Side effects of a user creation: Kafka log, Stripe Connect account request, USER_CREATED event
+     */
+    private User onUserCreated(User savedUser) {
+        String keycloakId = savedUser.getId();
+        String email = savedUser.getEmail();
+        statsCounter.onUserCreated();
+        availabilityService.add(savedUser.getUsername());
 
         // Send log to Kafka
         if (logProducer != null) {
             logProducer.sendLog("INFO", 
                 String.format("New user created - ID: %s, Username: %s, Email: %s", 
-                    keycloakId, username, email),
+                    keycloakId, savedUser.getUsername(), email),
                 null, keycloakId, null, null, null);
         }
         
-        // Create Stripe Connect account for the new user
-        if (email != null && !email.isEmpty()) {
-            try {
-                log.info("Creating Stripe Connect account for user: {}", email);
-                String stripeAccountId = stripeClient.createConnectAccount(email);
-                if (stripeAccountId != null) {
-                    savedUser.setStripeAccountId(stripeAccountId);
-                    savedUser = userRepository.save(savedUser);
-                    log.info("Stripe account created and linked to user: {}", stripeAccountId);
-                }
-            } catch (Exception e) {
-                log.error("Failed to create Stripe account for user {}: {}", email, e.getMessage());
-                // Don't fail user creation if Stripe account creation fails
-            }
-        }
+        // Stripe Connect account created asynchronously (outbox row committed with the user)
+        stripeOnboardingService.requestConnectAccount(keycloakId, email);
 
         // Publish user created event
         publishUserEvent(savedUser, "USER_CREATED");
@@ -227,6 +313,38 @@ public class UserService {
         return createUser(keycloakId, username, email, firstName, lastName);
     }
 
+    /**
+     * Miss path of getOrCreateProfile: resolve a pre-existing user by username/email,
+     * otherwise insert atomically (a concurrent first request for the same user wins without error)
+     */
+    private User resolveOrInsertUser(String keycloakId, String username, String email, String firstName, String lastName) {
+        // An archived user was deleted: it must not come back as a new account with the same id
+        if (archiveRepository.isArchived(keycloakId)) {
+            throw new UserNotFoundException("User not found with id: " + keycloakId);
+        }
+        if (username != null) {
+            Optional<User> byUsername = userRepository.findByUsernameAndDeletedAtIsNull(username);
+            if (byUsername.isPresent()) {
+                log.warn("Found existing user by username with different id. Returning existing user id={}", byUsername.get().getId());
+                return byUsername.get();
+            }
+        }
+        if (email != null) {
+            Optional<User> byEmail = userRepository.findByEmailAndDeletedAtIsNull(email);
+            if (byEmail.isPresent()) {
+                log.warn("Found existing user by email with different id. Returning existing user id={}", byEmail.get().getId());
+                return byEmail.get();
+            }
+        }
+
+        log.info("User not found in database, creating new user: {}", keycloakId);
+        boolean inserted = userRepository.insertIfAbsent(keycloakId, username, email, firstName, lastName) == 1;
+        User user = userRepository.findById(keycloakId)
+                .orElseThrow(() -> new UserAlreadyExistsException(
+                        "Username or email already in use: " + username + " / " + email));
+        return inserted ? onUserCreated(user) : user;
+    }
+
     /**
      * Get all users with pagination
      */
@@ -238,14 +356,43 @@ public class UserService {
     }
 
     /**
-     * Search users by username or email
+     * Search users by username or email: prefix matches first, then by username.
+     * Keyset-paginated (no count query); pass the returned nextCursor to get the next slice.
      */
     @Transactional(readOnly = true)
-    public Page<UserPublicDTO> searchUsers(String searchTerm, Pageable pageable) {
+    public UserSearchSliceDTO searchUsers(String searchTerm, String cursor, int size) {
         log.info("Searching users with term: {}", searchTerm);
-        Page<User> users = userRepository.findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCaseAndDeletedAtIsNull(
-                searchTerm, searchTerm, pageable);
-        return users.map(this::mapToPublicDTO);
+        if (searchTerm == null || searchTerm.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        String term = searchTerm.trim().toLowerCase(Locale.ROOT);
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        UserSearchCursor after = UserSearchCursor.decode(cursor);
+
+        List<User> users = userRepository.searchActiveUsers(
+                "%" + escaped + "%", escaped + "%",
+                after.rank(), after.username(), after.id(), size + 1);
+
+        boolean hasNext = users.size() > size;
+        List<User> slice = hasNext ? users.subList(0, size) : users;
+        String nextCursor = null;
+        if (hasNext) {
+            User last = slice.get(slice.size() - 1);
+            nextCursor = new UserSearchCursor(searchRank(last, term), last.getUsername(), last.getId()).encode();
+        }
+
+        return UserSearchSliceDTO.builder()
+                .content(slice.stream().map(this::mapToPublicDTO).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    // Same ranking as UserRepository.searchActiveUsers: 0 for a prefix match, 1 otherwise
+    private static int searchRank(User user, String term) {
+        boolean prefix = (user.getUsername() != null && user.getUsername().toLowerCase(Locale.ROOT).startsWith(term))
+                || (user.getEmail() != null && user.getEmail().toLowerCase(Locale.ROOT).startsWith(term));
+        return prefix ? 0 : 1;
     }
 
     /**
@@ -259,18 +406,6 @@ public class UserService {
         return mapToPublicDTO(user);
     }
 
-    /**
-     * Get multiple users by their IDs
-     */
-    @Transactional(readOnly = true)
-    public List<UserPublicDTO> getUsersByIds(List<String> userIds) {
-        log.info("Fetching users by IDs: {}", userIds);
-        List<User> users = userRepository.findAllByIdInAndDeletedAtIsNull(userIds);
-        return users.stream()
-                .map(this::mapToPublicDTO)
-                .collect(Collectors.toList());
-    }
-
     /**
      * Check if user exists by ID
      */
@@ -288,30 +423,10 @@ public class UserService {
     }
 
     /**
-     * Get user statistics
+     * Get user statistics (in-memory counters, reconciled periodically with the database)
      */
-    @Transactional(readOnly = true)
     public UserStatsDTO getUserStats() {
-        
-        long totalUsers = userRepository.countByDeletedAtIsNull();
-        long deletedUsers = userRepository.countByDeletedAtIsNotNull();
-        long recentUsers = userRepository.countByCreatedAtAfterAndDeletedAtIsNull(
-                LocalDateTime.now().minusDays(30));
-        
-        // Send log to Kafka
-        if (logProducer != null) {
-            logProducer.sendLog("INFO", 
-                String.format("User statistics requested - Total: %d, Deleted: %d, Recent: %d", 
-                    totalUsers, deletedUsers, recentUsers));
-        } else {
-            log.warn("LogProducer is not available, skipping log sending");
-        }
-        
-        return UserStatsDTO.builder()
-                .totalActiveUsers(totalUsers)
-                .totalDeletedUsers(deletedUsers)
-                .usersLastMonth(recentUsers)
-                .build();
+        return statsCounter.snapshot();
     }
 
     // Helper methods for mapping
@@ -337,8 +452,11 @@ public class UserService {
                 .build();
     }
 
+    /**
+     * Record a user event in the outbox, in the current transaction (published by UserEventRelay)
+     */
     private void publishUserEvent(User user, String eventType) {
-        if (userEventProducer == null) {
+        if (userEventOutbox == null) {
             log.debug("Kafka is disabled, skipping event publishing for: {}", eventType);
             return;
         }
@@ -353,6 +471,6 @@ public class UserService {
                 .timestamp(LocalDateTime.now())
                 .build();
         
-        userEventProducer.publishUserEvent(event);
+        userEventOutbox.enqueue(event);
     }
 }
@@ -0,0 +1,107 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.dto.UserStatsDTO;
+import iwaproject.user_microservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory user statistics, adjusted on user creation/deletion and periodically
+ * reconciled against the database (which also ages users out of the 30-day window).
+ * Adjustments made inside a transaction are applied after commit.
+ */
+@Component
+@Slf4j
+public class UserStatsCounter {
+
+    static final int RECENT_WINDOW_DAYS = 30;
+
+    private final UserRepository userRepository;
+
+    private final AtomicLong activeUsers = new AtomicLong();
+    private final AtomicLong deletedUsers = new AtomicLong();
+    private final AtomicLong recentUsers = new AtomicLong();
+    private volatile boolean initialized;
+
+    public UserStatsCounter(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public UserStatsDTO snapshot() {
+        if (!initialized) {
+            reconcile();
+        }
+        return UserStatsDTO.builder()
+                .totalActiveUsers(activeUsers.get())
+                .totalDeletedUsers(deletedUsers.get())
+                .usersLastMonth(recentUsers.get())
+                .build();
+    }
+
+    public void onUserCreated() {
+        afterCommit(() -> {
+            activeUsers.incrementAndGet();
+            recentUsers.incrementAndGet();
+        });
+    }
+
+    /**
+     * @param createdAt creation date of the deleted user (may be null if unknown)
+     */
+    public void onUserDeleted(LocalDateTime createdAt) {
+        boolean recent = createdAt != null && createdAt.isAfter(LocalDateTime.now().minusDays(RECENT_WINDOW_DAYS));
+        afterCommit(() -> {
+            activeUsers.decrementAndGet();
+            deletedUsers.incrementAndGet();
+            if (recent) {
+                recentUsers.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Recompute all counters from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user-stats.reconcile-interval-ms:300000}",
+               fixedDelayString = "${user-stats.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        try {
+            long active = userRepository.countByDeletedAtIsNull();
+            long deleted = userRepository.countByDeletedAtIsNotNull();
+            long recent = userRepository.countByCreatedAtAfterAndDeletedAtIsNull(
+                    LocalDateTime.now().minusDays(RECENT_WINDOW_DAYS));
+
+            long drift = Math.abs(active - activeUsers.getAndSet(active));
+            deletedUsers.set(deleted);
+            recentUsers.set(recent);
+            if (initialized && drift > 0) {
+                log.debug("User stats reconciled, active drift: {}", drift);
+            }
+            initialized = true;
+        } catch (RuntimeException e) {
+            log.warn("User stats reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package iwaproject.user_microservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iwaproject.user_microservice.dto.KeycloakUserWebhookDTO;
+import iwaproject.user_microservice.repository.UserWebhookInboxRepository;
+import iwaproject.user_microservice.repository.UserWebhookInboxRepository.InboxEntry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Accepts Keycloak user creation/update webhooks into a database inbox and applies them in batches.
+ * A webhook is acknowledged only once its inbox row is committed, so it survives a crash or a
+ * failed batch. Events are coalesced per user id (the last state wins), so a burst of edits to the
+ * same user costs a single row of one upsert statement instead of one round trip per event.
+ */
+@Service
+@Slf4j
+public class UserWebhookIngestionService {
+
+    private final UserWebhookService webhookService;
+    private final UserWebhookInboxRepository inboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public UserWebhookIngestionService(UserWebhookService webhookService,
+                                       UserWebhookInboxRepository inboxRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       ObjectMapper objectMapper,
+                                       @Value("${user-webhook.batch-size:500}") int batchSize) {
+        this.webhookService = webhookService;
+        this.inboxRepository = inboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Persist the state of a user for the next flush. Throws if it could not be stored,
+     * in which case the webhook must not be acknowledged.
+     */
+    public void submit(KeycloakUserWebhookDTO webhookData) {
+        if (webhookData.getId() == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        try {
+            inboxRepository.upsert(webhookData.getId(), objectMapper.writeValueAsString(webhookData));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize webhook of user " + webhookData.getId(), e);
+        }
+    }
+
+    /**
+     * Apply the pending event of a user right away, so that a following delete sees the user.
+     */
+    public void flushUser(String userId) {
+        apply(() -> inboxRepository.claimUser(userId));
+    }
+
+    @Scheduled(fixedDelayString = "${user-webhook.flush-interval-ms:200}")
+    public void flush() {
+        int applied;
+        do {
+            applied = apply(() -> inboxRepository.claimOldest(batchSize));
+        } while (applied == batchSize);
+    }
+
+    /**
+     * Apply a claimed batch in one transaction, its inbox rows being deleted in the same transaction.
+     *
+     * @return the number of entries claimed, or -1 if the batch must be retried on a later flush
+     */
+    private int apply(Supplier<List<InboxEntry>> claim) {
+        List<String> claimedIds = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<InboxEntry> batch = claim.get();
+                batch.forEach(entry -> claimedIds.add(entry.userId()));
+                if (!batch.isEmpty()) {
+                    webhookService.upsertUsers(batch.stream().map(this::toWebhook).toList());
+                    inboxRepository.deleteAll(claimedIds);
+                }
+            });
+            return claimedIds.size();
+        } catch (DataIntegrityViolationException e) {
+            if (claimedIds.size() == 1) {
+                // Not retryable (e.g. a username taken by another id): the row is dropped
+                log.error("Dropping Keycloak webhook of user {}: {}", claimedIds.get(0), e.getMessage());
+                discard(claimedIds);
+                return 1;
+            }
+            // One bad row fails the whole statement: apply the users one by one so that only
+            // the faulty ones are dropped
+            log.warn("Batch upsert of {} users failed ({}), retrying one by one", claimedIds.size(), e.getMessage());
+            for (String userId : claimedIds) {
+                if (apply(() -> inboxRepository.claimUser(userId)) < 0) {
+                    return -1;
+                }
+            }
+            return claimedIds.size();
+        } catch (RuntimeException e) {
+            // Transient (database unavailable...): the rows stay in the inbox for the next flush
+            log.warn("Failed to apply {} Keycloak webhook(s), will retry: {}", claimedIds.size(), e.getMessage());
+            return -1;
+        }
+    }
+
+    private void discard(List<String> userIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> inboxRepository.deleteAll(userIds));
+        } catch (RuntimeException e) {
+            log.warn("Failed to drop Keycloak webhook(s) of {}: {}", userIds, e.getMessage());
+        }
+    }
+
+    private KeycloakUserWebhookDTO toWebhook(InboxEntry entry) {
+        try {
+            return objectMapper.readValue(entry.payload(), KeycloakUserWebhookDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted webhook inbox entry for user " + entry.userId(), e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+}
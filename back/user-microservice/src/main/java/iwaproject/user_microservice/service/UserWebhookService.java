@@ -2,6 +2,7 @@ package iwaproject.user_microservice.service;
 
 import iwaproject.user_microservice.dto.KeycloakUserWebhookDTO;
 import iwaproject.user_microservice.entity.User;
+import iwaproject.user_microservice.repository.UserBatchRepository;
 import iwaproject.user_microservice.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,7 +11,10 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service to handle webhook events from Keycloak and sync users to the database
@@ -21,10 +25,14 @@ import java.util.Objects;
 public class UserWebhookService {
 
     private final UserRepository userRepository;
+    private final UserBatchRepository userBatchRepository;
     
     @Autowired(required = false)
     private iwaproject.user_microservice.kafka.producer.LogProducer logProducer;
-    private final StripeClient stripeClient;
+    private final StripeOnboardingService stripeOnboardingService;
+    private final UserProfileCache profileCache;
+    private final UserStatsCounter statsCounter;
+    private final UserAvailabilityService availabilityService;
 
     /**
      * Create a new user from Keycloak webhook data
@@ -32,44 +40,7 @@ public class UserWebhookService {
     @Transactional
     public void createUser(KeycloakUserWebhookDTO webhookData) {
         log.info("Creating user from Keycloak webhook: {}", webhookData.getId());
-
-        // Check if user already exists (to handle duplicate events)
-        String userId = webhookData.getId();
-        if (userId != null && userRepository.existsById(userId)) {
-            log.warn("User {} already exists, updating instead", userId);
-            updateUser(userId, webhookData);
-            return;
-        }
-        User user = User.builder()
-                .id(webhookData.getId()) // Use Keycloak ID as primary key
-                .username(webhookData.getUsername())
-                .email(webhookData.getEmail())
-                .firstName(webhookData.getFirstName())
-                .lastName(webhookData.getLastName())
-                .build();
-
-        userRepository.save(Objects.requireNonNull(user));
-
-        // Try to create a Stripe Connect account for the user and save the account id
-        try {
-            if (user.getEmail() != null && !user.getEmail().isEmpty()) {
-                String accountId = stripeClient.createConnectAccount(user.getEmail());
-                if (accountId != null) {
-                    user.setStripeAccountId(accountId);
-                    userRepository.save(user);
-                    log.info("Stripe account {} associated with user {}", accountId, user.getId());
-                } else {
-                    log.warn("Stripe client returned null accountId for user {}", user.getId());
-                }
-            } else {
-                log.warn("User {} has no email, skipping Stripe account creation", user.getId());
-            }
-        } catch (Exception e) {
-            // Do not fail the whole webhook processing if Stripe call fails. Log and move on.
-            log.error("Failed to create Stripe account for user {}: {}", user.getId(), e.getMessage(), e);
-        }
-
-        log.info("User {} created successfully in local database", user.getId());
+        upsertUsers(List.of(webhookData));
     }
 
     /**
@@ -82,21 +53,37 @@ public class UserWebhookService {
         if (userId == null) {
             throw new IllegalArgumentException("User ID cannot be null");
         }
+        webhookData.setId(userId);
+        upsertUsers(List.of(webhookData));
+    }
 
-        User user = userRepository.findById(userId)
-                .orElseGet(() -> {
-                    log.warn("User {} not found, creating new user", userId);
-                    return User.builder().id(userId).build();
-                });
+    /**
+     * Create or update users from Keycloak webhook data with a single INSERT ... ON CONFLICT statement.
+     * Creation and update events are idempotent: the last state of a user wins.
+     */
+    @Transactional
+    public void upsertUsers(Collection<KeycloakUserWebhookDTO> webhookData) {
+        Map<String, KeycloakUserWebhookDTO> byId = new LinkedHashMap<>();
+        for (KeycloakUserWebhookDTO data : webhookData) {
+            if (data.getId() == null) {
+                throw new IllegalArgumentException("User ID cannot be null");
+            }
+            byId.put(data.getId(), data);
+        }
+        if (byId.isEmpty()) {
+            return;
+        }
 
-        // Update user fields
-        user.setUsername(webhookData.getUsername());
-        user.setEmail(webhookData.getEmail());
-        user.setFirstName(webhookData.getFirstName());
-        user.setLastName(webhookData.getLastName());
+        List<String> createdIds = userBatchRepository.upsertAll(List.copyOf(byId.values()));
+        for (String userId : createdIds) {
+            statsCounter.onUserCreated();
+            // Stripe Connect account created asynchronously (outbox row committed with the user)
+            stripeOnboardingService.requestConnectAccount(userId, byId.get(userId).getEmail());
+        }
+        byId.keySet().forEach(profileCache::invalidate);
+        byId.values().forEach(data -> availabilityService.add(data.getUsername()));
 
-        userRepository.save(user);
-        log.info("User {} updated successfully in local database", userId);
+        log.info("Synced {} user(s) from Keycloak webhook ({} created)", byId.size(), createdIds.size());
     }
 
     /**
@@ -113,8 +100,12 @@ public class UserWebhookService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
 
+        if (!user.isDeleted()) {
+            statsCounter.onUserDeleted(user.getCreatedAt());
+        }
         user.setDeletedAt(LocalDateTime.now());
         userRepository.save(user);
+        profileCache.invalidate(userId);
 
         // Send a log to Kafka about the user deletion (if Kafka/logging is enabled)
         if (logProducer != null) {
@@ -0,0 +1,21 @@
+-- Stripe Connect onboarding outbox (one row per user, processed by StripeOnboardingWorker)
+CREATE TABLE IF NOT EXISTS stripe_onboarding_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    user_id VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_stripe_onboarding_due ON stripe_onboarding_outbox(next_attempt_at) WHERE status = 'PENDING';
+
+-- Outbox of user domain events (USER_CREATED/UPDATED/DELETED), relayed to Kafka by UserEventRelay
+CREATE TABLE IF NOT EXISTS user_event_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    user_id VARCHAR(255) NOT NULL,
+    event_type VARCHAR(32) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,17 @@
+-- Almost every query filters on deleted_at IS NULL: partial indexes over active users only.
+-- id: index-only count of active users (countByDeletedAtIsNull) and active lookups by id
+CREATE INDEX IF NOT EXISTS idx_users_active_id ON users(id) WHERE deleted_at IS NULL;
+-- username / email: findBy...AndDeletedAtIsNull, existsByEmailAndDeletedAtIsNull
+CREATE INDEX IF NOT EXISTS idx_users_active_username ON users(username) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_users_active_email ON users(email) WHERE deleted_at IS NULL;
+-- created_at: countByCreatedAtAfterAndDeletedAtIsNull and listing of active users by date
+CREATE INDEX IF NOT EXISTS idx_users_active_created_at ON users(created_at) WHERE deleted_at IS NULL;
+
+-- Deleted users: count and archival scan by deletion date (replaces the full index on deleted_at,
+-- whose entries were almost all NULL)
+DROP INDEX IF EXISTS idx_users_deleted_at;
+CREATE INDEX IF NOT EXISTS idx_users_deleted_at ON users(deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- Redundant with the indexes of the UNIQUE constraints on username and email
+DROP INDEX IF EXISTS idx_users_username;
+DROP INDEX IF EXISTS idx_users_email;
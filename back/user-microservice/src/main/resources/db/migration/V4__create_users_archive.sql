@@ -0,0 +1,13 @@
+-- Users deleted for longer than the retention period, moved out of users by UserArchivalJob
+CREATE TABLE IF NOT EXISTS users_archive (
+    id VARCHAR(255) PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    deleted_at TIMESTAMP NOT NULL,
+    stripe_account_id VARCHAR(255),
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
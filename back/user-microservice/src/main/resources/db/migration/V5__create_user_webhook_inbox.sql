@@ -0,0 +1,8 @@
+-- Keycloak create/update webhooks persisted before they are acknowledged, applied in batches
+-- by UserWebhookIngestionService (one row per user: the last state received wins)
+CREATE TABLE IF NOT EXISTS user_webhook_inbox (
+    user_id VARCHAR(255) PRIMARY KEY,
+    payload JSONB NOT NULL,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_user_webhook_inbox_received ON user_webhook_inbox(received_at);
@@ -0,0 +1,4 @@
+-- The UNIQUE constraints on username and email already index every row: the partial indexes over
+-- active users (V3) serve the same lookups, only cost writes and space
+DROP INDEX IF EXISTS idx_users_active_username;
+DROP INDEX IF EXISTS idx_users_active_email;
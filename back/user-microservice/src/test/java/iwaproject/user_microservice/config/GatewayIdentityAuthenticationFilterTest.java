@@ -0,0 +1,118 @@
+package iwaproject.user_microservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayIdentityAuthenticationFilterTest {
+
+    private static final String SECRET = "test-gateway-secret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GatewayIdentityAuthenticationFilter filter =
+            new GatewayIdentityAuthenticationFilter(SECRET, objectMapper, 100);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String identity(String secret, Map<String, Object> claims) throws Exception {
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(claims));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return payload + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private Map<String, Object> claims(long exp) {
+        return Map.of(
+                "sub", "user-1",
+                "preferred_username", "alice",
+                "realm_access", Map.of("roles", List.of("user")),
+                "exp", exp);
+    }
+
+    @Test
+    void validIdentity_ShouldAuthenticateWithJwtClaimsAndRoles() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(GatewayIdentityAuthenticationFilter.HEADER, identity(SECRET, claims(Instant.now().getEpochSecond() + 300)));
+        request.addHeader("Authorization", "Bearer original-token");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        JwtAuthenticationToken authentication = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(authentication.getToken().getSubject()).isEqualTo("user-1");
+        assertThat(authentication.getToken().<String>getClaim("preferred_username")).isEqualTo("alice");
+        assertThat(authentication.getToken().getTokenValue()).isEqualTo("original-token");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_user");
+        assertThat(request.getAttribute(GatewayIdentityAuthenticationFilter.AUTHENTICATED_ATTRIBUTE)).isEqualTo(Boolean.TRUE);
+    }
+
+    @Test
+    void identitySignedByGateway_ShouldBeAccepted() {
+        // Produced by the gateway's InternalIdentitySigner for the same secret (see InternalIdentitySignerTest)
+        String gatewayIdentity = "eyJzdWIiOiJ1c2VyLTEiLCJwcmVmZXJyZWRfdXNlcm5hbWUiOiJhbGljZSIsInJlYWxtX2FjY2VzcyI6eyJyb2xlcyI6WyJ1c2VyIl19LCJleHAiOjQxMDI0NDQ4MDB9"
+                + ".J36F4HwOuZbL-naED7yVecgm6bxhiqoHbQzAxWdxqiQ";
+
+        JwtAuthenticationToken authentication = filter.authenticate(gatewayIdentity, null);
+
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getToken().getSubject()).isEqualTo("user-1");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_user");
+    }
+
+    @Test
+    void identitySignedWithAnotherSecret_ShouldBeRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(GatewayIdentityAuthenticationFilter.HEADER, identity("forged", claims(Instant.now().getEpochSecond() + 300)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void expiredIdentity_ShouldBeRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(GatewayIdentityAuthenticationFilter.HEADER, identity(SECRET, claims(Instant.now().getEpochSecond() - 1)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void requestWithoutIdentity_ShouldFallThroughToJwtAuthentication() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(request.getAttribute(GatewayIdentityAuthenticationFilter.AUTHENTICATED_ATTRIBUTE)).isNull();
+    }
+}
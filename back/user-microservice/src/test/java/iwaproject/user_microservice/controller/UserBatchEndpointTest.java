@@ -0,0 +1,92 @@
+package iwaproject.user_microservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.service.UserAvailabilityService;
+import iwaproject.user_microservice.service.UserBatchLookupService;
+import iwaproject.user_microservice.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * POST /api/users/batch, without the application context (UserControllerTest needs a database)
+ */
+@ExtendWith(MockitoExtension.class)
+class UserBatchEndpointTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserBatchLookupService userBatchLookupService;
+
+    @Mock
+    private UserAvailabilityService availabilityService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UserController userController;
+
+    @BeforeEach
+    void setUp() {
+        userController = new UserController(userService, userBatchLookupService, availabilityService, objectMapper);
+    }
+
+    private static UserPublicDTO profile(String id) {
+        return UserPublicDTO.builder().id(id).username(id + "-name").build();
+    }
+
+    private String write(StreamingResponseBody body, ByteArrayOutputStream out) throws Exception {
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void getUsersByIds_ShouldStreamEveryChunkAsOneArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<List<UserPublicDTO>> sink = invocation.getArgument(1);
+            sink.accept(List.of(profile("user-1")));
+            sink.accept(List.of(profile("user-2")));
+            return null;
+        }).when(userBatchLookupService).streamPublicProfiles(anyCollection(), any());
+
+        String json = write(userController.getUsersByIds(List.of("user-1", "user-2")).getBody(), new ByteArrayOutputStream());
+
+        assertThat(objectMapper.readValue(json, UserPublicDTO[].class))
+                .extracting(UserPublicDTO::getId).containsExactly("user-1", "user-2");
+    }
+
+    @Test
+    void getUsersByIds_WhenALaterChunkFails_ShouldNotTerminateTheArray() {
+        doAnswer(invocation -> {
+            Consumer<List<UserPublicDTO>> sink = invocation.getArgument(1);
+            sink.accept(List.of(profile("user-1")));
+            throw new DataAccessResourceFailureException("connection refused");
+        }).when(userBatchLookupService).streamPublicProfiles(anyCollection(), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseBody body = userController.getUsersByIds(List.of("user-1", "user-2")).getBody();
+
+        assertThatThrownBy(() -> body.writeTo(out)).isInstanceOf(DataAccessResourceFailureException.class);
+
+        // The caller must not be able to read a truncated list as a complete one
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertThat(json).startsWith("[").doesNotEndWith("]");
+        assertThatThrownBy(() -> objectMapper.readValue(json, UserPublicDTO[].class)).isInstanceOf(Exception.class);
+    }
+}
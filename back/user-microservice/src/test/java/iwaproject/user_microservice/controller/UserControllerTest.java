@@ -4,9 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import iwaproject.user_microservice.dto.UpdateProfileDTO;
 import iwaproject.user_microservice.dto.UserProfileDTO;
 import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.dto.UserSearchSliceDTO;
 import iwaproject.user_microservice.dto.UserStatsDTO;
 import iwaproject.user_microservice.entity.User;
 import iwaproject.user_microservice.exception.UserNotFoundException;
+import iwaproject.user_microservice.service.UserBatchLookupService;
 import iwaproject.user_microservice.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,6 +22,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -27,6 +30,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -50,6 +54,8 @@ class UserControllerTest {
 
     private UserService userService;
 
+    private UserBatchLookupService userBatchLookupService;
+
     private User testUser;
     private UserProfileDTO testProfileDTO;
     private UserPublicDTO testPublicDTO;
@@ -110,9 +116,8 @@ class UserControllerTest {
     @DisplayName("GET /api/users/profile - Should return current user profile")
     void getCurrentUserProfile_Success() throws Exception {
         // Given
-        when(userService.getOrCreateUser(anyString(), anyString(), anyString(), anyString(), anyString()))
-                .thenReturn(testUser);
-        when(userService.getUserProfile(anyString())).thenReturn(testProfileDTO);
+        when(userService.getOrCreateProfile(anyString(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(testProfileDTO);
         
         // When & Then
         mockMvc.perform(get("/api/users/profile")
@@ -124,8 +129,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.firstName").value("Test"))
                 .andExpect(jsonPath("$.lastName").value("User"));
 
-        verify(userService).getOrCreateUser("test-user-id", "testuser", "test@example.com", "Test", "User");
-        verify(userService).getUserProfile("test-user-id");
+        verify(userService).getOrCreateProfile("test-user-id", "testuser", "test@example.com", "Test", "User");
     }
 
     @Test
@@ -249,22 +253,24 @@ class UserControllerTest {
     @DisplayName("GET /api/users/search - Should search users by query")
     void searchUsers_Success() throws Exception {
         // Given
-        List<UserPublicDTO> users = Arrays.asList(testPublicDTO);
-        Page<UserPublicDTO> page = new PageImpl<>(users, PageRequest.of(0, 20), 1);
+        UserSearchSliceDTO slice = UserSearchSliceDTO.builder()
+                .content(Arrays.asList(testPublicDTO))
+                .hasNext(false)
+                .build();
 
-        when(userService.searchUsers(eq("test"), any())).thenReturn(page);
+        when(userService.searchUsers(eq("test"), any(), eq(20))).thenReturn(slice);
 
         // When & Then
         mockMvc.perform(get("/api/users/search")
                         .with(jwt())
                         .param("query", "test")
-                        .param("page", "0")
                         .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content", hasSize(1)))
-                .andExpect(jsonPath("$.content[0].username").value("testuser"));
+                .andExpect(jsonPath("$.content[0].username").value("testuser"))
+                .andExpect(jsonPath("$.hasNext").value(false));
 
-        verify(userService).searchUsers(eq("test"), any());
+        verify(userService).searchUsers(eq("test"), any(), eq(20));
     }
 
     @Test
@@ -290,18 +296,24 @@ class UserControllerTest {
         List<String> userIds = Arrays.asList("test-user-id", "another-id");
         List<UserPublicDTO> users = Arrays.asList(testPublicDTO);
 
-        when(userService.getUsersByIds(userIds)).thenReturn(users);
+        doAnswer(invocation -> {
+            invocation.<Consumer<List<UserPublicDTO>>>getArgument(1).accept(users);
+            return null;
+        }).when(userBatchLookupService).streamPublicProfiles(eq(userIds), any());
 
         // When & Then
-        mockMvc.perform(post("/api/users/batch")
+        MvcResult result = mockMvc.perform(post("/api/users/batch")
                         .with(jwt())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(userIds)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].username").value("testuser"));
 
-        verify(userService).getUsersByIds(userIds);
+        verify(userBatchLookupService).streamPublicProfiles(eq(userIds), any());
     }
 
     @Test
@@ -0,0 +1,103 @@
+package iwaproject.user_microservice.kafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iwaproject.user_microservice.entity.User;
+import iwaproject.user_microservice.kafka.event.KeycloakUserEvent;
+import iwaproject.user_microservice.service.UserService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakEventConsumerTest {
+
+    @Mock
+    private UserService userService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private KeycloakEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new KeycloakEventConsumer(userService, meterRegistry);
+    }
+
+    private static ConsumerRecord<String, KeycloakUserEvent> record(long offset, String type, String userId, String username) {
+        KeycloakUserEvent event = userId == null && type == null ? null : KeycloakUserEvent.builder()
+                .eventType(type).userId(userId).username(username).email(username + "@example.com").build();
+        return new ConsumerRecord<>("keycloak-events", 0, offset, userId, event);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void consume_ShouldRegisterDeduplicatedUsersInOneCall() {
+        consumer.consumeKeycloakEvents(List.of(
+                record(0, "REGISTER", "user-1", "alice"),
+                record(1, "UPDATE", "user-2", "bob"),
+                record(2, "REGISTER", "user-2", "bob"),
+                record(3, "REGISTER", "user-1", "alice2")));
+
+        ArgumentCaptor<Collection<User>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(userService).registerUsers(captor.capture());
+        assertThat(captor.getValue()).extracting(User::getId, User::getUsername)
+                .containsExactly(tuple("user-2", "bob"), tuple("user-1", "alice2"));
+        assertThat(meterRegistry.get("keycloak.events.batch.size").summary().totalAmount()).isEqualTo(4.0);
+    }
+
+    @Test
+    void consume_WithUndeserializableRecord_ShouldWritePrecedingRecordsAndFailAtIt() {
+        ConsumerRecord<String, KeycloakUserEvent> poison = record(1, null, null, null);
+        List<ConsumerRecord<String, KeycloakUserEvent>> records = List.of(
+                record(0, "REGISTER", "user-1", "alice"), poison, record(2, "REGISTER", "user-2", "bob"));
+
+        assertThatThrownBy(() -> consumer.consumeKeycloakEvents(records))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getRecord()).isSameAs(poison));
+        verify(userService).registerUsers(argThat(users -> users.size() == 1));
+    }
+
+    @Test
+    void consume_WhenBatchWriteFails_ShouldIdentifyFailingRecord() {
+        ConsumerRecord<String, KeycloakUserEvent> conflicting = record(1, "REGISTER", "user-2", "taken");
+        lenient().doThrow(new DataIntegrityViolationException("duplicate username")).when(userService).registerUsers(argThat(users -> users.size() == 2));
+        lenient().doThrow(new DataIntegrityViolationException("duplicate username")).when(userService)
+                .registerUsers(argThat(users -> users.size() == 1 && users.iterator().next().getId().equals("user-2")));
+
+        assertThatThrownBy(() -> consumer.consumeKeycloakEvents(List.of(record(0, "REGISTER", "user-1", "alice"), conflicting)))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getRecord()).isSameAs(conflicting));
+        verify(userService, times(3)).registerUsers(anyCollection());
+    }
+
+    @Test
+    void consume_WhenDatabaseIsUnavailable_ShouldFailAtFirstRecordWithoutRetryingOneByOne() {
+        ConsumerRecord<String, KeycloakUserEvent> first = record(0, "REGISTER", "user-1", "alice");
+        DataAccessResourceFailureException outage = new DataAccessResourceFailureException("connection refused");
+        doThrow(outage).when(userService).registerUsers(anyCollection());
+
+        assertThatThrownBy(() -> consumer.consumeKeycloakEvents(List.of(first, record(1, "REGISTER", "user-2", "bob"))))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .hasCause(outage)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getRecord()).isSameAs(first));
+        verify(userService, times(1)).registerUsers(anyCollection());
+    }
+}
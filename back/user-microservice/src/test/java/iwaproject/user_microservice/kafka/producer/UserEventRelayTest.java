@@ -0,0 +1,104 @@
+package iwaproject.user_microservice.kafka.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iwaproject.user_microservice.kafka.event.UserEvent;
+import iwaproject.user_microservice.repository.UserEventOutboxRepository;
+import iwaproject.user_microservice.repository.UserEventOutboxRepository.OutboxEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserEventRelayTest {
+
+    @Mock
+    private UserEventOutboxRepository outboxRepository;
+
+    @Mock
+    private UserEventProducer userEventProducer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private SimpleMeterRegistry meterRegistry;
+    private UserEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new UserEventRelay(outboxRepository, userEventProducer, objectMapper, transactionTemplate,
+                meterRegistry, 2, 1000);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+        lenient().when(outboxRepository.tryLockRelay()).thenReturn(true);
+    }
+
+    private OutboxEvent outboxEvent(long id, String userId, String type) throws Exception {
+        UserEvent event = UserEvent.builder().eventType(type).userId(userId).timestamp(LocalDateTime.now()).build();
+        return new OutboxEvent(id, userId, objectMapper.writeValueAsString(event), LocalDateTime.now());
+    }
+
+    @Test
+    void relayBatch_ShouldPublishInOutboxOrderThenDelete() throws Exception {
+        when(outboxRepository.findOldest(2)).thenReturn(List.of(
+                outboxEvent(1, "user-1", "USER_CREATED"), outboxEvent(2, "user-1", "USER_UPDATED")));
+        when(userEventProducer.publishUserEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(relay.relayBatch()).isEqualTo(2);
+
+        InOrder inOrder = inOrder(userEventProducer, outboxRepository);
+        inOrder.verify(userEventProducer).publishUserEvent(argThat(e -> e.getEventType().equals("USER_CREATED")));
+        inOrder.verify(userEventProducer).publishUserEvent(argThat(e -> e.getEventType().equals("USER_UPDATED")));
+        inOrder.verify(outboxRepository).deleteAll(List.of(1L, 2L));
+    }
+
+    @Test
+    void relayBatch_WhenSendFails_ShouldKeepBatchInOutbox() throws Exception {
+        when(outboxRepository.findOldest(2)).thenReturn(List.of(outboxEvent(1, "user-1", "USER_CREATED")));
+        when(userEventProducer.publishUserEvent(any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        assertThatThrownBy(() -> relay.relayBatch()).isInstanceOf(IllegalStateException.class);
+        verify(outboxRepository, never()).deleteAll(anyCollection());
+    }
+
+    @Test
+    void relayBatch_WhenAnotherRelayHoldsTheLock_ShouldDoNothing() {
+        when(outboxRepository.tryLockRelay()).thenReturn(false);
+
+        assertThat(relay.relayBatch()).isZero();
+        verify(outboxRepository, never()).findOldest(anyInt());
+        verifyNoInteractions(userEventProducer);
+    }
+
+    @Test
+    void relay_ShouldDrainFullBatchesAndExposeLag() throws Exception {
+        when(outboxRepository.findOldest(2))
+                .thenReturn(List.of(outboxEvent(1, "user-1", "USER_CREATED"), outboxEvent(2, "user-2", "USER_CREATED")))
+                .thenReturn(List.of(outboxEvent(3, "user-3", "USER_CREATED")));
+        when(userEventProducer.publishUserEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(outboxRepository.oldestCreatedAt()).thenReturn(LocalDateTime.now().minusSeconds(30));
+
+        relay.relay();
+
+        verify(outboxRepository, times(2)).deleteAll(anyCollection());
+        assertThat(meterRegistry.get("users.outbox.lag").gauge().value()).isGreaterThanOrEqualTo(29.0);
+    }
+}
@@ -0,0 +1,154 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.entity.StripeOnboardingTask;
+import iwaproject.user_microservice.entity.StripeOnboardingTask.Status;
+import iwaproject.user_microservice.entity.User;
+import iwaproject.user_microservice.repository.StripeOnboardingTaskRepository;
+import iwaproject.user_microservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripeOnboardingWorkerTest {
+
+    @Mock
+    private StripeOnboardingTaskRepository taskRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StripeClient stripeClient;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private StripeOnboardingWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new StripeOnboardingWorker(taskRepository, userRepository, stripeClient,
+                new UserProfileCache(100, 300), transactionTemplate, 2, 3, 1_000, 60_000, 7);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static StripeOnboardingTask task(int attempts) {
+        return StripeOnboardingTask.builder()
+                .id(1L)
+                .userId("user-1")
+                .email("user@example.com")
+                .status(Status.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void process_ShouldLinkAccountAndCompleteTask() {
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(User.builder().id("user-1").build()));
+        when(stripeClient.createConnectAccount("user@example.com", "stripe-onboarding-user-1")).thenReturn("acct_123");
+
+        worker.process(task(0));
+
+        verify(userRepository).linkStripeAccount("user-1", "acct_123");
+        verify(taskRepository).recordAttempt(eq(1L), eq(Status.DONE), any(), isNull());
+    }
+
+    @Test
+    void process_WhenAccountAlreadyLinked_ShouldNotCallStripe() {
+        when(userRepository.findById("user-1"))
+                .thenReturn(Optional.of(User.builder().id("user-1").stripeAccountId("acct_old").build()));
+
+        worker.process(task(1));
+
+        verifyNoInteractions(stripeClient);
+        verify(taskRepository).recordAttempt(eq(1L), eq(Status.DONE), any(), isNull());
+    }
+
+    @Test
+    void process_WhenUserWasDeletedOrArchived_ShouldNotCallStripe() {
+        when(userRepository.findById("user-1"))
+                .thenReturn(Optional.of(User.builder().id("user-1").deletedAt(LocalDateTime.now()).build()))
+                .thenReturn(Optional.empty());
+
+        worker.process(task(0));
+        worker.process(task(0));
+
+        verifyNoInteractions(stripeClient);
+        verify(taskRepository, times(2)).recordAttempt(eq(1L), eq(Status.DONE), any(), eq("User deleted"));
+    }
+
+    @Test
+    void process_WhenStripeFails_ShouldRecordTheCauseThenGiveUp() {
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(User.builder().id("user-1").build()));
+        when(stripeClient.createConnectAccount(anyString(), anyString()))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        worker.process(task(0));
+        worker.process(task(2));
+
+        verify(taskRepository).recordAttempt(eq(1L), eq(Status.PENDING), any(), eq("Read timed out"));
+        verify(taskRepository).recordAttempt(eq(1L), eq(Status.FAILED), any(), eq("Read timed out"));
+        verify(userRepository, never()).linkStripeAccount(anyString(), anyString());
+    }
+
+    @Test
+    void process_WhenLinkingFailsAfterAccountCreation_ShouldRetryWithTheSameIdempotencyKey() {
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(User.builder().id("user-1").build()));
+        when(stripeClient.createConnectAccount("user@example.com", "stripe-onboarding-user-1")).thenReturn("acct_123");
+        when(userRepository.linkStripeAccount("user-1", "acct_123"))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"))
+                .thenReturn(1);
+
+        worker.process(task(0));
+        worker.process(task(1));
+
+        // Stripe returns the same account for the replayed key: one account, linked on the retry
+        verify(stripeClient, times(2)).createConnectAccount("user@example.com", "stripe-onboarding-user-1");
+        verify(taskRepository).recordAttempt(eq(1L), eq(Status.PENDING), any(), anyString());
+        verify(taskRepository).recordAttempt(eq(1L), eq(Status.DONE), any(), isNull());
+    }
+
+    @Test
+    void purgeDone_ShouldDeleteCompletedTasksInBatchesUntilNoneAreLeft() {
+        when(taskRepository.deleteDoneBefore(any(), eq(1000))).thenReturn(1000, 12);
+
+        LocalDateTime before = LocalDateTime.now().minusDays(7);
+        worker.purgeDone();
+
+        verify(taskRepository, times(2)).deleteDoneBefore(
+                argThat(cutoff -> !cutoff.isBefore(before) && !cutoff.isAfter(LocalDateTime.now().minusDays(7))), eq(1000));
+    }
+
+    @Test
+    void backoff_ShouldGrowExponentiallyUpToCap() {
+        assertThat(worker.backoff(1)).isBetween(Duration.ofMillis(800), Duration.ofMillis(1_200));
+        assertThat(worker.backoff(4)).isBetween(Duration.ofMillis(6_400), Duration.ofMillis(9_600));
+        assertThat(worker.backoff(20)).isLessThanOrEqualTo(Duration.ofMillis(72_000));
+    }
+}
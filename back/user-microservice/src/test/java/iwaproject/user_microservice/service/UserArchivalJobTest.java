@@ -0,0 +1,55 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.repository.UserArchiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserArchivalJobTest {
+
+    @Mock
+    private UserArchiveRepository archiveRepository;
+
+    @Mock
+    private UserStatsCounter statsCounter;
+
+    private UserArchivalJob archivalJob;
+
+    @BeforeEach
+    void setUp() {
+        archivalJob = new UserArchivalJob(archiveRepository, statsCounter, 30, 100);
+    }
+
+    @Test
+    void archiveDeletedUsers_ShouldMoveBatchesUntilAPartialOne() {
+        when(archiveRepository.archiveDeletedBefore(any(), eq(100))).thenReturn(100, 100, 42);
+
+        archivalJob.archiveDeletedUsers();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(archiveRepository, times(3)).archiveDeletedBefore(cutoff.capture(), eq(100));
+        assertThat(cutoff.getValue()).isBefore(LocalDateTime.now().minusDays(29));
+        verify(statsCounter).reconcile();
+    }
+
+    @Test
+    void archiveDeletedUsers_WhenNothingToArchive_ShouldNotReconcile() {
+        when(archiveRepository.archiveDeletedBefore(any(), eq(100))).thenReturn(0);
+
+        archivalJob.archiveDeletedUsers();
+
+        verify(archiveRepository, times(1)).archiveDeletedBefore(any(), eq(100));
+        verifyNoInteractions(statsCounter);
+    }
+}
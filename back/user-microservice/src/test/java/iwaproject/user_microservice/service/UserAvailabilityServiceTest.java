@@ -0,0 +1,104 @@
+package iwaproject.user_microservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iwaproject.user_microservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserAvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        availabilityService = new UserAvailabilityService(userRepository, jdbcTemplate, transactionTemplate,
+                meterRegistry, 0.01, 1_000);
+    }
+
+    private void buildWith(String... usernames) throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn((long) usernames.length);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (String username : usernames) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("username")).thenReturn(username);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        availabilityService.rebuild();
+    }
+
+    @Test
+    void beforeBuild_ShouldCheckTheDatabase() {
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+
+        assertThat(availabilityService.isUsernameTaken("alice")).isTrue();
+        verify(userRepository).existsByUsername("alice");
+    }
+
+    @Test
+    void unknownName_ShouldBeAvailableWithoutDatabaseQuery() throws Exception {
+        buildWith("alice", "bob");
+
+        assertThat(availabilityService.isUsernameTaken("carol")).isFalse();
+        assertThat(availabilityService.isUsernameTaken("dave")).isFalse();
+        verifyNoInteractions(userRepository);
+        assertThat(meterRegistry.get("users.availability.checks").tag("source", "filter").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void knownName_ShouldFallThroughToTheDatabase() throws Exception {
+        buildWith("alice");
+        when(userRepository.existsByUsername("Alice")).thenReturn(false);
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+
+        // The filter is case-insensitive, the database check is exact
+        assertThat(availabilityService.isUsernameTaken("Alice")).isFalse();
+        assertThat(availabilityService.isUsernameTaken("alice")).isTrue();
+    }
+
+    @Test
+    void addedName_ShouldNeverBeReportedFreeByTheFilter() throws Exception {
+        buildWith();
+        IntStream.range(0, 500).forEach(i -> availabilityService.add("user" + i));
+
+        IntStream.range(0, 500).forEach(i -> availabilityService.isUsernameTaken("user" + i));
+
+        verify(userRepository, times(500)).existsByUsername(anyString());
+    }
+}
@@ -0,0 +1,79 @@
+package iwaproject.user_microservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.repository.UserBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBatchLookupServiceTest {
+
+    @Mock
+    private UserBatchRepository userBatchRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserProfileCache profileCache;
+    private UserBatchLookupService lookupService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        profileCache = new UserProfileCache(1_000, 300);
+        lookupService = new UserBatchLookupService(userBatchRepository, profileCache, meterRegistry, 2);
+        lenient().when(userBatchRepository.findActivePublicProfiles(anyList())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(0).stream().map(UserBatchLookupServiceTest::profile).toList());
+    }
+
+    private static UserPublicDTO profile(String id) {
+        return UserPublicDTO.builder().id(id).username(id + "-name").build();
+    }
+
+    @Test
+    void getPublicProfiles_ShouldResolveMissesInFixedSizeChunks() {
+        List<String> ids = IntStream.range(0, 5).mapToObj(i -> "user-" + i).toList();
+
+        List<UserPublicDTO> result = lookupService.getPublicProfiles(ids);
+
+        assertThat(result).extracting(UserPublicDTO::getId).containsExactlyElementsOf(ids);
+        verify(userBatchRepository).findActivePublicProfiles(List.of("user-0", "user-1"));
+        verify(userBatchRepository).findActivePublicProfiles(List.of("user-2", "user-3"));
+        verify(userBatchRepository).findActivePublicProfiles(List.of("user-4"));
+    }
+
+    @Test
+    void getPublicProfiles_ShouldServeRepeatedIdsFromCache() {
+        lookupService.getPublicProfiles(List.of("user-1", "user-2"));
+
+        List<List<UserPublicDTO>> chunks = new ArrayList<>();
+        lookupService.streamPublicProfiles(List.of("user-1", "user-2", "user-2", "user-3"), chunks::add);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).extracting(UserPublicDTO::getId).containsExactly("user-1", "user-2");
+        verify(userBatchRepository).findActivePublicProfiles(List.of("user-3"));
+        assertThat(meterRegistry.get("users.batch.cache").tag("result", "hit").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("users.batch.cache").tag("result", "miss").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("users.batch.size").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    void getPublicProfiles_AfterInvalidation_ShouldReloadUser() {
+        lookupService.getPublicProfiles(List.of("user-1"));
+        profileCache.invalidate("user-1");
+
+        lookupService.getPublicProfiles(List.of("user-1"));
+
+        verify(userBatchRepository, times(2)).findActivePublicProfiles(List.of("user-1"));
+    }
+}
@@ -3,11 +3,13 @@ package iwaproject.user_microservice.service;
 import iwaproject.user_microservice.dto.UpdateProfileDTO;
 import iwaproject.user_microservice.dto.UserProfileDTO;
 import iwaproject.user_microservice.dto.UserPublicDTO;
+import iwaproject.user_microservice.dto.UserSearchCursor;
+import iwaproject.user_microservice.dto.UserSearchSliceDTO;
 import iwaproject.user_microservice.dto.UserStatsDTO;
 import iwaproject.user_microservice.entity.User;
 import iwaproject.user_microservice.exception.UserAlreadyExistsException;
 import iwaproject.user_microservice.exception.UserNotFoundException;
-import iwaproject.user_microservice.kafka.producer.UserEventProducer;
+import iwaproject.user_microservice.repository.UserArchiveRepository;
 import iwaproject.user_microservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,11 +17,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -38,7 +43,22 @@ class UserServiceExtendedTest {
     private UserRepository userRepository;
 
     @Mock
-    private UserEventProducer userEventProducer;
+    private UserEventOutboxService userEventOutbox;
+
+    @Mock
+    private UserStatsCounter statsCounter;
+
+    @Mock
+    private UserAvailabilityService availabilityService;
+
+    @Mock
+    private StripeOnboardingService stripeOnboardingService;
+
+    @Mock
+    private UserArchiveRepository archiveRepository;
+
+    @Spy
+    private UserProfileCache profileCache = new UserProfileCache(100, 300);
 
     @InjectMocks
     private UserService userService;
@@ -187,6 +207,7 @@ class UserServiceExtendedTest {
                 .hasMessageContaining("Username already taken");
 
         verify(userRepository).existsByUsername("updateduser");
+        verify(availabilityService, never()).isUsernameTaken(anyString());
         verify(userRepository, never()).save(any(User.class));
     }
 
@@ -344,6 +365,98 @@ class UserServiceExtendedTest {
         verify(userRepository).save(any(User.class));
     }
 
+    // ========== getOrCreateProfile Tests ==========
+
+    @Test
+    @DisplayName("getOrCreateProfile - Should serve repeated calls from the profile cache")
+    void getOrCreateProfile_ExistingUser_CachedAfterFirstLookup() {
+        // Given
+        when(userRepository.findById("test-user-id-123")).thenReturn(Optional.of(testUser));
+
+        // When
+        UserProfileDTO first = userService.getOrCreateProfile("test-user-id-123", "testuser",
+                "test@example.com", "Test", "User");
+        UserProfileDTO second = userService.getOrCreateProfile("test-user-id-123", "testuser",
+                "test@example.com", "Test", "User");
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(second.getUsername()).isEqualTo("testuser");
+        verify(userRepository, times(1)).findById("test-user-id-123");
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("getOrCreateProfile - Should insert atomically when user does not exist")
+    void getOrCreateProfile_NewUser_InsertsOnMiss() {
+        // Given
+        User created = User.builder().id("new-id").username("newuser").email("new@example.com").build();
+        when(userRepository.findById("new-id")).thenReturn(Optional.empty(), Optional.of(created));
+        when(userRepository.findByUsernameAndDeletedAtIsNull("newuser")).thenReturn(Optional.empty());
+        when(userRepository.findByEmailAndDeletedAtIsNull("new@example.com")).thenReturn(Optional.empty());
+        when(userRepository.insertIfAbsent("new-id", "newuser", "new@example.com", "New", "User")).thenReturn(1);
+
+        // When
+        UserProfileDTO result = userService.getOrCreateProfile("new-id", "newuser",
+                "new@example.com", "New", "User");
+
+        // Then
+        assertThat(result.getId()).isEqualTo("new-id");
+        verify(userRepository).insertIfAbsent("new-id", "newuser", "new@example.com", "New", "User");
+        verify(stripeOnboardingService).requestConnectAccount("new-id", "new@example.com");
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("getOrCreateProfile - Should not re-create an archived user")
+    void getOrCreateProfile_ArchivedUser_ThrowsNotFound() {
+        // Given
+        when(userRepository.findById("archived-id")).thenReturn(Optional.empty());
+        when(archiveRepository.isArchived("archived-id")).thenReturn(true);
+
+        // When & Then
+        assertThatThrownBy(() -> userService.getOrCreateProfile("archived-id", "olduser",
+                "old@example.com", "Old", "User"))
+                .isInstanceOf(UserNotFoundException.class);
+        verify(userRepository, never()).insertIfAbsent(any(), any(), any(), any(), any());
+        verify(stripeOnboardingService, never()).requestConnectAccount(any(), any());
+    }
+
+    @Test
+    @DisplayName("getOrCreateProfile - Should be invalidated by profile update")
+    void getOrCreateProfile_InvalidatedByUpdate() {
+        // Given
+        when(userRepository.findById("test-user-id-123")).thenReturn(Optional.of(testUser));
+        when(userRepository.findByIdAndDeletedAtIsNull("test-user-id-123")).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        userService.getOrCreateProfile("test-user-id-123", "testuser", "test@example.com", "Test", "User");
+
+        // When
+        userService.updateProfile("test-user-id-123", updateDTO);
+
+        // Then
+        assertThat(profileCache.get("test-user-id-123")).isNull();
+    }
+
+    @Test
+    @DisplayName("getOrCreateProfile - Should only cache the profile once the transaction commits")
+    void getOrCreateProfile_CachesAfterCommit() {
+        // Given
+        when(userRepository.findById("test-user-id-123")).thenReturn(Optional.of(testUser));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            userService.getOrCreateProfile("test-user-id-123", "testuser", "test@example.com", "Test", "User");
+
+            // Then
+            assertThat(profileCache.get("test-user-id-123")).isNull();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(profileCache.get("test-user-id-123").getUsername()).isEqualTo("testuser");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
     // ========== getAllUsers Tests ==========
 
     @Test
@@ -390,22 +503,48 @@ class UserServiceExtendedTest {
     @DisplayName("searchUsers - Should find users by search term")
     void searchUsers_Success() {
         // Given
-        List<User> users = Arrays.asList(testUser);
-        Page<User> page = new PageImpl<>(users);
-        Pageable pageable = PageRequest.of(0, 10);
-
-        when(userRepository.findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCaseAndDeletedAtIsNull(
-                "test", "test", pageable)).thenReturn(page);
+        when(userRepository.searchActiveUsers("%test%", "test%", -1, "", "", 11))
+                .thenReturn(Arrays.asList(testUser));
 
         // When
-        Page<UserPublicDTO> result = userService.searchUsers("test", pageable);
+        UserSearchSliceDTO result = userService.searchUsers("Test", null, 10);
 
         // Then
-        assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
+        assertThat(result.isHasNext()).isFalse();
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("searchUsers - Should return a cursor positioned after the last user of a full slice")
+    void searchUsers_FullSlice_ReturnsNextCursor() {
+        // Given
+        User other = User.builder().id("other-id").username("mytester").email("m@example.com").build();
+        when(userRepository.searchActiveUsers(anyString(), anyString(), anyInt(), anyString(), anyString(), eq(2)))
+                .thenReturn(Arrays.asList(testUser, other));
+
+        // When
+        UserSearchSliceDTO result = userService.searchUsers("test", null, 1);
 
-        verify(userRepository).findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCaseAndDeletedAtIsNull(
-                "test", "test", pageable);
+        // Then
+        assertThat(result.getContent()).extracting(UserPublicDTO::getId).containsExactly("test-user-id-123");
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(UserSearchCursor.decode(result.getNextCursor()))
+                .isEqualTo(new UserSearchCursor(0, "testuser", "test-user-id-123"));
+    }
+
+    @Test
+    @DisplayName("searchUsers - Should escape LIKE wildcards in the search term")
+    void searchUsers_EscapesWildcards() {
+        // Given
+        when(userRepository.searchActiveUsers("%50\\%\\_a\\_%", "50\\%\\_a\\_%", -1, "", "", 21))
+                .thenReturn(Arrays.asList());
+
+        // When
+        UserSearchSliceDTO result = userService.searchUsers("50%_a_", null, 20);
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
     }
 
     // ========== getUserByEmail Tests ==========
@@ -440,49 +579,6 @@ class UserServiceExtendedTest {
                 .hasMessageContaining("User not found with email");
     }
 
-    // ========== getUsersByIds Tests ==========
-
-    @Test
-    @DisplayName("getUsersByIds - Should return multiple users")
-    void getUsersByIds_Success() {
-        // Given
-        User user2 = User.builder()
-                .id("user-2")
-                .username("user2")
-                .firstName("Second")
-                .lastName("User")
-                .build();
-
-        List<String> ids = Arrays.asList("test-user-id-123", "user-2");
-        List<User> users = Arrays.asList(testUser, user2);
-
-        when(userRepository.findAllByIdInAndDeletedAtIsNull(ids)).thenReturn(users);
-
-        // When
-        List<UserPublicDTO> result = userService.getUsersByIds(ids);
-
-        // Then
-        assertThat(result).hasSize(2);
-        assertThat(result.get(0).getUsername()).isEqualTo("testuser");
-        assertThat(result.get(1).getUsername()).isEqualTo("user2");
-
-        verify(userRepository).findAllByIdInAndDeletedAtIsNull(ids);
-    }
-
-    @Test
-    @DisplayName("getUsersByIds - Should return empty list for no matches")
-    void getUsersByIds_EmptyList() {
-        // Given
-        List<String> ids = Arrays.asList("non-existent-1", "non-existent-2");
-        when(userRepository.findAllByIdInAndDeletedAtIsNull(ids)).thenReturn(Arrays.asList());
-
-        // When
-        List<UserPublicDTO> result = userService.getUsersByIds(ids);
-
-        // Then
-        assertThat(result).isEmpty();
-    }
-
     // ========== userExists Tests ==========
 
     @Test
@@ -546,44 +642,36 @@ class UserServiceExtendedTest {
     // ========== getUserStats Tests ==========
 
     @Test
-    @DisplayName("getUserStats - Should return statistics correctly")
+    @DisplayName("getUserStats - Should return in-memory statistics without querying the database")
     void getUserStats_Success() {
         // Given
-        when(userRepository.countByDeletedAtIsNull()).thenReturn(100L);
-        when(userRepository.countByDeletedAtIsNotNull()).thenReturn(10L);
-        when(userRepository.countByCreatedAtAfterAndDeletedAtIsNull(any(LocalDateTime.class)))
-                .thenReturn(25L);
+        UserStatsDTO stats = UserStatsDTO.builder()
+                .totalActiveUsers(100L)
+                .totalDeletedUsers(10L)
+                .usersLastMonth(25L)
+                .build();
+        when(statsCounter.snapshot()).thenReturn(stats);
 
         // When
         UserStatsDTO result = userService.getUserStats();
 
         // Then
-        assertThat(result).isNotNull();
         assertThat(result.getTotalActiveUsers()).isEqualTo(100L);
         assertThat(result.getTotalDeletedUsers()).isEqualTo(10L);
         assertThat(result.getUsersLastMonth()).isEqualTo(25L);
-
-        verify(userRepository).countByDeletedAtIsNull();
-        verify(userRepository).countByDeletedAtIsNotNull();
-        verify(userRepository).countByCreatedAtAfterAndDeletedAtIsNull(any(LocalDateTime.class));
+        verifyNoInteractions(userRepository);
     }
 
     @Test
-    @DisplayName("getUserStats - Should handle zero counts")
-    void getUserStats_ZeroCounts() {
+    @DisplayName("deleteProfile - Should adjust user statistics")
+    void deleteProfile_AdjustsStats() {
         // Given
-        when(userRepository.countByDeletedAtIsNull()).thenReturn(0L);
-        when(userRepository.countByDeletedAtIsNotNull()).thenReturn(0L);
-        when(userRepository.countByCreatedAtAfterAndDeletedAtIsNull(any(LocalDateTime.class)))
-                .thenReturn(0L);
+        when(userRepository.findByIdAndDeletedAtIsNull("test-user-id-123")).thenReturn(Optional.of(testUser));
 
         // When
-        UserStatsDTO result = userService.getUserStats();
+        userService.deleteProfile("test-user-id-123");
 
         // Then
-        assertThat(result).isNotNull();
-        assertThat(result.getTotalActiveUsers()).isZero();
-        assertThat(result.getTotalDeletedUsers()).isZero();
-        assertThat(result.getUsersLastMonth()).isZero();
+        verify(statsCounter).onUserDeleted(testUser.getCreatedAt());
     }
 }
@@ -6,13 +6,14 @@ import iwaproject.user_microservice.dto.UserPublicDTO;
 import iwaproject.user_microservice.entity.User;
 import iwaproject.user_microservice.exception.UserAlreadyExistsException;
 import iwaproject.user_microservice.exception.UserNotFoundException;
-import iwaproject.user_microservice.kafka.producer.UserEventProducer;
+import iwaproject.user_microservice.repository.UserArchiveRepository;
 import iwaproject.user_microservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -33,7 +34,22 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private UserEventProducer userEventProducer;
+    private UserEventOutboxService userEventOutbox;
+
+    @Mock
+    private UserStatsCounter statsCounter;
+
+    @Mock
+    private UserAvailabilityService availabilityService;
+
+    @Mock
+    private StripeOnboardingService stripeOnboardingService;
+
+    @Mock
+    private UserArchiveRepository archiveRepository;
+
+    @Spy
+    private UserProfileCache profileCache = new UserProfileCache(100, 300);
 
     @InjectMocks
     private UserService userService;
@@ -53,8 +69,8 @@ class UserServiceTest {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        // Inject the mocked userEventProducer into the service (it's optional @Autowired)
-        ReflectionTestUtils.setField(userService, "userEventProducer", userEventProducer);
+        // Inject the mocked userEventOutbox into the service (it's optional @Autowired)
+        ReflectionTestUtils.setField(userService, "userEventOutbox", userEventOutbox);
     }
 
     @Test
@@ -119,7 +135,7 @@ class UserServiceTest {
 
         assertThat(result).isNotNull();
         verify(userRepository, times(1)).save(any(User.class));
-        verify(userEventProducer, times(1)).publishUserEvent(any());
+        verify(userEventOutbox, times(1)).enqueue(any());
     }
 
     @Test
@@ -139,7 +155,7 @@ class UserServiceTest {
                 .hasMessageContaining("Username already taken");
 
         verify(userRepository, never()).save(any(User.class));
-        verify(userEventProducer, never()).publishUserEvent(any());
+        verify(userEventOutbox, never()).enqueue(any());
     }
 
     @Test
@@ -153,7 +169,7 @@ class UserServiceTest {
         verify(userRepository, times(1)).save(argThat(user ->
                 user.getDeletedAt() != null
         ));
-        verify(userEventProducer, times(1)).publishUserEvent(any());
+        verify(userEventOutbox, times(1)).enqueue(any());
     }
 
     @Test
@@ -172,7 +188,7 @@ class UserServiceTest {
 
         assertThat(result).isNotNull();
         verify(userRepository, times(1)).save(any(User.class));
-        verify(userEventProducer, times(1)).publishUserEvent(any());
+        verify(userEventOutbox, times(1)).enqueue(any());
     }
 
     @Test
@@ -190,6 +206,6 @@ class UserServiceTest {
                 .hasMessageContaining("User already exists");
 
         verify(userRepository, never()).save(any(User.class));
-        verify(userEventProducer, never()).publishUserEvent(any());
+        verify(userEventOutbox, never()).enqueue(any());
     }
 }
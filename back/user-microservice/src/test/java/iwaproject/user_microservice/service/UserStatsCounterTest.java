@@ -0,0 +1,65 @@
+package iwaproject.user_microservice.service;
+
+import iwaproject.user_microservice.dto.UserStatsDTO;
+import iwaproject.user_microservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatsCounterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserStatsCounter statsCounter;
+
+    @BeforeEach
+    void setUp() {
+        statsCounter = new UserStatsCounter(userRepository);
+        when(userRepository.countByDeletedAtIsNull()).thenReturn(100L);
+        when(userRepository.countByDeletedAtIsNotNull()).thenReturn(10L);
+        when(userRepository.countByCreatedAtAfterAndDeletedAtIsNull(any(LocalDateTime.class))).thenReturn(25L);
+    }
+
+    @Test
+    void snapshot_ShouldQueryDatabaseOnlyOnce() {
+        statsCounter.snapshot();
+        statsCounter.snapshot();
+
+        verify(userRepository, times(1)).countByDeletedAtIsNull();
+    }
+
+    @Test
+    void events_ShouldAdjustCountersIncrementally() {
+        statsCounter.reconcile();
+
+        statsCounter.onUserCreated();
+        statsCounter.onUserCreated();
+        statsCounter.onUserDeleted(LocalDateTime.now().minusDays(2));
+        statsCounter.onUserDeleted(LocalDateTime.now().minusYears(1));
+
+        UserStatsDTO stats = statsCounter.snapshot();
+        assertThat(stats.getTotalActiveUsers()).isEqualTo(100L);
+        assertThat(stats.getTotalDeletedUsers()).isEqualTo(12L);
+        assertThat(stats.getUsersLastMonth()).isEqualTo(26L);
+    }
+
+    @Test
+    void reconcile_ShouldResetDriftFromDatabase() {
+        statsCounter.reconcile();
+        statsCounter.onUserCreated();
+
+        statsCounter.reconcile();
+
+        assertThat(statsCounter.snapshot().getTotalActiveUsers()).isEqualTo(100L);
+    }
+}
@@ -0,0 +1,155 @@
+package iwaproject.user_microservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iwaproject.user_microservice.dto.KeycloakUserWebhookDTO;
+import iwaproject.user_microservice.repository.UserWebhookInboxRepository;
+import iwaproject.user_microservice.repository.UserWebhookInboxRepository.InboxEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserWebhookIngestionServiceTest {
+
+    @Mock
+    private UserWebhookService webhookService;
+
+    @Mock
+    private UserWebhookInboxRepository inboxRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    // Inbox rows, in received order (the mocked repository reads and writes this map)
+    private final Map<String, String> inbox = new LinkedHashMap<>();
+
+    private UserWebhookIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        ingestionService = new UserWebhookIngestionService(webhookService, inboxRepository, transactionTemplate,
+                new ObjectMapper(), 2);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().doAnswer(invocation -> inbox.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(inboxRepository).upsert(anyString(), anyString());
+        lenient().when(inboxRepository.claimOldest(anyInt())).thenAnswer(invocation -> inbox.entrySet().stream()
+                .limit(invocation.<Integer>getArgument(0))
+                .map(e -> new InboxEntry(e.getKey(), e.getValue()))
+                .toList());
+        lenient().when(inboxRepository.claimUser(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(inbox.get(invocation.<String>getArgument(0)))
+                        .map(payload -> List.of(new InboxEntry(invocation.getArgument(0), payload)))
+                        .orElse(List.of()));
+        lenient().doAnswer(invocation -> inbox.keySet().removeAll(invocation.<Collection<String>>getArgument(0)))
+                .when(inboxRepository).deleteAll(anyCollection());
+    }
+
+    private static KeycloakUserWebhookDTO user(String id, String username) {
+        return KeycloakUserWebhookDTO.builder().id(id).username(username).email(id + "@example.com").build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldCoalesceEventsPerUserAndKeepLastState() {
+        ingestionService.submit(user("user-1", "first"));
+        ingestionService.submit(user("user-1", "second"));
+        ingestionService.submit(user("user-1", "third"));
+
+        ingestionService.flush();
+
+        ArgumentCaptor<Collection<KeycloakUserWebhookDTO>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(webhookService).upsertUsers(captor.capture());
+        assertThat(captor.getValue()).extracting(KeycloakUserWebhookDTO::getUsername).containsExactly("third");
+        assertThat(inbox).isEmpty();
+    }
+
+    @Test
+    void flush_ShouldSplitPendingUsersIntoBatches() {
+        ingestionService.submit(user("user-1", "a"));
+        ingestionService.submit(user("user-2", "b"));
+        ingestionService.submit(user("user-3", "c"));
+
+        ingestionService.flush();
+
+        verify(webhookService).upsertUsers(List.of(user("user-1", "a"), user("user-2", "b")));
+        verify(webhookService).upsertUsers(List.of(user("user-3", "c")));
+        assertThat(inbox).isEmpty();
+    }
+
+    @Test
+    void flush_WhenBatchFails_ShouldRetryUsersOneByOne() {
+        KeycloakUserWebhookDTO valid = user("user-1", "a");
+        KeycloakUserWebhookDTO invalid = user("user-2", "b");
+        ingestionService.submit(valid);
+        ingestionService.submit(invalid);
+        // lenient: other argument lists must reach the real (no-op) mock instead of failing strict stubbing
+        lenient().doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(webhookService).upsertUsers(List.of(valid, invalid));
+        lenient().doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(webhookService).upsertUsers(List.of(invalid));
+
+        ingestionService.flush();
+
+        verify(webhookService).upsertUsers(List.of(valid));
+        verify(webhookService).upsertUsers(List.of(invalid));
+        // The faulty user is dropped, the valid one applied: nothing left to retry
+        assertThat(inbox).isEmpty();
+    }
+
+    @Test
+    void flush_WhenDatabaseIsUnavailable_ShouldKeepEventsForTheNextFlush() {
+        ingestionService.submit(user("user-1", "a"));
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .doNothing()
+                .when(webhookService).upsertUsers(anyCollection());
+
+        ingestionService.flush();
+        assertThat(inbox).containsOnlyKeys("user-1");
+
+        ingestionService.flush();
+        verify(webhookService, times(2)).upsertUsers(List.of(user("user-1", "a")));
+        assertThat(inbox).isEmpty();
+    }
+
+    @Test
+    void submit_WhenInboxWriteFails_ShouldPropagateSoTheWebhookIsNotAcknowledged() {
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(inboxRepository).upsert(anyString(), anyString());
+
+        assertThatThrownBy(() -> ingestionService.submit(user("user-1", "a")))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void flushUser_ShouldApplyOnlyThatUser() {
+        ingestionService.submit(user("user-1", "a"));
+        ingestionService.submit(user("user-2", "b"));
+
+        ingestionService.flushUser("user-1");
+
+        verify(webhookService).upsertUsers(List.of(user("user-1", "a")));
+        verifyNoMoreInteractions(webhookService);
+        assertThat(inbox).containsOnlyKeys("user-2");
+    }
+}